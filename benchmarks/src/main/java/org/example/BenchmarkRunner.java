@@ -0,0 +1,80 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Measures the throughput, latency percentiles and allocation rate of a benchmark stage.
+ * <p>
+ * Each stage runs a number of warmup iterations followed by measured iterations. An untimed
+ * setup runs before every iteration, so stages that consume stock can start from a fresh
+ * catalog. Latency percentiles are taken over the measured iterations, and allocation is
+ * read from the thread allocation counter of the calling thread, so it only covers work done
+ * on that thread.
+ * </p>
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int iterations;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Constructs a runner.
+     *
+     * @param warmupIterations the number of iterations run before measuring
+     * @param iterations       the number of measured iterations
+     */
+    public BenchmarkRunner(int warmupIterations, int iterations) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Prints the header of the result table.
+     */
+    public static void printHeader() {
+        System.out.printf("%-36s %14s %10s %10s %10s %10s %12s%n",
+                "Stage", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "bytes/op");
+    }
+
+    /**
+     * Runs and prints one stage.
+     *
+     * @param name  the name of the stage
+     * @param ops   the number of operations done by one iteration of the body
+     * @param setup untimed preparation run before every iteration
+     * @param body  the measured work
+     * @return the operations per second over all measured iterations
+     */
+    public double measure(String name, long ops, Runnable setup, Runnable body) {
+        for (int i = 0; i < warmupIterations; i++) {
+            setup.run();
+            body.run();
+        }
+        long[] times = new long[iterations];
+        long allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            setup.run();
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            body.run();
+            times[i] = System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - bytes;
+        }
+        long total = Arrays.stream(times).sum();
+        Arrays.sort(times);
+        double opsPerSecond = ops * (double) iterations / (total / 1e9);
+        System.out.printf("%-36s %14.0f %10.3f %10.3f %10.3f %10.3f %12.1f%n",
+                name, opsPerSecond, percentile(times, 0.50), percentile(times, 0.90),
+                percentile(times, 0.99), times[times.length - 1] / 1e6,
+                allocated / (double) (ops * iterations));
+        return opsPerSecond;
+    }
+
+    // Returns the given percentile of the sorted iteration times in milliseconds.
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
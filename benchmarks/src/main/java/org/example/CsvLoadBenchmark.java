@@ -0,0 +1,82 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of loading the component and product CSV files of a synthetic catalog with {@link CSVLoader}.
+ * <p>
+ * The catalog is written once per trial to a temporary directory. Run with {@code -prof gc} to
+ * report the allocation rate next to the latency percentiles.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLoadBenchmark {
+    @Param("500")
+    public int components;
+
+    @Param("5000")
+    public int products;
+
+    private Path directory;
+    private Path[] files;
+
+    /**
+     * Writes the synthetic catalog.
+     *
+     * @throws IOException if a file cannot be written
+     */
+    @Setup
+    public void writeCatalog() throws IOException {
+        directory = Files.createTempDirectory("catalog");
+        files = new SyntheticCatalog(components, products, 8, 20, 1.0, 42L).writeCsv(directory);
+    }
+
+    /**
+     * Deletes the synthetic catalog.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown
+    public void deleteCatalog() throws IOException {
+        Files.delete(files[0]);
+        Files.delete(files[1]);
+        Files.delete(directory);
+    }
+
+    /**
+     * Loads the components and then the products requiring them.
+     *
+     * @return the loaded products
+     */
+    @Benchmark
+    public List<Product> load() {
+        List<BasicComponent> loaded = CSVLoader.loadComponents(files[0]);
+        Map<String, Component> lookup = loaded.stream()
+                .collect(Collectors.toMap(Component::getName, c -> c));
+        return CSVLoader.loadProducts(files[1], lookup);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of {@link ManufacturingService#manufacture(List)} over a synthetic catalog with each scheduler.
+ * <p>
+ * Every invocation manufactures a fresh catalog with full stock in its own {@link Inventory}, so the
+ * runs do not consume each other's stock. Lower the {@code stock} parameter below 1 to measure runs
+ * with stock shortages.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManufactureBenchmark {
+    @Param("500")
+    public int components;
+
+    @Param("5000")
+    public int products;
+
+    @Param("20")
+    public int units;
+
+    @Param("1.0")
+    public double stock;
+
+    @Param({"round-robin", "batch", "parallel"})
+    public String scheduler;
+
+    private SyntheticCatalog catalog;
+    private ManufacturingScheduler runner;
+    private Inventory inventory;
+    private List<Product> order;
+
+    /**
+     * Creates the catalog description and the scheduler.
+     */
+    @Setup
+    public void createScheduler() {
+        catalog = new SyntheticCatalog(components, products, 8, units, stock, 42L);
+        switch (scheduler) {
+            case "round-robin":
+                runner = new RoundRobinScheduler();
+                break;
+            case "batch":
+                runner = new RoundRobinScheduler(16);
+                break;
+            case "parallel":
+                runner = new ParallelScheduler(Runtime.getRuntime().availableProcessors(), true, 16);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scheduler: " + scheduler);
+        }
+    }
+
+    /**
+     * Closes the scheduler, shutting down the worker threads of a parallel one.
+     */
+    @TearDown
+    public void closeScheduler() {
+        runner.close();
+    }
+
+    /**
+     * Creates fresh components and products in a new inventory.
+     */
+    @Setup(Level.Invocation)
+    public void freshCatalog() {
+        inventory = new Inventory();
+        order = catalog.createProducts(catalog.createComponents(inventory));
+    }
+
+    /**
+     * Manufactures every unit of the catalog.
+     *
+     * @return the log of the run
+     */
+    @Benchmark
+    public ProcessLog manufacture() {
+        return new ManufacturingService(runner, Simulation.DEFAULT, inventory).manufacture(order);
+    }
+}
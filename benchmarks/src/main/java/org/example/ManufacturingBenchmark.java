@@ -0,0 +1,725 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks the load, manufacture and report hot paths on a synthetic catalog.
+ * <p>
+ * Options are passed as {@code --name=value} arguments:
+ * <ul>
+ *   <li>{@code components}, {@code products}, {@code requirements}, {@code units}: catalog size</li>
+ *   <li>{@code stock}: stock relative to expected demand, below 1 causes stock shortages</li>
+ *   <li>{@code threads}: the highest thread count of the parallel stages</li>
+ *   <li>{@code depth}: the number of levels of the multi-level bills of materials</li>
+ *   <li>{@code trials}: the number of simulated runs of the capacity forecast</li>
+ *   <li>{@code deductions}: the number of random stock deductions of the fixed-point stage</li>
+ *   <li>{@code warmup}, {@code iterations}: iterations per stage</li>
+ *   <li>{@code stages}: a comma separated list of stages to run, all by default</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Run it from the benchmark jar, for example:
+ * {@code java -cp benchmarks/target/benchmarks.jar org.example.ManufacturingBenchmark --products=20000 --units=20}
+ * </p>
+ */
+public class ManufacturingBenchmark {
+    private final Map<String, String> options;
+    private final SyntheticCatalog catalog;
+    private final BenchmarkRunner runner;
+    private final int threads;
+
+    private List<BasicComponent> components;
+    private List<Product> products;
+
+    private ManufacturingBenchmark(Map<String, String> options) {
+        this.options = options;
+        this.catalog = new SyntheticCatalog(
+                option("components", 500), option("products", 5000), option("requirements", 8),
+                option("units", 20), Double.parseDouble(options.getOrDefault("stock", "1.0")), 42L);
+        this.runner = new BenchmarkRunner(option("warmup", 3), option("iterations", 10));
+        this.threads = option("threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs the selected benchmark stages.
+     *
+     * @param args the options as {@code --name=value} arguments
+     * @throws Exception if a stage fails
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        new ManufacturingBenchmark(options).run();
+    }
+
+    private void run() throws Exception {
+        String stages = options.getOrDefault("stages", "load,startup,reserve,contention,manufacture,plan,allocation,bom,simulation,capacity,fork,plants,fixedpoint,restock,report,live,footprint,journal");
+        BenchmarkRunner.printHeader();
+        for (String stage : stages.split(",")) {
+            switch (stage.trim()) {
+                case "load":
+                    load();
+                    break;
+                case "startup":
+                    startup();
+                    break;
+                case "reserve":
+                    reserve();
+                    break;
+                case "contention":
+                    contention();
+                    break;
+                case "manufacture":
+                    manufacture();
+                    break;
+                case "plan":
+                    plan();
+                    break;
+                case "allocation":
+                    allocation();
+                    break;
+                case "bom":
+                    bom();
+                    break;
+                case "simulation":
+                    simulation();
+                    break;
+                case "capacity":
+                    capacity();
+                    break;
+                case "fork":
+                    stockViews();
+                    break;
+                case "plants":
+                    plants();
+                    break;
+                case "fixedpoint":
+                    fixedPoint();
+                    break;
+                case "restock":
+                    restock();
+                    break;
+                case "report":
+                    report();
+                    break;
+                case "live":
+                    live();
+                    break;
+                case "footprint":
+                    footprint();
+                    break;
+                case "journal":
+                    journal();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown stage: " + stage);
+            }
+        }
+    }
+
+    // CSV parsing throughput, reported in bytes per second.
+    private void load() throws IOException {
+        Path directory = Files.createTempDirectory("catalog");
+        Path[] files = catalog.writeCsv(directory);
+        long bytes = Files.size(files[0]) + Files.size(files[1]);
+        runner.measure("load csv (bytes)", bytes, () -> { }, () -> {
+            List<BasicComponent> loaded = CSVLoader.loadComponents(files[0]);
+            Map<String, Component> lookup = loaded.stream()
+                    .collect(Collectors.toMap(Component::getName, c -> c));
+            CSVLoader.loadProducts(files[1], lookup);
+        });
+        Files.delete(files[0]);
+        Files.delete(files[1]);
+        Files.delete(directory);
+    }
+
+    // Cold start from the CSV files compared with the binary catalog snapshot, in products per second.
+    private void startup() throws IOException {
+        Path directory = Files.createTempDirectory("catalog");
+        Path[] files = catalog.writeCsv(directory);
+        Path snapshot = directory.resolve("catalog.bin");
+        CatalogSnapshot.load(snapshot, files[0], files[1]);
+        long count = CatalogSnapshot.load(snapshot, files[0], files[1]).getProducts().size();
+        runner.measure("startup csv (products)", count, () -> { }, () -> {
+            List<BasicComponent> loaded = CSVLoader.loadComponents(files[0]);
+            Map<String, Component> lookup = loaded.stream()
+                    .collect(Collectors.toMap(Component::getName, c -> c));
+            CSVLoader.loadProducts(files[1], lookup);
+        });
+        runner.measure("startup snapshot (products)", count, () -> { },
+                () -> CatalogSnapshot.load(snapshot, files[0], files[1]));
+        clear(directory);
+        Files.delete(directory);
+    }
+
+    // The stock check and deduction of WaitingForStockState, one unit of every product.
+    private void reserve() {
+        runner.measure("waiting for stock (units)", catalog.getTotalUnits(), this::freshCatalog, () -> {
+            for (Product product : products) {
+                for (int i = 0; i < product.getQuantity(); i++) {
+                    ManufacturingProcess process = new ManufacturingProcess(product);
+                    WaitingForStockState.getInstance().proceed(process);
+                }
+            }
+        });
+    }
+
+    // Inventory reservations from 1 up to the configured number of threads.
+    private void contention() {
+        for (int n = 1; n <= threads; n *= 2) {
+            int workers = n;
+            long perThread = catalog.getTotalUnits() / workers;
+            runner.measure("inventory reserve, threads=" + n + " (units)", perThread * workers,
+                    this::freshCatalog, () -> runThreads(workers, worker -> {
+                        SplittableRandom random = new SplittableRandom(worker);
+                        Inventory inventory = Inventory.getInstance();
+                        for (long i = 0; i < perThread; i++) {
+                            inventory.reserve(products.get(random.nextInt(products.size())));
+                        }
+                    }));
+        }
+    }
+
+    // Full manufacturing runs with each scheduler.
+    private void manufacture() {
+        long units = catalog.getTotalUnits();
+        runner.measure("manufacture round-robin (units)", units, this::freshCatalog,
+                () -> new ManufacturingService(new RoundRobinScheduler()).manufacture(products));
+        runner.measure("manufacture batch=16 (units)", units, this::freshCatalog,
+                () -> new ManufacturingService(new RoundRobinScheduler(16)).manufacture(products));
+        try (ParallelScheduler parallel = new ParallelScheduler(threads, true)) {
+            runner.measure("manufacture parallel=" + threads + " (units)", units, this::freshCatalog,
+                    () -> new ManufacturingService(parallel).manufacture(products));
+        }
+    }
+
+    // Material planning, and manufacturing with and without skipping the units planned to fail.
+    private void plan() {
+        long units = catalog.getTotalUnits();
+        runner.measure("material plan (units)", units, this::freshCatalog,
+                () -> new MaterialPlanner().plan(products));
+        runner.measure("manufacture unplanned (units)", units, this::freshCatalog,
+                () -> new ManufacturingService().manufacture(products));
+        runner.measure("manufacture planned (units)", units, this::freshCatalog, () -> {
+            MaterialPlan plan = new MaterialPlanner().plan(products);
+            new ManufacturingService().manufacture(products, plan);
+        });
+    }
+
+    // Planning time of each allocation policy, with the value and the number of units it builds.
+    private void allocation() {
+        long units = catalog.getTotalUnits();
+        for (AllocationPolicy policy : AllocationPolicy.values()) {
+            runner.measure("allocate " + policy + " (units)", units, this::freshCatalog,
+                    () -> new MaterialPlanner(policy, 1).plan(products));
+            MaterialPlan plan = new MaterialPlanner(policy, 1).plan(products);
+            double value = 0;
+            long built = 0;
+            for (int i = 0; i < products.size(); i++) {
+                value += plan.getFeasibleUnits(i) * products.get(i).getTotalCost();
+                built += plan.getFeasibleUnits(i);
+            }
+            System.out.printf("%-36s %14s value: %.0f, units: %d of %d%n",
+                    "allocate " + policy, "", value, built, units);
+        }
+    }
+
+    // Parallel manufacturing with random and seeded outcomes, and whether seeded runs match a round-robin run.
+    private void simulation() {
+        long units = catalog.getTotalUnits();
+        Simulation seeded = new Simulation(42L);
+        String expected = outcomes(new RoundRobinScheduler(16), seeded);
+        for (int n = 1; n <= threads; n *= 2) {
+            try (ParallelScheduler scheduler = new ParallelScheduler(n, true, 16)) {
+                runner.measure("manufacture random, threads=" + n + " (units)", units, this::freshCatalog,
+                        () -> new ManufacturingService(scheduler).manufacture(products));
+                runner.measure("manufacture seeded, threads=" + n + " (units)", units, this::freshCatalog,
+                        () -> new ManufacturingService(scheduler, seeded).manufacture(products));
+                System.out.printf("%-36s %14s reproducible: %b%n",
+                        "seeded threads=" + n, "", expected.equals(outcomes(scheduler, seeded)));
+            }
+        }
+    }
+
+    // Monte Carlo forecast throughput in simulated units per second, with the spread of the output.
+    private void capacity() {
+        freshCatalog();
+        int trials = option("trials", 200);
+        long units = catalog.getTotalUnits() * trials;
+        Simulation seeded = new Simulation(42L);
+        CapacityForecast[] forecast = new CapacityForecast[1];
+        for (int n = 1; n <= threads; n *= 2) {
+            CapacityPlanner planner = new CapacityPlanner(seeded, 16, n);
+            runner.measure("capacity forecast, threads=" + n + " (units)", units, () -> { },
+                    () -> forecast[0] = planner.forecast(products, trials));
+        }
+        System.out.printf("%-36s %14s output mean: %.1f, p5: %d, p95: %d of %d%n", "capacity forecast", "",
+                forecast[0].getMeanOutput(), forecast[0].getOutputPercentile(5),
+                forecast[0].getOutputPercentile(95), catalog.getTotalUnits());
+    }
+
+    // Forking stock views of a small and a large catalog, and what-if scenarios on forks compared with copies.
+    private void stockViews() {
+        freshCatalog();
+        StockView baseline = StockView.of(products);
+        int forks = 1_000_000;
+        runner.measure("stock view copy (components)", baseline.size(), () -> { }, () -> StockView.of(products));
+        runner.measure("stock view fork (forks)", forks, () -> { }, () -> {
+            for (int i = 0; i < forks; i++) {
+                baseline.fork();
+            }
+        });
+        List<BasicComponent> large = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            large.add(new BasicComponent(i, "Component " + i, 1.0, 1.0, "Raw Material", 100.0));
+        }
+        StockView largeBaseline = StockView.of(large);
+        runner.measure("stock view fork, 1M components (forks)", forks, () -> { }, () -> {
+            for (int i = 0; i < forks; i++) {
+                largeBaseline.fork();
+            }
+        });
+
+        int scenarios = 64;
+        for (int n = 1; n <= threads; n *= 2) {
+            int workers = n;
+            runner.measure("what-if on forks, threads=" + n + " (scenarios)", scenarios, () -> { },
+                    () -> runThreads(workers, worker -> {
+                        for (int s = worker; s < scenarios; s += workers) {
+                            StockView scenario = baseline.fork();
+                            for (Product product : products) {
+                                scenario.reserveUpTo(product, 16);
+                            }
+                        }
+                    }));
+        }
+        runner.measure("what-if on copies (scenarios)", scenarios, () -> { }, () -> {
+            for (int s = 0; s < scenarios; s++) {
+                StockView scenario = StockView.of(products);
+                for (Product product : products) {
+                    scenario.reserveUpTo(product, 16);
+                }
+            }
+        });
+    }
+
+    // Independent plants, each with its own catalog and inventory, manufacturing side by side.
+    private void plants() {
+        long units = catalog.getTotalUnits();
+        for (int n = 1; n <= threads; n *= 2) {
+            int plants = n;
+            Inventory[] inventories = new Inventory[plants];
+            List<List<Product>> orders = new ArrayList<>();
+            runner.measure("plants=" + n + " (units)", units * plants, () -> {
+                orders.clear();
+                for (int p = 0; p < plants; p++) {
+                    inventories[p] = new Inventory();
+                    orders.add(catalog.createProducts(catalog.createComponents(inventories[p])));
+                }
+            }, () -> runThreads(plants, p -> new ManufacturingService(new RoundRobinScheduler(16),
+                    Simulation.DEFAULT, inventories[p]).manufacture(orders.get(p))));
+        }
+        try (ParallelScheduler parallel = new ParallelScheduler(threads, true, 16)) {
+            runner.measure("one inventory, parallel=" + threads + " (units)", units, this::freshCatalog,
+                    () -> new ManufacturingService(parallel).manufacture(products));
+        }
+    }
+
+    // Random deductions of a few shared components, lock-free in exact units compared with locked
+    // rounded doubles, checked against the sum of the deductions that succeeded.
+    private void fixedPoint() {
+        int deductions = option("deductions", 10_000_000);
+        int shared = 8;
+        long initialUnits = deductions / shared * 250L; // about half of the expected demand, in hundredths
+        for (int n = 1; n <= threads; n *= 2) {
+            int workers = n;
+            int perThread = deductions / workers;
+            BasicComponent[] stock = new BasicComponent[shared];
+            long[][] deducted = new long[workers][shared];
+            runner.measure("fixed-point deduct, threads=" + n + " (ops)", (long) perThread * workers, () -> {
+                for (int c = 0; c < shared; c++) {
+                    stock[c] = new BasicComponent(c, "Component " + c, 1.0, 1.0, "Raw Material", initialUnits / 100.0);
+                }
+                for (long[] row : deducted) {
+                    Arrays.fill(row, 0);
+                }
+            }, () -> runThreads(workers, worker -> {
+                SplittableRandom random = new SplittableRandom(worker);
+                for (int i = 0; i < perThread; i++) {
+                    int c = random.nextInt(shared);
+                    long units = 1 + random.nextInt(1000);
+                    if (stock[c].tryDecreaseUnits(units)) {
+                        deducted[worker][c] += units;
+                    }
+                }
+            }));
+            boolean exact = true;
+            for (int c = 0; c < shared; c++) {
+                long total = 0;
+                for (long[] row : deducted) {
+                    total += row[c];
+                }
+                exact &= stock[c].getStockUnits() == initialUnits - total && stock[c].getStockUnits() >= 0;
+            }
+            System.out.printf("%-36s %14s exact: %b%n", "fixed-point threads=" + n, "", exact);
+
+            double[] rounded = new double[shared];
+            runner.measure("rounded double deduct, threads=" + n + " (ops)", (long) perThread * workers,
+                    () -> Arrays.fill(rounded, initialUnits / 100.0),
+                    () -> runThreads(workers, worker -> {
+                        SplittableRandom random = new SplittableRandom(worker);
+                        for (int i = 0; i < perThread; i++) {
+                            int c = random.nextInt(shared);
+                            double quantity = (1 + random.nextInt(1000)) / 100.0;
+                            synchronized (rounded) {
+                                if (rounded[c] >= quantity) {
+                                    rounded[c] = Math.round((rounded[c] - quantity) * 100.0) / 100.0;
+                                }
+                            }
+                        }
+                    }));
+        }
+
+        // Without rounding, binary doubles drift away from the exact decimal stock.
+        SplittableRandom random = new SplittableRandom(42L);
+        long exactUnits = initialUnits;
+        double naive = initialUnits / 100.0;
+        for (int i = 0; i < deductions; i++) {
+            long units = 1 + random.nextInt(10);
+            exactUnits -= units;
+            naive -= units / 100.0;
+        }
+        System.out.printf("%-36s %14s drift: %.3e after %d deductions%n", "unrounded double", "",
+                Math.abs(naive - exactUnits / 100.0), deductions);
+    }
+
+    // Runs failing the units short of stock at once, and runs waiting for a supplier that restocks
+    // every component a little every millisecond, with the stock shortages of the last run of each.
+    private void restock() {
+        long units = catalog.getTotalUnits();
+        long[] shortages = new long[2];
+        try (ParallelScheduler parallel = new ParallelScheduler(threads, true, 16)) {
+            runner.measure("short stock, fail at once (units)", units, this::freshCatalog, () -> shortages[0] =
+                    shortages(new ManufacturingService(parallel).manufacture(products)));
+        }
+        try (ParallelScheduler waiting = new ParallelScheduler(threads, true, 16, 1000)) {
+            double[] supply = new double[1];
+            runner.measure("short stock, wait for restock (units)", units, () -> {
+                freshCatalog();
+                supply[0] = components.get(0).getStockQuantity() / 50;
+            }, () -> {
+                AtomicBoolean done = new AtomicBoolean();
+                Thread supplier = new Thread(() -> {
+                    while (!done.get()) {
+                        for (BasicComponent component : components) {
+                            Inventory.getInstance().restock(component.getName(), supply[0]);
+                        }
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                });
+                supplier.start();
+                try {
+                    shortages[1] = shortages(new ManufacturingService(waiting).manufacture(products));
+                } finally {
+                    done.set(true);
+                    try {
+                        supplier.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        System.out.printf("%-36s %14s stock shortages: %d at once, %d waiting of %d%n", "restock", "",
+                shortages[0], shortages[1], units);
+    }
+
+    private static long shortages(ProcessLog log) {
+        return new ReportGenerator(log).summarize().getFailures(FailureType.STOCK_SHORTAGE);
+    }
+
+    // Manufactures a fresh catalog and lists the completed units of every product and the failures.
+    private String outcomes(ManufacturingScheduler scheduler, Simulation simulation) {
+        freshCatalog();
+        ReportSummary summary = new ReportGenerator(new ManufacturingService(scheduler, simulation).manufacture(products)).summarize();
+        StringBuilder text = new StringBuilder();
+        for (int id = 0; id < summary.getProductCount(); id++) {
+            text.append(summary.getProduct(id).getName()).append('=').append(summary.getCompleted(id)).append(',');
+        }
+        for (FailureType type : FailureType.values()) {
+            text.append(type).append('=').append(summary.getFailures(type)).append(',');
+        }
+        return text.toString();
+    }
+
+    // Levelling, explosion and cost rollup of a deep chain and of a wide multi-level catalog, in products per second.
+    private void bom() {
+        freshCatalog();
+        int depth = option("depth", 5000);
+        List<Product> chain = new ArrayList<>();
+        runner.measure("bom chain rollup (levels)", depth, () -> {
+            chain.clear();
+            chain.addAll(assemblies(depth, 1, 1));
+        }, () -> chain.get(chain.size() - 1).getTotalCost());
+        runner.measure("bom chain levels (levels)", depth, () -> { }, () -> new BillOfMaterials(chain));
+        runner.measure("bom chain explode (levels)", depth, () -> { },
+                () -> new BillOfMaterials(chain).explode(chain.get(chain.size() - 1)));
+
+        int width = Math.max(1, products.size() / 10);
+        List<Product> wide = assemblies(10, width, 3);
+        runner.measure("bom wide levels (products)", wide.size(), () -> { }, () -> new BillOfMaterials(wide));
+        runner.measure("bom wide explode (products)", wide.size(), () -> { }, () -> {
+            BillOfMaterials bom = new BillOfMaterials(wide);
+            for (Product product : wide) {
+                bom.explode(product);
+            }
+        });
+        runner.measure("bom wide plan (products)", wide.size(), () -> { },
+                () -> new MaterialPlanner().plan(wide));
+    }
+
+    // Creates products in the given number of levels, each using the basic components of a synthetic
+    // product and the given number of products of the level below.
+    private List<Product> assemblies(int levels, int width, int fanOut) {
+        SplittableRandom random = new SplittableRandom(11);
+        List<Product> created = new ArrayList<>(levels * width);
+        for (int level = 0; level < levels; level++) {
+            int below = created.size() - width;
+            for (int i = 0; i < width; i++) {
+                Product base = products.get(random.nextInt(products.size()));
+                int count = base.getRequirementCount() + (level > 0 ? fanOut : 0);
+                Component[] parts = new Component[count];
+                double[] amounts = new double[count];
+                for (int j = 0; j < base.getRequirementCount(); j++) {
+                    parts[j] = base.getRequiredComponent(j);
+                    amounts[j] = base.getRequiredQuantity(j);
+                }
+                for (int j = base.getRequirementCount(); j < count; j++) {
+                    parts[j] = created.get(below + random.nextInt(width));
+                    amounts[j] = 1 + random.nextInt(2);
+                }
+                created.add(new Product("Assembly " + level + "-" + i, parts, amounts, level == levels - 1 ? 1 : 0));
+            }
+        }
+        return created;
+    }
+
+    // Final report aggregation over a synthetic log, and printing the process states of the log
+    // with per-line printf compared with the buffered report sinks.
+    private void report() throws IOException {
+        freshCatalog();
+        ProcessLog log = syntheticLog(Math.max(1_000_000, (int) catalog.getTotalUnits()));
+        runner.measure("report summarize (entries)", log.size(), () -> { },
+                () -> new ReportGenerator(log).summarize());
+        runner.measure("report summarize parallel (entries)", log.size(), () -> { },
+                () -> new ReportGenerator(log, true).summarize());
+
+        Path file = Files.createTempFile("report", ".out");
+        // Configured like System.out, which flushes every line, and limited to fewer entries since it is slow.
+        int printed = Math.min(log.size(), 100_000);
+        runner.measure("report print printf (entries)", printed, () -> { }, () -> {
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(file), 128), true)) {
+                for (int i = 0; i < printed; i++) {
+                    out.printf("Product: %-15s | State: %-25s%n", log.getProduct(i).getName(), log.getStateName(i));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        for (String format : new String[] {"text", "csv", "json"}) {
+            runner.measure("report print " + format + " (entries)", log.size(), () -> { }, () -> {
+                try (ReportSink sink = ReportSink.open(format, file)) {
+                    for (int i = 0; i < log.size(); i++) {
+                        sink.processState(log.getProduct(i).getName(), log.getStateName(i));
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        Files.delete(file);
+    }
+
+    // Recording outcomes into the live aggregates from 1 up to the configured number of threads,
+    // and the latency of a snapshot.
+    private void live() {
+        freshCatalog();
+        FailureType[] failures = FailureType.values();
+        long units = Math.max(1_000_000, catalog.getTotalUnits());
+        LiveReport[] live = {new LiveReport()};
+        for (int n = 1; n <= threads; n *= 2) {
+            int workers = n;
+            long perThread = units / workers;
+            runner.measure("live record, threads=" + n + " (units)", perThread * workers,
+                    () -> live[0] = new LiveReport(), () -> runThreads(workers, worker -> {
+                        SplittableRandom random = new SplittableRandom(worker);
+                        for (long i = 0; i < perThread; i++) {
+                            Product product = products.get(random.nextInt(products.size()));
+                            int outcome = random.nextInt(4);
+                            if (outcome == 0) {
+                                live[0].record(product, ProcessStatus.COMPLETED, null);
+                            } else {
+                                live[0].record(product, ProcessStatus.FAILED, failures[outcome - 1]);
+                            }
+                        }
+                    }));
+        }
+        runner.measure("live snapshot (products)", products.size(), () -> { }, () -> live[0].snapshot());
+    }
+
+    // Retained heap of the process log compared with a list of processes.
+    private void footprint() {
+        freshCatalog();
+        int entries = Math.max(1_000_000, (int) catalog.getTotalUnits());
+        long before = usedHeap();
+        List<ManufacturingProcess> list = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            ManufacturingProcess process = new ManufacturingProcess(products.get(i % products.size()));
+            process.setFailureType(FailureType.SYSTEM_ERROR);
+            list.add(process);
+        }
+        long listBytes = usedHeap() - before;
+        before = usedHeap();
+        ProcessLog log = syntheticLog(entries);
+        long logBytes = usedHeap() - before;
+        System.out.printf("%-36s %14s list: %.1f bytes/process, log: %.1f bytes/process (%d, %d)%n",
+                "footprint", "", listBytes / (double) entries, logBytes / (double) entries,
+                list.size(), log.size());
+    }
+
+    // Journaled reservations and the recovery replay of the resulting journal.
+    private void journal() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        long[] records = {0};
+        runner.measure("journaled reserve (units)", catalog.getTotalUnits(), () -> {
+            freshCatalog();
+            clear(directory);
+        }, () -> {
+            try (InventoryJournal journal = new InventoryJournal(directory, components, products)) {
+                Inventory.getInstance().setJournal(journal);
+                for (Product product : products) {
+                    for (int i = 0; i < product.getQuantity(); i++) {
+                        Inventory.getInstance().reserve(product);
+                    }
+                }
+                journal.commit();
+                records[0] = journal.size();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                Inventory.getInstance().setJournal(null);
+            }
+        });
+        runner.measure("journal recover (records)", records[0], this::freshCatalog, () -> {
+            try (InventoryJournal journal = new InventoryJournal(directory, components, products)) {
+                journal.recover(null);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        clear(directory);
+        Files.delete(directory);
+    }
+
+    // Deletes the files in a directory.
+    private static void clear(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Creates a fresh catalog with full stock.
+    private void freshCatalog() {
+        components = catalog.createComponents();
+        products = catalog.createProducts(components);
+    }
+
+    // Creates a log of the given size with a realistic mix of outcomes.
+    private ProcessLog syntheticLog(int entries) {
+        SplittableRandom random = new SplittableRandom(7);
+        FailureType[] failures = FailureType.values();
+        ProcessLog log = new ProcessLog();
+        for (int i = 0; i < entries; i++) {
+            Product product = products.get(i % products.size());
+            int outcome = random.nextInt(4);
+            if (outcome == 0) {
+                log.append(product, ProcessStatus.COMPLETED, null);
+            } else {
+                log.append(product, ProcessStatus.FAILED, failures[outcome - 1]);
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Work run by one thread of a multi-threaded stage.
+     */
+    private interface Worker {
+        void run(int worker) throws Exception;
+    }
+
+    // Starts the given number of threads together and waits until all finished.
+    private static void runThreads(int count, Worker worker) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int id = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(id);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : started) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private int option(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,119 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of {@link ReportGenerator} over a synthetic log with a realistic mix of outcomes.
+ * <p>
+ * {@link #summarize()} measures the aggregation alone, {@link #printReport(Output)} the aggregation
+ * and the final report written through a {@link ReportSink} of each format to a temporary file.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+    @Param("5000")
+    public int products;
+
+    @Param("1000000")
+    public int entries;
+
+    private ProcessLog log;
+
+    /**
+     * Creates the synthetic log.
+     */
+    @Setup
+    public void createLog() {
+        SyntheticCatalog catalog = new SyntheticCatalog(500, products, 8, 20, 1.0, 42L);
+        List<Product> order = catalog.createProducts(catalog.createComponents(new Inventory()));
+        SplittableRandom random = new SplittableRandom(7);
+        FailureType[] failures = FailureType.values();
+        log = new ProcessLog();
+        for (int i = 0; i < entries; i++) {
+            Product product = order.get(i % order.size());
+            int outcome = random.nextInt(4);
+            if (outcome == 0) {
+                log.append(product, ProcessStatus.COMPLETED, null);
+            } else {
+                log.append(product, ProcessStatus.FAILED, failures[outcome - 1]);
+            }
+        }
+    }
+
+    /**
+     * The temporary file the report is written to, in each report format.
+     */
+    @State(Scope.Thread)
+    public static class Output {
+        @Param({"text", "csv", "json"})
+        public String format;
+
+        private Path file;
+
+        /**
+         * Creates the temporary file.
+         *
+         * @throws IOException if the file cannot be created
+         */
+        @Setup
+        public void createFile() throws IOException {
+            file = Files.createTempFile("report", ".out");
+        }
+
+        /**
+         * Deletes the temporary file.
+         *
+         * @throws IOException if the file cannot be deleted
+         */
+        @TearDown
+        public void deleteFile() throws IOException {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Aggregates the log into a summary.
+     *
+     * @return the summary
+     */
+    @Benchmark
+    public ReportSummary summarize() {
+        return new ReportGenerator(log).summarize();
+    }
+
+    /**
+     * Aggregates the log and writes the final report.
+     *
+     * @param output the file and format of the report
+     * @throws IOException if the report file cannot be opened
+     */
+    @Benchmark
+    public void printReport(Output output) throws IOException {
+        try (ReportSink sink = ReportSink.open(output.format, output.file)) {
+            new ReportGenerator(log).printReport(sink);
+        }
+    }
+}
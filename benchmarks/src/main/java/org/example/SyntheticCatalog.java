@@ -0,0 +1,199 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic component and product catalogs of configurable size for the benchmarks.
+ * <p>
+ * The generated CSV files use the same layout as the bundled {@code components.csv} and
+ * {@code products.csv}, including comma decimals and unit suffixes, so they exercise the same
+ * parsing paths. The same seed always produces the same catalog.
+ * </p>
+ */
+public class SyntheticCatalog {
+    private static final String[] TYPES = {"Raw Material", "Hardware", "Paint"};
+    private static final String[] UNITS = {"pieces", "boxes", "m²", "kg"};
+
+    private final int componentCount;
+    private final int productCount;
+    private final int requirementsPerProduct;
+    private final int unitsPerProduct;
+    private final double stockFactor;
+    private final long seed;
+
+    /**
+     * Constructs a catalog description.
+     *
+     * @param componentCount         the number of basic components
+     * @param productCount           the number of products
+     * @param requirementsPerProduct the number of distinct components each product requires
+     * @param unitsPerProduct        the number of units of each product to manufacture
+     * @param stockFactor            the stock of each component relative to its expected total demand,
+     *                               below 1 leaves some units short of stock
+     * @param seed                   the seed of the generator
+     */
+    public SyntheticCatalog(int componentCount, int productCount, int requirementsPerProduct,
+                            int unitsPerProduct, double stockFactor, long seed) {
+        this.componentCount = componentCount;
+        this.productCount = productCount;
+        this.requirementsPerProduct = Math.min(requirementsPerProduct, componentCount);
+        this.unitsPerProduct = unitsPerProduct;
+        this.stockFactor = stockFactor;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the number of units to manufacture over all products.
+     *
+     * @return the total number of units
+     */
+    public long getTotalUnits() {
+        return (long) productCount * unitsPerProduct;
+    }
+
+    /**
+     * Creates fresh components with full stock and registers them in the default {@link Inventory}.
+     *
+     * @return the components, indexed by their id
+     */
+    public List<BasicComponent> createComponents() {
+        return createComponents(Inventory.getInstance());
+    }
+
+    /**
+     * Creates fresh components with full stock and registers them in the given {@link Inventory}.
+     *
+     * @param inventory the inventory of the plant the components belong to
+     * @return the components, indexed by their id
+     */
+    public List<BasicComponent> createComponents(Inventory inventory) {
+        List<BasicComponent> components = new ArrayList<>(componentCount);
+        for (int id = 0; id < componentCount; id++) {
+            BasicComponent component = new BasicComponent(id, componentName(id), unitCost(id),
+                    unitWeight(id), TYPES[id % TYPES.length], stock());
+            components.add(component);
+            inventory.addComponent(component);
+        }
+        return components;
+    }
+
+    /**
+     * Creates the products over the given components.
+     *
+     * @param components the components created by {@link #createComponents()}
+     * @return the products, each with its quantity to manufacture
+     */
+    public List<Product> createProducts(List<BasicComponent> components) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Product> products = new ArrayList<>(productCount);
+        int[] columns = new int[requirementsPerProduct];
+        double[] amounts = new double[requirementsPerProduct];
+        for (int p = 0; p < productCount; p++) {
+            pickRequirements(random, columns, amounts);
+            Component[] parts = new Component[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                parts[i] = components.get(columns[i]);
+            }
+            products.add(new Product(productName(p), parts, amounts, unitsPerProduct));
+        }
+        return products;
+    }
+
+    /**
+     * Writes the catalog as {@code components.csv} and {@code products.csv} into the given directory.
+     *
+     * @param directory the directory to write to
+     * @return the paths of the components file and the products file
+     * @throws IOException if a file cannot be written
+     */
+    public Path[] writeCsv(Path directory) throws IOException {
+        Path componentsFile = directory.resolve("components.csv");
+        Path productsFile = directory.resolve("products.csv");
+        try (Writer out = Files.newBufferedWriter(componentsFile, StandardCharsets.UTF_8)) {
+            out.write("Component;Unit Cost (TL);Unit Weight (kg);Type;Stock Quantity\n");
+            for (int id = 0; id < componentCount; id++) {
+                out.write(componentName(id) + ";" + decimal(unitCost(id)) + ";" + decimal(unitWeight(id)) + ";"
+                        + TYPES[id % TYPES.length] + ";" + (long) stock() + " " + UNITS[id % UNITS.length] + "\n");
+            }
+        }
+        try (Writer out = Files.newBufferedWriter(productsFile, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder("Product Name");
+            for (int id = 0; id < componentCount; id++) {
+                line.append(';').append(componentName(id));
+            }
+            out.write(line.append(";Quantity\n").toString());
+
+            SplittableRandom random = new SplittableRandom(seed);
+            int[] columns = new int[requirementsPerProduct];
+            double[] amounts = new double[requirementsPerProduct];
+            double[] row = new double[componentCount];
+            for (int p = 0; p < productCount; p++) {
+                pickRequirements(random, columns, amounts);
+                for (int i = 0; i < columns.length; i++) {
+                    row[columns[i]] = amounts[i];
+                }
+                line.setLength(0);
+                line.append(productName(p));
+                for (int id = 0; id < componentCount; id++) {
+                    line.append(';').append(row[id] == 0 ? "0" : decimal(row[id]));
+                    row[id] = 0;
+                }
+                out.write(line.append(';').append(unitsPerProduct).append('\n').toString());
+            }
+        }
+        return new Path[] {componentsFile, productsFile};
+    }
+
+    // Picks distinct component columns and their amounts for one product.
+    private void pickRequirements(SplittableRandom random, int[] columns, double[] amounts) {
+        for (int i = 0; i < columns.length; i++) {
+            int column;
+            boolean taken;
+            do {
+                column = random.nextInt(componentCount);
+                taken = false;
+                for (int j = 0; j < i; j++) {
+                    taken |= columns[j] == column;
+                }
+            } while (taken);
+            columns[i] = column;
+            // Amounts between 0.5 and 10 in steps of 0.5.
+            amounts[i] = (1 + random.nextInt(20)) * 0.5;
+        }
+    }
+
+    // Stock covering the expected demand of a component times the stock factor.
+    private double stock() {
+        double expectedDemand = (double) productCount * requirementsPerProduct / componentCount
+                * unitsPerProduct * 5.25;
+        return Math.ceil(expectedDemand * stockFactor);
+    }
+
+    private static String componentName(int id) {
+        return "Component " + id;
+    }
+
+    private static String productName(int id) {
+        return "Product " + id;
+    }
+
+    private static double unitCost(int id) {
+        return 0.5 + (id % 100) * 0.75;
+    }
+
+    private static double unitWeight(int id) {
+        return 0.05 + (id % 40) * 0.5;
+    }
+
+    // Formats a number with a comma decimal separator, as in the bundled files.
+    private static String decimal(double value) {
+        return Double.toString(value).replace('.', ',');
+    }
+}
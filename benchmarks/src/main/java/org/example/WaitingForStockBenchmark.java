@@ -0,0 +1,67 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the stock check and deduction of {@link WaitingForStockState#proceed}, one unit at a time.
+ * <p>
+ * The units cycle through the products of a synthetic catalog whose stock covers a thousand times
+ * the demand, so the stock lasts for a whole iteration and every unit takes the reservation path.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitingForStockBenchmark {
+    @Param("500")
+    public int components;
+
+    @Param("5000")
+    public int products;
+
+    private Inventory inventory;
+    private List<Product> order;
+    private int next;
+
+    /**
+     * Creates fresh components and products in a new inventory.
+     */
+    @Setup(Level.Iteration)
+    public void freshCatalog() {
+        SyntheticCatalog catalog = new SyntheticCatalog(components, products, 8, 20, 1000.0, 42L);
+        inventory = new Inventory();
+        order = catalog.createProducts(catalog.createComponents(inventory));
+        next = 0;
+    }
+
+    /**
+     * Reserves the stock of one unit of the next product.
+     *
+     * @return the process of the unit
+     */
+    @Benchmark
+    public ManufacturingProcess proceed() {
+        Product product = order.get(next);
+        next = next + 1 == order.size() ? 0 : next + 1;
+        ManufacturingProcess process = new ManufacturingProcess(product, Simulation.DEFAULT, 0, inventory);
+        WaitingForStockState.getInstance().proceed(process);
+        return process;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example;
+
+/**
+ * Enumeration of the ways a {@link MaterialPlanner} shares scarce components between products.
+ *
+ * <ul>
+ *   <li>{@link #ROUND_ROBIN} — Units are allocated in the order the schedulers build them, one
+ *       unit or batch of each product per round, as without planning.</li>
+ *   <li>{@link #MAX_VALUE} — Units are allocated to maximize the total cost of the built products,
+ *       see {@link Product#getTotalCost()}.</li>
+ *   <li>{@link #MAX_FILL_RATE} — Units are allocated to maximize the number of units built.</li>
+ * </ul>
+ */
+public enum AllocationPolicy {
+    ROUND_ROBIN,
+    MAX_VALUE,
+    MAX_FILL_RATE
+}
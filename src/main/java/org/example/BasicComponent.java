@@ -1,5 +1,9 @@
 package org.example;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a basic component in the manufacturing system such as raw materials,
  * paint, or hardware.
@@ -8,14 +12,41 @@ package org.example;
  * {@link Component} interface. It defines attributes such as cost, weight, type,
  * and available stock, and provides methods for accessing this data and updating stock levels.
  * </p>
+ * <p>
+ * Changing the unit cost or weight of any component advances a shared rollup epoch, which
+ * invalidates the cost and weight rollups cached by every {@link Product}.
+ * </p>
+ * <p>
+ * The stock is kept as an exact count of the smallest unit of the component, hundredths unless the
+ * component is given another number of decimals, so deductions never accumulate rounding drift and
+ * stock checks compare integers. The count is updated atomically, so concurrent deductions are
+ * never lost, and {@link #tryDecreaseUnits(long)} deducts only while the stock suffices, without locks.
+ * </p>
  */
 public class BasicComponent implements Component {
+    /** The number of decimals of the stock of components constructed without a precision. */
+    public static final int DEFAULT_DECIMALS = 2;
+
+    // Advanced whenever a unit cost or weight changes, see Product rollups.
+    private static final AtomicLong rollupEpoch = new AtomicLong();
+    private static final VarHandle STOCK_UNITS;
 
+    static {
+        try {
+            STOCK_UNITS = MethodHandles.lookup().findVarHandle(BasicComponent.class, "stockUnits", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int id; // dense id assigned at load time, -1 if unregistered
     private String name;
-    private double unitCost;
-    private double unitWeight;
+    private volatile double unitCost;
+    private volatile double unitWeight;
     private String type;
-    private double stockQuantity; // current stock
+    private final int decimals;
+    private final long scale; // stock units per unit of quantity, 10 to the power of decimals
+    private volatile long stockUnits; // current stock in stock units, updated through STOCK_UNITS
 
     /**
      * Constructs a new BasicComponent with the specified attributes.
@@ -27,11 +58,65 @@ public class BasicComponent implements Component {
      * @param stockQuantity the available stock quantity (can be different units)
      */
     public BasicComponent(String name, double unitCost, double unitWeight, String type, double stockQuantity) {
+        this(-1, name, unitCost, unitWeight, type, stockQuantity);
+    }
+
+    /**
+     * Constructs a new BasicComponent with a dense id and the specified attributes.
+     * <p>
+     * Ids are assigned consecutively from 0 when components are loaded, so per-component data
+     * can be kept in arrays indexed by id.
+     * </p>
+     *
+     * @param id            the dense id of the component, or -1 if it is not registered
+     * @param name          the name of the component
+     * @param unitCost      the cost per unit
+     * @param unitWeight    the weight per unit
+     * @param type          the type/category of the component (raw material, paint, hardware)
+     * @param stockQuantity the available stock quantity (can be different units)
+     */
+    public BasicComponent(int id, String name, double unitCost, double unitWeight, String type, double stockQuantity) {
+        this(id, name, unitCost, unitWeight, type, stockQuantity, DEFAULT_DECIMALS);
+    }
+
+    /**
+     * Constructs a new BasicComponent whose stock is kept with the given number of decimals.
+     *
+     * @param id            the dense id of the component, or -1 if it is not registered
+     * @param name          the name of the component
+     * @param unitCost      the cost per unit
+     * @param unitWeight    the weight per unit
+     * @param type          the type/category of the component (raw material, paint, hardware)
+     * @param stockQuantity the available stock quantity, rounded to the given decimals
+     * @param decimals      the precision of the stock, between 0 and 9 decimals
+     * @throws IllegalArgumentException if the number of decimals is out of range
+     */
+    public BasicComponent(int id, String name, double unitCost, double unitWeight, String type, double stockQuantity,
+                          int decimals) {
+        if (decimals < 0 || decimals > 9) {
+            throw new IllegalArgumentException("Decimals must be between 0 and 9: " + decimals);
+        }
+        this.id = id;
         this.name = name;
         this.unitCost = unitCost;
         this.unitWeight = unitWeight;
         this.type = type;
-        this.stockQuantity = stockQuantity;
+        this.decimals = decimals;
+        long power = 1;
+        for (int i = 0; i < decimals; i++) {
+            power *= 10;
+        }
+        this.scale = power;
+        this.stockUnits = toUnits(stockQuantity);
+    }
+
+    /**
+     * Returns the dense id of the component.
+     *
+     * @return the id assigned at load time, or -1 if the component is not registered
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -52,6 +137,16 @@ public class BasicComponent implements Component {
         return unitCost;
     }
 
+    /**
+     * Sets the cost per unit of the component and invalidates cached product rollups.
+     *
+     * @param unitCost the new unit cost
+     */
+    public void setUnitCost(double unitCost) {
+        this.unitCost = unitCost;
+        rollupEpoch.incrementAndGet();
+    }
+
     /**
      * Returns the weight per unit of the component.
      *
@@ -61,6 +156,16 @@ public class BasicComponent implements Component {
         return unitWeight;
     }
 
+    /**
+     * Sets the weight per unit of the component and invalidates cached product rollups.
+     *
+     * @param unitWeight the new unit weight
+     */
+    public void setUnitWeight(double unitWeight) {
+        this.unitWeight = unitWeight;
+        rollupEpoch.incrementAndGet();
+    }
+
     /**
      * Returns the type or category of the component (e.g., "Paint", "Raw Material").
      *
@@ -76,16 +181,107 @@ public class BasicComponent implements Component {
      * @return the available stock
      */
     public double getStockQuantity() {
-        return stockQuantity;
+        return (double) stockUnits / scale;
+    }
+
+    /**
+     * Returns the current available stock as an exact count of stock units.
+     *
+     * @return the available stock in units of {@code 1 / getScale()}
+     */
+    public long getStockUnits() {
+        return stockUnits;
+    }
+
+    /**
+     * Returns the number of decimals the stock is kept with.
+     *
+     * @return the precision of the stock
+     */
+    public int getDecimals() {
+        return decimals;
+    }
+
+    /**
+     * Returns the number of stock units per unit of quantity.
+     *
+     * @return 10 to the power of {@link #getDecimals()}
+     */
+    public long getScale() {
+        return scale;
+    }
+
+    /**
+     * Converts a quantity of this component to stock units, rounding half up to the precision of the stock.
+     *
+     * @param quantity the quantity
+     * @return the quantity in stock units
+     */
+    public long toUnits(double quantity) {
+        return Math.round(quantity * scale);
+    }
+
+    /**
+     * Restores the stock quantity from a snapshot, see {@link InventoryJournal}.
+     *
+     * @param stockQuantity the stock quantity to restore
+     */
+    void restoreStockQuantity(double stockQuantity) {
+        this.stockUnits = toUnits(stockQuantity);
     }
 
     /**
      * Deduct the quantity used during manufacturing.
+     * <p>
+     * The quantity is rounded to the precision of the stock and deducted atomically. Checking the
+     * stock before deducting it is not atomic, stock should be reserved through
+     * {@link Inventory#reserve(Product)} or {@link #tryDecreaseUnits(long)}.
+     * </p>
      *
      * @param quantityUsed the amount of quantity used to deduct
      */
     public void decreaseQuantity(double quantityUsed) {
-        this.stockQuantity = Math.round((this.stockQuantity - quantityUsed) * 100.0) / 100.0;
+        decreaseUnits(toUnits(quantityUsed));
+    }
+
+    /**
+     * Atomically deducts a number of stock units, even below zero.
+     *
+     * @param units the stock units to deduct
+     */
+    public void decreaseUnits(long units) {
+        STOCK_UNITS.getAndAdd(this, -units);
+    }
+
+    /**
+     * Atomically deducts a number of stock units if the stock covers them.
+     * <p>
+     * The check and the deduction are one compare-and-set, retried when another thread changed the
+     * stock in between, so concurrent callers never overdraw the stock and never block.
+     * </p>
+     *
+     * @param units the stock units to deduct, not negative
+     * @return {@code true} if the units were deducted, {@code false} if the stock was too low
+     */
+    public boolean tryDecreaseUnits(long units) {
+        long current;
+        do {
+            current = stockUnits;
+            if (current < units) {
+                return false;
+            }
+        } while (!STOCK_UNITS.compareAndSet(this, current, current - units));
+        return true;
+    }
+
+    /**
+     * Returns the current rollup epoch, which changes whenever the unit cost or weight
+     * of any component changes.
+     *
+     * @return the current rollup epoch
+     */
+    static long rollupEpoch() {
+        return rollupEpoch.get();
     }
 
     /**
@@ -117,6 +313,16 @@ public class BasicComponent implements Component {
     @Override
     public void printDetail() {
         System.out.printf("Basic Component: %-20s | Type: %-14s | Unit Cost: %8.1f | Unit Weight: %6.2f | Stock: %6.1f%n",
-                name, type, unitCost, unitWeight, stockQuantity);
+                name, type, unitCost, unitWeight, getStockQuantity());
+    }
+
+    /**
+     * Writes the details of the basic component to a report.
+     *
+     * @param sink the {@link ReportSink} receiving the details
+     */
+    @Override
+    public void printDetail(ReportSink sink) {
+        sink.component(name, type, unitCost, unitWeight, getStockQuantity());
     }
 }
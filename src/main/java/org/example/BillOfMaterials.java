@@ -0,0 +1,386 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A multi-level bill of materials over a set of products and all their nested sub-assemblies.
+ * <p>
+ * A {@link Product} may require other products as sub-assemblies. This class collects every product
+ * reachable from the given ones, checks that no product requires itself through its sub-assemblies
+ * and orders the products topologically by level: level 0 products only require basic components,
+ * and every other product is on the level after the highest of its sub-assemblies. Sub-assemblies
+ * are therefore always listed, and built, before the products that use them.
+ * </p>
+ * <p>
+ * {@link #explode(Product)} resolves a product into the total quantity of each basic component one
+ * unit needs through all its levels. Explosions are memoized and computed children first, so each
+ * product of a deep or shared bill of materials is exploded once. All traversals use explicit
+ * stacks, so bills of materials thousands of levels deep do not overflow the call stack.
+ * </p>
+ */
+public class BillOfMaterials {
+
+    /**
+     * The basic components and quantities one unit of a product needs through all its levels.
+     */
+    public static final class Explosion {
+        private final BasicComponent[] components;
+        private final double[] quantities;
+        private final int[] slots; // leaf slots of the components, so parents merge without lookups
+
+        private Explosion(BasicComponent[] components, double[] quantities, int[] slots) {
+            this.components = components;
+            this.quantities = quantities;
+            this.slots = slots;
+        }
+
+        /**
+         * Returns the number of distinct basic components needed.
+         *
+         * @return the number of entries of the explosion
+         */
+        public int size() {
+            return components.length;
+        }
+
+        /**
+         * Returns the basic component at the given position.
+         *
+         * @param index the position in the explosion
+         * @return the {@link BasicComponent}
+         */
+        public BasicComponent getComponent(int index) {
+            return components[index];
+        }
+
+        /**
+         * Returns the total quantity of the component at the given position needed for one unit.
+         *
+         * @param index the position in the explosion
+         * @return the quantity per unit of the exploded product
+         */
+        public double getQuantity(int index) {
+            return quantities[index];
+        }
+    }
+
+    private final List<Product> products;
+    private final Map<Product, Integer> indexes = new IdentityHashMap<>();
+    private final int[] levels;
+    private final int[][] children;          // sub-assemblies of each product, as indexes
+    private final double[][] childQuantities;
+    private final Map<BasicComponent, Integer> leafSlots = new IdentityHashMap<>();
+    private final Explosion[] explosions;     // memoized explosions, indexed like products
+
+    /**
+     * Builds the bill of materials of the given products and all their sub-assemblies.
+     *
+     * @param roots the products to include, in their preferred build order
+     * @throws IllegalArgumentException if a product requires itself through its sub-assemblies
+     */
+    public BillOfMaterials(Collection<Product> roots) {
+        // Collect all reachable products in first-seen order.
+        List<Product> found = new ArrayList<>();
+        for (Product root : roots) {
+            if (indexes.putIfAbsent(root, found.size()) == null) {
+                found.add(root);
+            }
+        }
+        for (int i = 0; i < found.size(); i++) {
+            Product product = found.get(i);
+            for (int j = 0; j < product.getRequirementCount(); j++) {
+                Component component = product.getRequiredComponent(j);
+                if (component instanceof Product) {
+                    if (indexes.putIfAbsent((Product) component, found.size()) == null) {
+                        found.add((Product) component);
+                    }
+                } else if (component instanceof BasicComponent) {
+                    leafSlots.putIfAbsent((BasicComponent) component, leafSlots.size());
+                }
+            }
+        }
+        int n = found.size();
+        int[][] foundChildren = new int[n][];
+        double[][] foundQuantities = new double[n][];
+        for (int i = 0; i < n; i++) {
+            Product product = found.get(i);
+            int count = 0;
+            for (int j = 0; j < product.getRequirementCount(); j++) {
+                count += product.getRequiredComponent(j) instanceof Product ? 1 : 0;
+            }
+            foundChildren[i] = new int[count];
+            foundQuantities[i] = new double[count];
+            for (int j = 0, k = 0; j < product.getRequirementCount(); j++) {
+                if (product.getRequiredComponent(j) instanceof Product) {
+                    foundChildren[i][k] = indexes.get((Product) product.getRequiredComponent(j));
+                    foundQuantities[i][k++] = product.getRequiredQuantity(j);
+                }
+            }
+        }
+
+        // Levels in topological order, then a stable sort by level.
+        int[] foundLevels = new int[n];
+        for (int node : topologicalOrder(foundChildren, i -> found.get(i).getName())) {
+            for (int child : foundChildren[node]) {
+                foundLevels[node] = Math.max(foundLevels[node], foundLevels[child] + 1);
+            }
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> foundLevels[a] != foundLevels[b]
+                ? Integer.compare(foundLevels[a], foundLevels[b]) : Integer.compare(a, b));
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[order[i]] = i;
+        }
+
+        List<Product> sorted = new ArrayList<>(n);
+        this.levels = new int[n];
+        this.children = new int[n][];
+        this.childQuantities = new double[n][];
+        for (int i = 0; i < n; i++) {
+            int source = order[i];
+            sorted.add(found.get(source));
+            indexes.put(found.get(source), i);
+            levels[i] = foundLevels[source];
+            children[i] = new int[foundChildren[source].length];
+            for (int k = 0; k < children[i].length; k++) {
+                children[i][k] = position[foundChildren[source][k]];
+            }
+            childQuantities[i] = foundQuantities[source];
+        }
+        this.products = Collections.unmodifiableList(sorted);
+        this.explosions = new Explosion[n];
+    }
+
+    /**
+     * Orders the nodes of a directed graph so that every node comes after all nodes it points to.
+     * <p>
+     * The graph is traversed depth first with an explicit stack, so long chains are supported.
+     * </p>
+     *
+     * @param edges the nodes each node points to, indexed by node
+     * @param names the name of each node, used to describe a cycle
+     * @return the nodes in topological order, children first
+     * @throws IllegalArgumentException if the graph contains a cycle
+     */
+    static int[] topologicalOrder(int[][] edges, IntFunction<String> names) {
+        int n = edges.length;
+        byte[] state = new byte[n]; // 0 unvisited, 1 on the stack, 2 done
+        int[] stack = new int[n];
+        int[] next = new int[n];    // next edge to follow of each node on the stack
+        int[] order = new int[n];
+        int count = 0;
+        for (int root = 0; root < n; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[depth++] = root;
+            state[root] = 1;
+            next[root] = 0;
+            while (depth > 0) {
+                int node = stack[depth - 1];
+                if (next[node] < edges[node].length) {
+                    int child = edges[node][next[node]++];
+                    if (state[child] == 1) {
+                        throw new IllegalArgumentException("Cycle in bill of materials: " + cycle(stack, depth, child, names));
+                    }
+                    if (state[child] == 0) {
+                        state[child] = 1;
+                        next[child] = 0;
+                        stack[depth++] = child;
+                    }
+                } else {
+                    state[node] = 2;
+                    order[count++] = node;
+                    depth--;
+                }
+            }
+        }
+        return order;
+    }
+
+    // Describes the cycle closed by an edge to a node on the stack.
+    private static String cycle(int[] stack, int depth, int closing, IntFunction<String> names) {
+        StringBuilder path = new StringBuilder();
+        int from = depth - 1;
+        while (stack[from] != closing) {
+            from--;
+        }
+        for (int i = from; i < depth; i++) {
+            path.append(names.apply(stack[i])).append(" -> ");
+        }
+        return path.append(names.apply(closing)).toString();
+    }
+
+    /**
+     * Returns all products of the bill of materials, sub-assemblies before the products using them.
+     * <p>
+     * Products are ordered by level, and products of the same level keep the order in which they were
+     * given or first found.
+     * </p>
+     *
+     * @return the products in topological order
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Returns the level of a product: 0 if it only requires basic components, otherwise one more than
+     * the highest level of its sub-assemblies.
+     *
+     * @param product a product of this bill of materials
+     * @return the level of the product
+     */
+    public int getLevel(Product product) {
+        return levels[indexOf(product)];
+    }
+
+    /**
+     * Returns the highest level of all products.
+     *
+     * @return the number of levels minus one, or -1 if there are no products
+     */
+    public int getDepth() {
+        return levels.length == 0 ? -1 : levels[levels.length - 1];
+    }
+
+    /**
+     * Checks whether any product requires a sub-assembly.
+     *
+     * @return {@code true} if the bill of materials has more than one level
+     */
+    public boolean isMultiLevel() {
+        return getDepth() > 0;
+    }
+
+    /**
+     * Computes the units to build of every product, including the sub-assemblies the requested
+     * units of their parents consume.
+     * <p>
+     * The dependent demand is propagated from the highest level down, so each product adds its
+     * total units times the required quantity to each of its sub-assemblies. Fractional sub-assembly
+     * demand is rounded up to whole units.
+     * </p>
+     *
+     * @param requested the products with requested units
+     * @param units     the requested units, indexed like {@code requested}
+     * @return the units to build, indexed like {@link #getProducts()}
+     */
+    public int[] grossUnits(List<Product> requested, int[] units) {
+        int n = products.size();
+        int[] gross = new int[n];
+        double[] dependent = new double[n];
+        for (int i = 0; i < requested.size(); i++) {
+            gross[indexOf(requested.get(i))] += units[i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            gross[i] += (int) Math.ceil(dependent[i] - 1e-9);
+            for (int k = 0; k < children[i].length; k++) {
+                dependent[children[i][k]] += gross[i] * childQuantities[i][k];
+            }
+        }
+        return gross;
+    }
+
+    /**
+     * Resolves one unit of a product into the total quantity of each basic component it needs.
+     * <p>
+     * The explosions of the sub-assemblies are computed first and memoized, so later explosions of
+     * products sharing them only merge their results.
+     * </p>
+     *
+     * @param product a product of this bill of materials
+     * @return the {@link Explosion} of one unit of the product
+     */
+    public Explosion explode(Product product) {
+        int root = indexOf(product);
+        if (explosions[root] != null) {
+            return explosions[root];
+        }
+        double[] accumulated = new double[leafSlots.size()];
+        int[] touched = new int[leafSlots.size()];
+        BasicComponent[] leaves = new BasicComponent[leafSlots.size()];
+
+        // Explode the sub-assemblies that are not memoized yet, children first.
+        int[] stack = new int[products.size()];
+        int[] next = new int[products.size()];
+        int depth = 0;
+        stack[depth++] = root;
+        while (depth > 0) {
+            int node = stack[depth - 1];
+            if (next[node] < children[node].length) {
+                int child = children[node][next[node]++];
+                if (explosions[child] == null) {
+                    stack[depth++] = child;
+                }
+            } else {
+                depth--;
+                if (explosions[node] == null) {
+                    explosions[node] = explodeOne(node, accumulated, touched, leaves);
+                }
+            }
+        }
+        return explosions[root];
+    }
+
+    // Merges the basic components of a product with the memoized explosions of its sub-assemblies.
+    private Explosion explodeOne(int node, double[] accumulated, int[] touched, BasicComponent[] leaves) {
+        Product product = products.get(node);
+        int count = 0;
+        for (int j = 0; j < product.getRequirementCount(); j++) {
+            Component component = product.getRequiredComponent(j);
+            double quantity = product.getRequiredQuantity(j);
+            if (component instanceof BasicComponent) {
+                count = add((BasicComponent) component, leafSlots.get(component), quantity,
+                        accumulated, touched, leaves, count);
+            } else if (component instanceof Product) {
+                Explosion child = explosions[indexOf((Product) component)];
+                for (int k = 0; k < child.size(); k++) {
+                    count = add(child.components[k], child.slots[k], quantity * child.quantities[k],
+                            accumulated, touched, leaves, count);
+                }
+            }
+        }
+        BasicComponent[] components = new BasicComponent[count];
+        double[] quantities = new double[count];
+        int[] slots = Arrays.copyOf(touched, count);
+        for (int i = 0; i < count; i++) {
+            components[i] = leaves[touched[i]];
+            quantities[i] = accumulated[touched[i]];
+            accumulated[touched[i]] = 0;
+            leaves[touched[i]] = null;
+        }
+        return new Explosion(components, quantities, slots);
+    }
+
+    // Adds a quantity of a basic component to the explosion being built.
+    private static int add(BasicComponent component, int slot, double quantity, double[] accumulated,
+                           int[] touched, BasicComponent[] leaves, int count) {
+        if (leaves[slot] == null) {
+            touched[count++] = slot;
+            leaves[slot] = component;
+        }
+        accumulated[slot] += quantity;
+        return count;
+    }
+
+    private int indexOf(Product product) {
+        Integer index = indexes.get(product);
+        if (index == null) {
+            throw new IllegalArgumentException("Product not in the bill of materials: " + product.getName());
+        }
+        return index;
+    }
+}
@@ -0,0 +1,315 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Base class of the {@link ReportSink} implementations, formatting records into memory and
+ * writing them to a channel on a background thread.
+ * <p>
+ * Subclasses format each record with the append methods of this class, which pad and round numbers
+ * like {@link java.util.Formatter} without parsing a format string. Completed lines collect in a
+ * character buffer; when it is full it is encoded into one of a few large byte buffers, which the
+ * writer thread writes to the channel with a single call and then recycles. The formatting thread
+ * only waits for the writer when all byte buffers are in flight, which bounds the memory used by a
+ * slow output.
+ * </p>
+ */
+abstract class BufferedReportSink implements ReportSink {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFERS = 4;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final long[] POWERS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    /** The line separator used by {@link java.io.PrintStream#println()}. */
+    protected static final String NEWLINE = System.lineSeparator();
+
+    private final StringBuilder pending = new StringBuilder(BUFFER_SIZE);
+    private final CharsetEncoder encoder;
+    private final WritableByteChannel channel;
+    private final boolean ownsChannel;
+    private final Locale locale;
+    private final char decimalSeparator;
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final Thread writer;
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Constructs a sink writing to the given channel.
+     *
+     * @param channel     the output channel
+     * @param charset     the character encoding of the output
+     * @param locale      the locale of the decimal separator of formatted numbers
+     * @param ownsChannel whether {@link #close()} closes the channel
+     */
+    protected BufferedReportSink(WritableByteChannel channel, Charset charset, Locale locale,
+                                 boolean ownsChannel) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.locale = locale;
+        this.decimalSeparator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        for (int i = 0; i < BUFFERS; i++) {
+            free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        this.writer = new Thread(this::write, "report-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends text to the current line.
+     *
+     * @param text the text
+     * @return this sink
+     */
+    protected final BufferedReportSink append(String text) {
+        pending.append(text);
+        return this;
+    }
+
+    /**
+     * Appends a character to the current line.
+     *
+     * @param c the character
+     * @return this sink
+     */
+    protected final BufferedReportSink append(char c) {
+        pending.append(c);
+        return this;
+    }
+
+    /**
+     * Appends a number to the current line in its shortest exact form, like {@link Double#toString(double)}.
+     *
+     * @param value the number
+     * @return this sink
+     */
+    protected final BufferedReportSink append(double value) {
+        pending.append(value);
+        return this;
+    }
+
+    /**
+     * Appends text left-justified in a field of the given width, like {@code %-Ns}.
+     *
+     * @param text  the text
+     * @param width the minimum width
+     * @return this sink
+     */
+    protected final BufferedReportSink appendPadded(String text, int width) {
+        pending.append(text);
+        for (int i = text.length(); i < width; i++) {
+            pending.append(' ');
+        }
+        return this;
+    }
+
+    /**
+     * Appends an integer right-justified in a field of the given width, like {@code %Nd}.
+     *
+     * @param value the integer
+     * @param width the minimum width
+     * @return this sink
+     */
+    protected final BufferedReportSink appendNumber(long value, int width) {
+        int length = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value / 10); rest > 0; rest /= 10) {
+            length++;
+        }
+        for (int i = length; i < width; i++) {
+            pending.append(' ');
+        }
+        pending.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a number rounded half up to the given decimals and right-justified in a field of the
+     * given width, like {@code %N.Df}.
+     *
+     * @param value    the number
+     * @param decimals the number of decimals, at most 6
+     * @param width    the minimum width
+     * @return this sink
+     */
+    protected final BufferedReportSink appendFixed(double value, int decimals, int width) {
+        double scaled = Math.abs(value) * POWERS[decimals];
+        // Below 1e9 the product is exact to well within the tie window, larger values and ties that
+        // may be off by the binary representation are left to the Formatter, which rounds the
+        // exact decimal value.
+        if (!(scaled < 1e9) || Math.abs(scaled - Math.floor(scaled) - 0.5) < 1e-6) {
+            String formatted = String.format(locale, "%." + decimals + "f", value);
+            for (int i = formatted.length(); i < width; i++) {
+                pending.append(' ');
+            }
+            pending.append(formatted);
+            return this;
+        }
+        long units = Math.round(scaled);
+        long whole = units / POWERS[decimals];
+        boolean negative = Double.compare(value, 0.0) < 0;
+        int length = (negative ? 2 : 1) + (decimals > 0 ? decimals + 1 : 0);
+        for (long rest = whole / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        for (int i = length; i < width; i++) {
+            pending.append(' ');
+        }
+        if (negative) {
+            pending.append('-');
+        }
+        pending.append(whole);
+        if (decimals > 0) {
+            pending.append(decimalSeparator);
+            long fraction = units % POWERS[decimals];
+            for (int d = decimals - 1; d >= 0; d--) {
+                pending.append((char) ('0' + fraction / POWERS[d] % 10));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current line, handing the buffered lines to the writer thread when the buffer is full.
+     */
+    protected final void endLine() {
+        pending.append(NEWLINE);
+        if (pending.length() >= BUFFER_SIZE / 2) {
+            drain(false);
+        }
+    }
+
+    /**
+     * Flushes the sink and waits until the writer thread wrote all buffered records.
+     */
+    @Override
+    public void flush() {
+        drain(false);
+        // Every buffer is back in the free queue once the writer is done with it.
+        ByteBuffer[] buffers = new ByteBuffer[BUFFERS];
+        for (int i = 0; i < BUFFERS; i++) {
+            buffers[i] = take(free);
+        }
+        for (ByteBuffer buffer : buffers) {
+            free.add(buffer);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Flushes the sink, stops the writer thread and closes the channel if the sink owns it.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            drain(true);
+            flush();
+        } finally {
+            put(END);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (ownsChannel) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    // Encodes the pending characters into free buffers and queues them for the writer. Unless this
+    // is the end of the input, a high surrogate at the end is kept pending until its low surrogate
+    // is appended, as the encoder leaves it unconsumed.
+    private void drain(boolean endOfInput) {
+        if (pending.length() == 0 && !endOfInput) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(pending);
+        CoderResult result;
+        do {
+            ByteBuffer buffer = take(free);
+            result = encoder.encode(chars, buffer, endOfInput);
+            buffer.flip();
+            put(buffer);
+        } while (result.isOverflow());
+        pending.delete(0, chars.position());
+        if (endOfInput) {
+            do {
+                ByteBuffer buffer = take(free);
+                result = encoder.flush(buffer);
+                buffer.flip();
+                put(buffer);
+            } while (result.isOverflow());
+        }
+    }
+
+    // Writes the queued buffers until the end marker arrives.
+    private void write() {
+        try {
+            for (ByteBuffer buffer = full.take(); buffer != END; buffer = full.take()) {
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+                buffer.clear();
+                free.add(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            failure = null;
+            throw new UncheckedIOException("Cannot write report", e);
+        }
+    }
+
+    private static ByteBuffer take(BlockingQueue<ByteBuffer> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the report", e);
+        }
+    }
+
+    private void put(ByteBuffer buffer) {
+        try {
+            full.put(buffer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the report", e);
+        }
+    }
+}
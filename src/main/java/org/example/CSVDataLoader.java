@@ -1,7 +1,10 @@
 package org.example;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * A service class that loads component and product data from CSV files.
@@ -52,4 +55,34 @@ public class CSVDataLoader {
     public List<Product> loadProducts(Map<String, Component> lookup) {
         return CSVLoader.loadProducts(productsFile, lookup);
     }
+
+    /**
+     * Loads components and products from a binary {@link CatalogSnapshot} of both CSV files.
+     * <p>
+     * The snapshot is regenerated from the CSV files when either of them changed since it was written.
+     * </p>
+     *
+     * @param snapshotFile the snapshot file, created with its folder when missing
+     * @return the loaded {@link CatalogSnapshot}
+     */
+    public CatalogSnapshot loadCatalog(Path snapshotFile) {
+        return CatalogSnapshot.load(snapshotFile, CSVLoader.resource(componentsFile), CSVLoader.resource(productsFile));
+    }
+
+    /**
+     * Returns the default location of the catalog snapshot of the CSV files.
+     * <p>
+     * The snapshot is kept in the temporary directory, so the source tree is never written to,
+     * under a name derived from the absolute paths of the CSV files, so different catalogs do not
+     * share a snapshot.
+     * </p>
+     *
+     * @return the snapshot file in the temporary directory
+     */
+    public Path defaultSnapshotFile() {
+        int sources = Objects.hash(CSVLoader.resource(componentsFile).toAbsolutePath().normalize(),
+                CSVLoader.resource(productsFile).toAbsolutePath().normalize());
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+                "manufacturing-catalog-" + Integer.toHexString(sources) + ".bin");
+    }
 }
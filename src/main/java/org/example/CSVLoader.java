@@ -1,42 +1,57 @@
 package org.example;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * CSVLoader provides static methods to load components and products from CSV files.
+ * <p>
+ * Files are streamed through a {@link MappedCSVReader}, which tokenizes the memory-mapped
+ * bytes and parses numbers, including comma decimals and unit suffixes, without intermediate strings.
+ * </p>
  */
 public class CSVLoader {
+    private static final String RESOURCES = "src/main/resources/";
+    private static final char DELIMITER = ';';
+
+    // Resolves a file name relative to the resources folder.
+    static Path resource(String filename) {
+        return Paths.get(RESOURCES + filename);
+    }
 
     // Loads components from a CSV file located in the resources folder.
     public static List<BasicComponent> loadComponents(String filename) {
+        return loadComponents(resource(filename));
+    }
+
+    // Loads components from a CSV file at the given path.
+    public static List<BasicComponent> loadComponents(Path file) {
         List<BasicComponent> components = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader("src/main/resources/" + filename))) {
-            String line;
-            boolean header = true;
-            while ((line = br.readLine()) != null) {
-                if (header) {
-                    header = false;
-                    continue;
+        try {
+            boolean[] header = {true};
+            MappedCSVReader.read(file, DELIMITER, row -> {
+                if (header[0]) {
+                    header[0] = false;
+                    return;
                 }
-                // Split using semicolon delimiter.
-                String[] tokens = line.split(";");
-                if (tokens.length < 5) continue;
+                if (row.size() < 5) return;
 
-                String name = tokens[0].trim();
-                double unitCost = parseDouble(tokens[1].trim());
-                double unitWeight = parseDouble(tokens[2].trim());
-                String type = tokens[3].trim();
-                // Remove non numeric characters from stock quantity string.
-                double stockQuantity = parseDouble(tokens[4].replaceAll("[^0-9,\\.]", "").trim());
+                String name = row.text(0);
+                double unitCost = row.number(1);
+                double unitWeight = row.number(2);
+                String type = row.text(3);
+                // Unit suffixes of the stock quantity are skipped by the number parser.
+                double stockQuantity = row.number(4);
 
-                components.add(new BasicComponent(name, unitCost, unitWeight, type, stockQuantity));
-            }
+                // Components get dense ids in file order.
+                components.add(new BasicComponent(components.size(), name, unitCost, unitWeight, type, stockQuantity));
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -45,39 +60,35 @@ public class CSVLoader {
 
     // Loads products from a CSV file located in the resources folder.
     public static List<Product> loadProducts(String filename, Map<String, Component> componentLookup) {
-        List<Product> products = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader("src/main/resources/" + filename))) {
-            String line;
-            String headerLine = br.readLine();
-            if (headerLine == null) return products;
-            // Split header to get component names.
-            String[] headers = headerLine.split(";");
-            // The first column is product name, the last is quantity.
-            List<String> componentNames = new ArrayList<>();
-            for (int i = 1; i < headers.length - 1; i++) {
-                componentNames.add(headers[i].trim());
-            }
+        return loadProducts(resource(filename), componentLookup);
+    }
 
-            while ((line = br.readLine()) != null) {
-                String[] tokens = line.split(";");
-                if (tokens.length < 2) continue;
-                String productName = tokens[0].trim();
-                Map<Component, Double> requirements = new HashMap<>();
-                // For each component column, parse the required quantity.
-                for (int i = 1; i < tokens.length - 1; i++) {
-                    String value = tokens[i].trim();
-                    // Some CSV values might use a comma as the decimal separator.
-                    double reqQuantity = parseDouble(value);
-                    // Only add if the required quantity is greater than zero.
-                    if (reqQuantity > 0) {
-                        String compName = componentNames.get(i - 1);
-                        Component comp = componentLookup.get(compName);
-                        requirements.put(comp, reqQuantity);
-                    }
+    // Loads products from a CSV file at the given path.
+    // The header is resolved to components once, then the rows are parsed in
+    // line-aligned chunks in parallel and assembled in their original order.
+    // A column naming another product of the file makes it a sub-assembly.
+    public static List<Product> loadProducts(Path file, Map<String, Component> componentLookup) {
+        List<Product> products = new ArrayList<>();
+        try {
+            // Components of each column, resolved once from the header, null if unknown.
+            List<String> names = new ArrayList<>();
+            List<Component> columns = new ArrayList<>();
+            long firstRow = MappedCSVReader.readHeader(file, DELIMITER, row -> {
+                // The first column is product name, the last is quantity.
+                for (int i = 1; i < row.size() - 1; i++) {
+                    names.add(row.text(i));
+                    columns.add(componentLookup.get(row.text(i)));
                 }
-                // Last column is the manufacturing quantity.
-                int quantity = (int) parseDouble(tokens[tokens.length - 1].trim());
-                products.add(new Product(productName, requirements, quantity));
+            });
+            boolean resolved = !columns.contains(null);
+            List<ProductChunk> chunks = MappedCSVReader.readParallel(file, firstRow, DELIMITER,
+                    () -> new ProductChunk(columns.size(), resolved), (chunk, row) -> chunk.parse(row, columns));
+            if (resolved) {
+                chunks.forEach(chunk -> products.addAll(chunk.products));
+            } else {
+                List<ProductRow> rows = new ArrayList<>();
+                chunks.forEach(chunk -> rows.addAll(chunk.rows));
+                products.addAll(assemble(rows, names, columns));
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -85,16 +96,106 @@ public class CSVLoader {
         return products;
     }
 
-    // Helper method to parse a String into a double.
-    // Replaces a comma with a dot to handle European decimal notation.
-    private static double parseDouble(String value) {
-        if (value == null || value.isEmpty()) return 0.0;
-        // Replace comma with dot.
-        value = value.replace(",", ".");
-        try {
-            return Double.parseDouble(value);
-        } catch (NumberFormatException e) {
-            return 0.0;
+    // Builds products whose unknown columns may name other products, sub-assemblies first.
+    private static List<Product> assemble(List<ProductRow> rows, List<String> names, List<Component> columns) {
+        Map<String, Integer> productIndex = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            productIndex.putIfAbsent(rows.get(i).name, i);
+        }
+        // Unknown columns name a product of the file, or a component that can never be in stock.
+        Component[] resolved = new Component[columns.size()];
+        int[] subAssembly = new int[columns.size()];
+        for (int c = 0; c < resolved.length; c++) {
+            Integer product = columns.get(c) == null ? productIndex.get(names.get(c)) : null;
+            subAssembly[c] = product != null ? product : -1;
+            if (columns.get(c) != null) {
+                resolved[c] = columns.get(c);
+            } else if (product == null) {
+                resolved[c] = new BasicComponent(names.get(c), 0, 0, "Unknown", 0);
+            }
+        }
+        int[][] edges = new int[rows.size()][];
+        for (int i = 0; i < edges.length; i++) {
+            int[] row = rows.get(i).columns;
+            int count = 0;
+            for (int column : row) {
+                count += subAssembly[column] >= 0 ? 1 : 0;
+            }
+            edges[i] = new int[count];
+            for (int column : row) {
+                if (subAssembly[column] >= 0) {
+                    edges[i][--count] = subAssembly[column];
+                }
+            }
+        }
+        Product[] built = new Product[rows.size()];
+        for (int i : BillOfMaterials.topologicalOrder(edges, i -> rows.get(i).name)) {
+            ProductRow row = rows.get(i);
+            Component[] components = new Component[row.columns.length];
+            for (int j = 0; j < components.length; j++) {
+                int column = row.columns[j];
+                components[j] = subAssembly[column] >= 0 ? built[subAssembly[column]] : resolved[column];
+            }
+            built[i] = new Product(row.name, components, row.quantities, row.quantity);
+        }
+        return Arrays.asList(built);
+    }
+
+    // A parsed product row whose columns are not resolved yet.
+    private static class ProductRow {
+        private final String name;
+        private final int[] columns;
+        private final double[] quantities;
+        private final int quantity;
+
+        private ProductRow(String name, int[] columns, double[] quantities, int quantity) {
+            this.name = name;
+            this.columns = columns;
+            this.quantities = quantities;
+            this.quantity = quantity;
+        }
+    }
+
+    // Products parsed from one chunk, with scratch arrays for the sparse bill of materials.
+    private static class ProductChunk {
+        private final List<Product> products = new ArrayList<>();
+        private final List<ProductRow> rows = new ArrayList<>();
+        private final boolean resolved;
+        private final Component[] components;
+        private final int[] columns;
+        private final double[] quantities;
+
+        private ProductChunk(int columnCount, boolean resolved) {
+            this.resolved = resolved;
+            components = new Component[columnCount];
+            columns = new int[columnCount];
+            quantities = new double[columnCount];
+        }
+
+        // Parses a product row using the components resolved from the header.
+        private void parse(MappedCSVReader.Row row, List<Component> header) {
+            if (row.size() < 2) return;
+            String productName = row.text(0);
+            int count = 0;
+            // For each component column, parse the required quantity.
+            for (int i = 1; i < row.size() - 1 && i <= header.size(); i++) {
+                double reqQuantity = row.number(i);
+                // Only add if the required quantity is greater than zero.
+                if (reqQuantity > 0) {
+                    components[count] = header.get(i - 1);
+                    columns[count] = i - 1;
+                    quantities[count++] = reqQuantity;
+                }
+            }
+            // Last column is the manufacturing quantity.
+            int quantity = (int) row.number(row.size() - 1);
+            if (resolved) {
+                products.add(new Product(productName, Arrays.copyOf(components, count),
+                        Arrays.copyOf(quantities, count), quantity));
+            } else {
+                rows.add(new ProductRow(productName, Arrays.copyOf(columns, count),
+                        Arrays.copyOf(quantities, count), quantity));
+            }
         }
     }
 }
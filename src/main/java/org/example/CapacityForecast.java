@@ -0,0 +1,193 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The distribution of the results of the simulated manufacturing runs of a {@link CapacityPlanner}.
+ * <p>
+ * For every product the number of completed units is kept as a histogram over the trials, so the
+ * mean and any percentile are exact while the memory only depends on the requested units. The
+ * total output, cost and failures are kept per trial. Percentiles use the nearest rank method:
+ * the 95th percentile is a value that at least 95% of the trials did not exceed.
+ * </p>
+ */
+public class CapacityForecast {
+    private final List<Product> products;
+    private final int[] requested;
+    private final int[] offsets;   // start of the histogram of each product
+    private final long[] histogram;
+    private final long[] output;   // sorted
+    private final double[] cost;   // sorted
+    private final long[][] failures; // sorted, by failure type
+    private final int trials;
+
+    /**
+     * Constructs a forecast from the results of the trials.
+     *
+     * @param products  the simulated products
+     * @param requested the units built of each product in every trial
+     * @param offsets   the start of the histogram of each product, and the end of the last one
+     * @param histogram the number of trials per number of completed units of each product
+     * @param output    the completed units of each trial, sorted in place
+     * @param cost      the cost of the completed units of each trial, sorted in place
+     * @param failures  the failed units of each trial by failure type, sorted in place
+     */
+    CapacityForecast(List<Product> products, int[] requested, int[] offsets, long[] histogram,
+                     long[] output, double[] cost, long[][] failures) {
+        this.products = Collections.unmodifiableList(products);
+        this.requested = requested;
+        this.offsets = offsets;
+        this.histogram = histogram;
+        this.output = output;
+        this.cost = cost;
+        this.failures = failures;
+        this.trials = output.length;
+        Arrays.sort(output);
+        Arrays.sort(cost);
+        for (long[] counts : failures) {
+            Arrays.sort(counts);
+        }
+    }
+
+    /**
+     * Returns the simulated products, including the sub-assemblies built for the requested products.
+     *
+     * @return the products, in build order
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Returns the number of simulated runs.
+     *
+     * @return the number of trials
+     */
+    public int getTrials() {
+        return trials;
+    }
+
+    /**
+     * Returns the units of a product that every trial tried to build.
+     *
+     * @param index the index of the product in {@link #getProducts()}
+     * @return the requested units, with the units consumed by other products for sub-assemblies
+     */
+    public int getRequestedUnits(int index) {
+        return requested[index];
+    }
+
+    /**
+     * Returns the mean number of completed units of a product.
+     *
+     * @param index the index of the product in {@link #getProducts()}
+     * @return the mean completed units over all trials
+     */
+    public double getMeanUnits(int index) {
+        double sum = 0;
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            sum += (double) (i - offsets[index]) * histogram[i];
+        }
+        return sum / trials;
+    }
+
+    /**
+     * Returns a percentile of the completed units of a product.
+     *
+     * @param index      the index of the product in {@link #getProducts()}
+     * @param percentile the percentile, between 0 and 100
+     * @return the completed units that the given share of trials did not exceed
+     */
+    public int getUnitsPercentile(int index, double percentile) {
+        long rank = rank(percentile);
+        long seen = 0;
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            seen += histogram[i];
+            if (seen > rank) {
+                return i - offsets[index];
+            }
+        }
+        return offsets[index + 1] - offsets[index] - 1;
+    }
+
+    /**
+     * Returns the mean number of completed units of all products.
+     *
+     * @return the mean output over all trials
+     */
+    public double getMeanOutput() {
+        double sum = 0;
+        for (long units : output) {
+            sum += units;
+        }
+        return sum / trials;
+    }
+
+    /**
+     * Returns a percentile of the completed units of all products.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the output that the given share of trials did not exceed
+     */
+    public long getOutputPercentile(double percentile) {
+        return output[(int) rank(percentile)];
+    }
+
+    /**
+     * Returns the mean total cost of the completed units.
+     *
+     * @return the mean cost over all trials
+     */
+    public double getMeanCost() {
+        double sum = 0;
+        for (double value : cost) {
+            sum += value;
+        }
+        return sum / trials;
+    }
+
+    /**
+     * Returns a percentile of the total cost of the completed units.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the cost that the given share of trials did not exceed
+     */
+    public double getCostPercentile(double percentile) {
+        return cost[(int) rank(percentile)];
+    }
+
+    /**
+     * Returns the mean number of units that failed for a reason.
+     *
+     * @param type the failure type
+     * @return the mean failed units over all trials
+     */
+    public double getMeanFailures(FailureType type) {
+        double sum = 0;
+        for (long count : failures[type.ordinal()]) {
+            sum += count;
+        }
+        return sum / trials;
+    }
+
+    /**
+     * Returns a percentile of the number of units that failed for a reason.
+     *
+     * @param type       the failure type
+     * @param percentile the percentile, between 0 and 100
+     * @return the failed units that the given share of trials did not exceed
+     */
+    public long getFailuresPercentile(FailureType type, double percentile) {
+        return failures[type.ordinal()][(int) rank(percentile)];
+    }
+
+    // Zero based index of the nearest rank of a percentile in the sorted trials.
+    private long rank(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        return Math.max((long) Math.ceil(percentile / 100 * trials) - 1, 0);
+    }
+}
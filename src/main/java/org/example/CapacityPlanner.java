@@ -0,0 +1,346 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates the deliverable units of each product with a Monte Carlo simulation of many
+ * independent manufacturing runs.
+ * <p>
+ * A single run of {@link ManufacturingService#manufacture(List)} gives one random sample of the
+ * output. This planner copies the current stock into a compact model once and replays thousands of
+ * runs of a {@link RoundRobinScheduler} with the same batch size on private copies of it, products
+ * with sub-assemblies level by level like the service. The live {@link Inventory} is never changed,
+ * so a forecast can be made before manufacturing, or from a {@link StockView} of a scenario.
+ * </p>
+ * <p>
+ * Trials are spread over a {@link ForkJoinPool} of worker threads. Each worker allocates its stock,
+ * counters and histogram buffers once and reuses them for all its trials, so memory stays at a few
+ * arrays the size of the catalog per worker no matter how many trials run. With a seeded
+ * {@link Simulation}, trial {@code t} draws its outcomes like a manufacturing run with the seed
+ * increased by {@code t}, so forecasts are reproducible for any parallelism and trial 0 matches a
+ * seeded run of the service.
+ * </p>
+ * <p>
+ * Basic components are kept in their exact stock units and sub-assemblies in built units, and
+ * reservations are counted by the same rules as {@link Inventory#reserveUpTo(Product, int)}, so a
+ * trial never builds a unit the inventory would reject.
+ * </p>
+ */
+public class CapacityPlanner {
+    // Number of trials a worker takes at once.
+    private static final int CHUNK = 16;
+    private static final FailureType[] FAILURES = FailureType.values();
+
+    private final Simulation simulation;
+    private final int batchSize;
+    private final int parallelism;
+
+    /**
+     * Constructs a planner simulating a scheduler with the given batch size on the given number of threads.
+     *
+     * @param simulation  the {@link Simulation} drawing the outcome of every unit
+     * @param batchSize   the maximum number of units reserved together, at least 1
+     * @param parallelism the number of worker threads, at least 1
+     */
+    public CapacityPlanner(Simulation simulation, int batchSize, int parallelism) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.simulation = simulation;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Constructs a planner simulating one unit per reservation, using one worker thread per available processor.
+     *
+     * @param simulation the {@link Simulation} drawing the outcome of every unit
+     */
+    public CapacityPlanner(Simulation simulation) {
+        this(simulation, 1, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Forecasts the manufacturing of the quantity of each product.
+     *
+     * @param products the products to manufacture
+     * @param trials   the number of simulated runs, at least 1
+     * @return the {@link CapacityForecast} of the runs
+     */
+    public CapacityForecast forecast(List<Product> products, int trials) {
+        int[] units = new int[products.size()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = (int) products.get(i).getQuantity();
+        }
+        return forecast(products, units, trials);
+    }
+
+    /**
+     * Forecasts the manufacturing of the given number of units of each product from the current stock.
+     *
+     * @param products the products to manufacture
+     * @param units    the number of units to build for each product, indexed like {@code products}
+     * @param trials   the number of simulated runs, at least 1
+     * @return the {@link CapacityForecast} of the runs, covering the sub-assemblies built for the products
+     */
+    public CapacityForecast forecast(List<Product> products, int[] units, int trials) {
+        return forecast(products, units, trials, null);
+    }
+
+    /**
+     * Forecasts the manufacturing of the given number of units of each product from the stock of a
+     * view, for example a fork of a baseline with a scenario applied.
+     *
+     * @param products the products to manufacture
+     * @param units    the number of units to build for each product, indexed like {@code products}
+     * @param trials   the number of simulated runs, at least 1
+     * @param view     the {@link StockView} to start every run from, or {@code null} for the current stock
+     * @return the {@link CapacityForecast} of the runs, covering the sub-assemblies built for the products
+     * @throws IllegalArgumentException if a required component is not covered by the view
+     */
+    public CapacityForecast forecast(List<Product> products, int[] units, int trials, StockView view) {
+        if (units.length != products.size()) {
+            throw new IllegalArgumentException("Expected " + products.size() + " unit counts, got " + units.length);
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException("Trials must be positive: " + trials);
+        }
+        Model model = new Model(products, units, view);
+        long[] output = new long[trials];
+        double[] cost = new double[trials];
+        long[][] failures = new long[FAILURES.length][trials];
+        Worker[] workers = new Worker[parallelism];
+        AtomicInteger next = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, parallelism).parallel().forEach(w -> {
+                Worker worker = new Worker(model);
+                workers[w] = worker;
+                for (int start = next.getAndAdd(CHUNK); start < trials; start = next.getAndAdd(CHUNK)) {
+                    for (int t = start; t < Math.min(start + CHUNK, trials); t++) {
+                        worker.run(t, output, cost, failures);
+                    }
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        long[] histogram = new long[model.offsets[model.size]];
+        for (Worker worker : workers) {
+            if (worker != null) {
+                for (int i = 0; i < histogram.length; i++) {
+                    histogram[i] += worker.histogram[i];
+                }
+            }
+        }
+        return new CapacityForecast(model.products, model.gross, model.offsets, histogram, output, cost, failures);
+    }
+
+    /**
+     * The catalog copied into dense arrays: the products in build order, their requirements as
+     * stock slots and the initial stock of every slot.
+     */
+    private final class Model {
+        private final List<Product> products;
+        private final int size;
+        private final int[] gross;           // units to build, indexed like products
+        private final int[] levelEnds;       // end of the products of each level
+        private final int[][] slots;         // stock slots of the requirements of each product
+        private final long[][] needed;       // stock units of each basic component requirement
+        private final double[][] quantities; // built units of each sub-assembly requirement
+        private final int[] productSlots;    // stock slot of each product, -1 if nothing requires it
+        private final boolean[] assemblies;  // whether a slot holds the built units of a product
+        private final long[] stock;          // stock units of the basic components, indexed by slot
+        private final double[] unitCost;
+        private final double[][] outcomes;   // cumulative probabilities of completing and of a system error
+        private final int[] offsets;         // start of the histogram of each product
+
+        private Model(List<Product> requested, int[] units, StockView view) {
+            BillOfMaterials bom = new BillOfMaterials(requested);
+            if (bom.isMultiLevel()) {
+                products = bom.getProducts();
+                gross = bom.grossUnits(requested, units);
+                levelEnds = new int[bom.getDepth() + 1];
+                for (int i = 0; i < products.size(); i++) {
+                    levelEnds[bom.getLevel(products.get(i))] = i + 1;
+                }
+                for (int level = 1; level < levelEnds.length; level++) {
+                    levelEnds[level] = Math.max(levelEnds[level], levelEnds[level - 1]);
+                }
+            } else {
+                products = requested;
+                gross = units.clone();
+                levelEnds = new int[] {requested.size()};
+            }
+            size = products.size();
+
+            Map<Component, Integer> slotOf = new IdentityHashMap<>();
+            slots = new int[size][];
+            needed = new long[size][];
+            quantities = new double[size][];
+            for (int p = 0; p < size; p++) {
+                Product product = products.get(p);
+                slots[p] = new int[product.getRequirementCount()];
+                needed[p] = new long[product.getRequirementCount()];
+                quantities[p] = new double[product.getRequirementCount()];
+                for (int j = 0; j < slots[p].length; j++) {
+                    slots[p][j] = slotOf.computeIfAbsent(product.getRequiredComponent(j), c -> slotOf.size());
+                    needed[p][j] = product.getRequiredUnits(j);
+                    quantities[p][j] = product.getRequiredQuantity(j);
+                }
+            }
+            stock = new long[slotOf.size()];
+            assemblies = new boolean[slotOf.size()];
+            for (Map.Entry<Component, Integer> entry : slotOf.entrySet()) {
+                // Built products start from zero, like in ManufacturingService
+                if (entry.getKey() instanceof BasicComponent) {
+                    BasicComponent component = (BasicComponent) entry.getKey();
+                    stock[entry.getValue()] = view != null ? view.getStockUnits(component) : component.getStockUnits();
+                } else {
+                    assemblies[entry.getValue()] = true;
+                }
+            }
+
+            productSlots = new int[size];
+            unitCost = new double[size];
+            outcomes = new double[size][];
+            offsets = new int[size + 1];
+            for (int p = 0; p < size; p++) {
+                Product product = products.get(p);
+                productSlots[p] = slotOf.getOrDefault(product, -1);
+                unitCost[p] = product.getTotalCost();
+                outcomes[p] = simulation.cumulativeOutcomes(product);
+                offsets[p + 1] = offsets[p] + Math.max(gross[p], 0) + 1;
+            }
+        }
+    }
+
+    /**
+     * The buffers of one worker thread, reused for every trial it runs.
+     */
+    private final class Worker {
+        private final Model model;
+        private final long[] stock;
+        private final double[] built; // built units of the sub-assemblies, indexed by slot
+        private final int[] remaining;
+        private final int[] completed;
+        private final long[] productSeeds;
+        private final long[] failed = new long[FAILURES.length];
+        private final long[] histogram; // trials per number of completed units of each product
+
+        private Worker(Model model) {
+            this.model = model;
+            this.stock = new long[model.stock.length];
+            this.built = new double[model.stock.length];
+            this.remaining = new int[model.size];
+            this.completed = new int[model.size];
+            this.productSeeds = new long[model.size];
+            this.histogram = new long[model.offsets[model.size]];
+        }
+
+        // Runs one trial on a fresh copy of the stock and stores its results.
+        private void run(int trial, long[] output, double[] cost, long[][] failures) {
+            System.arraycopy(model.stock, 0, stock, 0, stock.length);
+            Arrays.fill(built, 0);
+            Arrays.fill(completed, 0);
+            Arrays.fill(failed, 0);
+            boolean seeded = simulation.isSeeded();
+            if (seeded) {
+                Simulation trialSimulation = simulation.withSeed(simulation.getSeed() + trial);
+                for (int p = 0; p < model.size; p++) {
+                    productSeeds[p] = trialSimulation.productSeed(model.products.get(p));
+                }
+            }
+
+            int from = 0;
+            for (int to : model.levelEnds) {
+                for (int p = from; p < to; p++) {
+                    remaining[p] = model.gross[p];
+                }
+                boolean workLeft;
+                do {
+                    workLeft = false;
+                    for (int p = from; p < to; p++) {
+                        if (remaining[p] > 0) {
+                            int take = Math.min(batchSize, remaining[p]);
+                            int first = model.gross[p] - remaining[p];
+                            build(p, take, first, seeded);
+                            remaining[p] -= take;
+                            workLeft = true;
+                        }
+                    }
+                } while (workLeft);
+                from = to;
+            }
+
+            long units = 0;
+            double value = 0;
+            for (int p = 0; p < model.size; p++) {
+                units += completed[p];
+                value += completed[p] * model.unitCost[p];
+                histogram[model.offsets[p] + completed[p]]++;
+            }
+            output[trial] = units;
+            cost[trial] = value;
+            for (int f = 0; f < failed.length; f++) {
+                failures[f][trial] = failed[f];
+            }
+        }
+
+        // Reserves and resolves consecutive units of a product like ManufacturingProcess#processBatch.
+        private void build(int p, int units, int first, boolean seeded) {
+            int reserved = reserve(p, units);
+            double[] outcome = model.outcomes[p];
+            for (int u = 0; u < reserved; u++) {
+                double uniform = seeded
+                        ? Simulation.unitUniform(productSeeds[p], first + u)
+                        : ThreadLocalRandom.current().nextDouble();
+                if (uniform < outcome[0]) {
+                    completed[p]++;
+                    if (model.productSlots[p] >= 0) {
+                        built[model.productSlots[p]] += 1;
+                    }
+                } else if (uniform < outcome[1]) {
+                    failed[FailureType.SYSTEM_ERROR.ordinal()]++;
+                } else {
+                    failed[FailureType.DAMAGED_COMPONENT.ordinal()]++;
+                }
+            }
+            failed[FailureType.STOCK_SHORTAGE.ordinal()] += units - reserved;
+        }
+
+        // Mirrors Inventory#reserveUpTo on the stock copy.
+        private int reserve(int p, int units) {
+            int[] slots = model.slots[p];
+            long[] needs = model.needed[p];
+            double[] quantities = model.quantities[p];
+            int buildable = units;
+            for (int j = 0; j < slots.length && buildable > 0; j++) {
+                int s = slots[j];
+                buildable = model.assemblies[s]
+                        ? Inventory.fitsAssembly(built[s], quantities[j], buildable)
+                        : Inventory.fitsUnits(stock[s], needs[j], buildable);
+            }
+            for (int j = 0; buildable > 0 && j < slots.length; j++) {
+                int s = slots[j];
+                if (model.assemblies[s]) {
+                    built[s] -= quantities[j] * buildable;
+                } else {
+                    stock[s] -= needs[j] * buildable;
+                }
+            }
+            return buildable;
+        }
+    }
+}
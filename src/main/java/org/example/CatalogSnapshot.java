@@ -0,0 +1,283 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A loaded catalog of components and products, with a compact binary snapshot for fast startup.
+ * <p>
+ * {@link #load(Path, Path, Path)} memory-maps the snapshot and builds the catalog directly from it,
+ * without tokenizing or parsing any text. The snapshot is regenerated from the CSV files when it is
+ * missing, unreadable, of another format version, or when the size or modification time of a CSV
+ * file differs from the one it was built from.
+ * </p>
+ * <p>
+ * Snapshot layout, big-endian: magic and version, the size and modification time of both CSV files,
+ * a table of distinct strings (names and types), the component table (name, type, cost, weight,
+ * stock, registered flag) and the sparse bills of materials of the products as pairs of component
+ * table index and quantity, where a sub-assembly is stored as the negative product index minus one.
+ * Components referenced by products but missing from the components file are kept as unregistered
+ * entries at the end of the component table.
+ * </p>
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x4D435331; // "MCS1"
+    private static final int VERSION = 2;
+
+    private final List<BasicComponent> components;
+    private final List<Product> products;
+
+    private CatalogSnapshot(List<BasicComponent> components, List<Product> products) {
+        this.components = components;
+        this.products = products;
+    }
+
+    /**
+     * Returns the components loaded from the components file, in file order.
+     *
+     * @return the registered {@link BasicComponent} objects
+     */
+    public List<BasicComponent> getComponents() {
+        return components;
+    }
+
+    /**
+     * Returns the products loaded from the products file, in file order.
+     *
+     * @return the {@link Product} objects
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Loads the catalog from the snapshot, regenerating the snapshot from the CSV files when it is stale.
+     *
+     * @param snapshot      the snapshot file
+     * @param componentsCsv the CSV file containing component data
+     * @param productsCsv   the CSV file containing product data
+     * @return the loaded catalog
+     */
+    public static CatalogSnapshot load(Path snapshot, Path componentsCsv, Path productsCsv) {
+        try {
+            long[] sources = sourceStamps(componentsCsv, productsCsv);
+            if (Files.exists(snapshot)) {
+                CatalogSnapshot catalog = read(snapshot, sources);
+                if (catalog != null) {
+                    return catalog;
+                }
+            }
+            CatalogSnapshot catalog = parse(componentsCsv, productsCsv);
+            write(snapshot, sources, catalog);
+            return catalog;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return parse(componentsCsv, productsCsv);
+        }
+    }
+
+    // Parses the catalog from the CSV files.
+    private static CatalogSnapshot parse(Path componentsCsv, Path productsCsv) {
+        List<BasicComponent> components = CSVLoader.loadComponents(componentsCsv);
+        Map<String, Component> lookup = components.stream()
+                .collect(Collectors.toMap(Component::getName, c -> c));
+        return new CatalogSnapshot(components, CSVLoader.loadProducts(productsCsv, lookup));
+    }
+
+    // Size and modification time of both source files.
+    private static long[] sourceStamps(Path componentsCsv, Path productsCsv) throws IOException {
+        return new long[] {
+                Files.size(componentsCsv), Files.getLastModifiedTime(componentsCsv).toMillis(),
+                Files.size(productsCsv), Files.getLastModifiedTime(productsCsv).toMillis()
+        };
+    }
+
+    // Reads the snapshot, or returns null if it is not a valid snapshot of the given sources.
+    private static CatalogSnapshot read(Path snapshot, long[] sources) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            for (long stamp : sources) {
+                if (buffer.getLong() != stamp) {
+                    return null;
+                }
+            }
+
+            // Each distinct string is decoded once and shared by every component using it.
+            String[] strings = new String[buffer.getInt()];
+            byte[] scratch = new byte[64];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            BasicComponent[] table = new BasicComponent[buffer.getInt()];
+            List<BasicComponent> components = new ArrayList<>(table.length);
+            for (int i = 0; i < table.length; i++) {
+                String name = strings[buffer.getInt()];
+                String type = strings[buffer.getInt()];
+                double cost = buffer.getDouble();
+                double weight = buffer.getDouble();
+                double stock = buffer.getDouble();
+                if (buffer.get() != 0) {
+                    table[i] = new BasicComponent(components.size(), name, cost, weight, type, stock);
+                    components.add(table[i]);
+                } else {
+                    table[i] = new BasicComponent(name, cost, weight, type, stock);
+                }
+            }
+
+            int productCount = buffer.getInt();
+            String[] names = new String[productCount];
+            int[] quantities = new int[productCount];
+            int[][] required = new int[productCount][];
+            double[][] amounts = new double[productCount][];
+            int[][] subAssemblies = new int[productCount][];
+            for (int i = 0; i < productCount; i++) {
+                names[i] = strings[buffer.getInt()];
+                quantities[i] = buffer.getInt();
+                required[i] = new int[buffer.getInt()];
+                amounts[i] = new double[required[i].length];
+                int nested = 0;
+                for (int j = 0; j < required[i].length; j++) {
+                    required[i][j] = buffer.getInt();
+                    amounts[i][j] = buffer.getDouble();
+                    nested += required[i][j] < 0 ? 1 : 0;
+                }
+                subAssemblies[i] = new int[nested];
+                for (int j = 0; j < required[i].length; j++) {
+                    if (required[i][j] < 0) {
+                        subAssemblies[i][--nested] = -required[i][j] - 1;
+                    }
+                }
+            }
+
+            // Sub-assemblies are constructed before the products using them.
+            Product[] built = new Product[productCount];
+            for (int i : BillOfMaterials.topologicalOrder(subAssemblies, i -> names[i])) {
+                Component[] requirements = new Component[required[i].length];
+                for (int j = 0; j < requirements.length; j++) {
+                    int index = required[i][j];
+                    requirements[j] = index >= 0 ? table[index] : built[-index - 1];
+                }
+                built[i] = new Product(names[i], requirements, amounts[i], quantities[i]);
+            }
+            List<Product> products = new ArrayList<>(Arrays.asList(built));
+            return buffer.hasRemaining() ? null : new CatalogSnapshot(components, products);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // A truncated or corrupt snapshot is rebuilt from the CSV files.
+            return null;
+        }
+    }
+
+    // Writes the snapshot to a temporary file and moves it into place.
+    private static void write(Path snapshot, long[] sources, CatalogSnapshot catalog) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> stringTable = new ArrayList<>();
+        Map<Component, Integer> tableIndex = new IdentityHashMap<>();
+        List<BasicComponent> table = new ArrayList<>(catalog.components);
+        for (int i = 0; i < table.size(); i++) {
+            tableIndex.put(table.get(i), i);
+        }
+        Map<Component, Integer> productIndex = new IdentityHashMap<>();
+        for (int i = 0; i < catalog.products.size(); i++) {
+            productIndex.putIfAbsent(catalog.products.get(i), i);
+        }
+        for (Product product : catalog.products) {
+            for (int i = 0; i < product.getRequirementCount(); i++) {
+                Component required = product.getRequiredComponent(i);
+                if (required instanceof Product) {
+                    if (!productIndex.containsKey(required)) {
+                        throw new IllegalArgumentException("Sub-assembly " + required.getName()
+                                + " of " + product.getName() + " is not in the catalog");
+                    }
+                } else if (!tableIndex.containsKey(required)) {
+                    tableIndex.put(required, table.size());
+                    table.add((BasicComponent) required);
+                }
+            }
+        }
+
+        Files.createDirectories(snapshot.toAbsolutePath().getParent());
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (long stamp : sources) {
+                out.writeLong(stamp);
+            }
+            for (BasicComponent component : table) {
+                intern(component.getName(), strings, stringTable);
+                intern(component.getType(), strings, stringTable);
+            }
+            for (Product product : catalog.products) {
+                intern(product.getName(), strings, stringTable);
+            }
+            out.writeInt(stringTable.size());
+            for (String string : stringTable) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(table.size());
+            for (int i = 0; i < table.size(); i++) {
+                BasicComponent component = table.get(i);
+                out.writeInt(strings.get(component.getName()));
+                out.writeInt(strings.get(component.getType()));
+                out.writeDouble(component.getUnitCost());
+                out.writeDouble(component.getUnitWeight());
+                out.writeDouble(component.getStockQuantity());
+                out.writeBoolean(i < catalog.components.size());
+            }
+
+            out.writeInt(catalog.products.size());
+            for (Product product : catalog.products) {
+                out.writeInt(strings.get(product.getName()));
+                out.writeInt((int) product.getQuantity());
+                out.writeInt(product.getRequirementCount());
+                for (int i = 0; i < product.getRequirementCount(); i++) {
+                    Component required = product.getRequiredComponent(i);
+                    out.writeInt(required instanceof Product
+                            ? -productIndex.get(required) - 1 : tableIndex.get(required));
+                    out.writeDouble(product.getRequiredQuantity(i));
+                }
+            }
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Adds a string to the string table if it is not there yet.
+    private static void intern(String string, Map<String, Integer> strings, List<String> stringTable) {
+        if (!strings.containsKey(string)) {
+            strings.put(string, stringTable.size());
+            stringTable.add(string);
+        }
+    }
+}
@@ -8,11 +8,26 @@ package org.example;
  * </p>
  */
 public class CompletedState implements ManufacturingState {
+    private static final CompletedState instance = new CompletedState();
+
+    private CompletedState() {
+    }
+
+    /**
+     * Retrieves the shared instance of the completed state.
+     * The state holds no per-process data, so a single instance serves every process.
+     *
+     * @return the single {@link CompletedState} instance
+     */
+    public static CompletedState getInstance() {
+        return instance;
+    }
+
     /**
      * Finalizes the manufacturing process by updating the inventory.
      * <p>
      * This method is called when the manufacturing process reaches the {@code CompletedState}.
-     * It increases the quantity of the manufactured {@link Product} and adds it to the {@link Inventory}.
+     * It increases the quantity of the manufactured {@link Product} and adds it to the {@link Inventory} of the process.
      * No further processing is performed, as this state represents the end of the process.
      * </p>
      *
@@ -22,8 +37,7 @@ public class CompletedState implements ManufacturingState {
     public void proceed(ManufacturingProcess process) {
         // Get the information`s of product from the process:
         Product product = process.getProduct();
-        product.increaseQuantity();
-        Inventory.getInstance().addComponent(product);
+        process.getInventory().addManufactured(product);
         // No further action is needed, as the product is already in the inventory.
     }
 
@@ -39,4 +53,14 @@ public class CompletedState implements ManufacturingState {
     public String getStateName(ManufacturingProcess process) {
         return "Completed";
     }
+
+    /**
+     * Returns the status of this state, always {@link ProcessStatus#COMPLETED}.
+     *
+     * @return {@link ProcessStatus#COMPLETED}
+     */
+    @Override
+    public ProcessStatus getStatus() {
+        return ProcessStatus.COMPLETED;
+    }
 }
@@ -49,4 +49,11 @@ public interface Component {
      * Implementations may add more details and format this output differently depending on the component type.
      */
     void printDetail();
+
+    /**
+     * Writes the details of the component to a report.
+     *
+     * @param sink the {@link ReportSink} receiving the details
+     */
+    void printDetail(ReportSink sink);
 }
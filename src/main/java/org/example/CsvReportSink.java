@@ -0,0 +1,122 @@
+package org.example;
+
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * A {@link ReportSink} exporting the report as comma separated values.
+ * <p>
+ * Each record is one row whose first column names the record, followed by its fields in the order
+ * of the {@link ReportSink} method parameters, for example
+ * {@code component,Wood Plank,Raw Material,5.0,2.0,1000.0}. Numbers are written exactly with a
+ * decimal point, and fields containing commas, quotes or line breaks are quoted.
+ * </p>
+ */
+class CsvReportSink extends BufferedReportSink {
+
+    /**
+     * Constructs a CSV sink writing to the given channel.
+     *
+     * @param channel     the output channel
+     * @param charset     the character encoding of the output
+     * @param ownsChannel whether {@link #close()} closes the channel
+     */
+    CsvReportSink(WritableByteChannel channel, Charset charset, boolean ownsChannel) {
+        super(channel, charset, Locale.ROOT, ownsChannel);
+        append("record,field1,field2,field3,field4,field5").endLine();
+    }
+
+    @Override
+    public void section(String title) {
+        row("section").field(title).endLine();
+    }
+
+    @Override
+    public void message(String text) {
+        row("message").field(text).endLine();
+    }
+
+    @Override
+    public void component(String name, String type, double unitCost, double unitWeight, double stock) {
+        row("component").field(name).field(type).field(unitCost).field(unitWeight).field(stock).endLine();
+    }
+
+    @Override
+    public void product(String name, double unitCost, double unitWeight, double quantity) {
+        row("product").field(name).field(unitCost).field(unitWeight).field(quantity).endLine();
+    }
+
+    @Override
+    public void processState(String product, String state) {
+        row("process").field(product).field(state).endLine();
+    }
+
+    @Override
+    public void manufactured(String product, long units, double cost, double weight) {
+        row("manufactured").field(product).field(units).field(cost).field(weight).endLine();
+    }
+
+    @Override
+    public void failures(FailureType type, long count) {
+        row("failures").field(type.name()).field(count).endLine();
+    }
+
+    @Override
+    public void plannedProduct(String product, int feasible, int requested, String limitedBy) {
+        row("planned").field(product).field(feasible).field(requested).field(limitedBy).endLine();
+    }
+
+    @Override
+    public void shortage(String component, double demand, double available, double missing) {
+        row("shortage").field(component).field(demand).field(available).field(missing).endLine();
+    }
+
+    @Override
+    public void shortUnits(long units) {
+        row("shortUnits").field(units).endLine();
+    }
+
+    @Override
+    public void forecast(String measure, double mean, double p5, double p50, double p95) {
+        row("forecast").field(measure).field(mean).field(p5).field(p50).field(p95).endLine();
+    }
+
+    // Starts a row with the record name.
+    private CsvReportSink row(String record) {
+        append(record);
+        return this;
+    }
+
+    // Appends a text field, quoted if it contains a separator, a quote or a line break.
+    private CsvReportSink field(String value) {
+        append(',');
+        if (value == null) {
+            return this;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            append(value);
+            return this;
+        }
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                append('"');
+            }
+            append(c);
+        }
+        append('"');
+        return this;
+    }
+
+    private CsvReportSink field(double value) {
+        append(',').append(value);
+        return this;
+    }
+
+    private CsvReportSink field(long value) {
+        append(',').appendNumber(value, 0);
+        return this;
+    }
+}
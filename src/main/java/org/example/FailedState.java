@@ -8,6 +8,30 @@ package org.example;
  * </p>
  */
 public class FailedState implements ManufacturingState {
+    private static final FailedState instance = new FailedState();
+
+    // State names per failure type, built once so reports don't concatenate per process.
+    private static final String[] names = new String[FailureType.values().length];
+
+    static {
+        for (FailureType type : FailureType.values()) {
+            names[type.ordinal()] = "Failed (" + type + ")";
+        }
+    }
+
+    private FailedState() {
+    }
+
+    /**
+     * Retrieves the shared instance of the failed state.
+     * The state holds no per-process data, so a single instance serves every process.
+     *
+     * @return the single {@link FailedState} instance
+     */
+    public static FailedState getInstance() {
+        return instance;
+    }
+
     /**
      * Does nothing, as the process has already failed.
      * This method intentionally leaves the state of {@link ManufacturingProcess} unchanged,
@@ -30,6 +54,26 @@ public class FailedState implements ManufacturingState {
      */
     @Override
     public String getStateName(ManufacturingProcess process) {
-        return "Failed (" + process.getFailureType() + ")";
+        return nameOf(process.getFailureType());
+    }
+
+    /**
+     * Returns the state name of a process that failed for the given reason.
+     *
+     * @param type the failure type of the process
+     * @return the human-readable name of the state, including the failure type
+     */
+    static String nameOf(FailureType type) {
+        return type == null ? "Failed (null)" : names[type.ordinal()];
+    }
+
+    /**
+     * Returns the status of this state, always {@link ProcessStatus#FAILED}.
+     *
+     * @return {@link ProcessStatus#FAILED}
+     */
+    @Override
+    public ProcessStatus getStatus() {
+        return ProcessStatus.FAILED;
     }
 }
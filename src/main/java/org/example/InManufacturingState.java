@@ -1,7 +1,5 @@
 package org.example;
 
-import java.util.Random;
-
 /**
  * Implements and represents a state that simulates a manufacturing in process.
  * <p>
@@ -9,8 +7,28 @@ import java.util.Random;
  * is determined randomly to reflect real-world uncertainties of system errors
  * or damaged components.
  * </p>
+ * <p>
+ * The outcome is drawn by the {@link Simulation} of the process with its configured probabilities,
+ * from the seeded stream of the unit or from the {@link java.util.concurrent.ThreadLocalRandom} of
+ * the calling thread, so parallel schedulers don't contend on a shared generator.
+ * </p>
  */
 public class InManufacturingState implements ManufacturingState {
+    private static final InManufacturingState instance = new InManufacturingState();
+
+    private InManufacturingState() {
+    }
+
+    /**
+     * Retrieves the shared instance of the in manufacturing state.
+     * The state holds no per-process data, so a single instance serves every process.
+     *
+     * @return the single {@link InManufacturingState} instance
+     */
+    public static InManufacturingState getInstance() {
+        return instance;
+    }
+
      /**
     * Simulates the manufacturing process by generating a random outcome.
     * Depending on the result, transitions the {@link ManufacturingProcess}
@@ -18,7 +36,8 @@ public class InManufacturingState implements ManufacturingState {
     * when applicable.
     * 
     * <p>
-    * The outcome state can be determined randomly in three ways:
+    * The outcome state is determined randomly by the {@link Simulation} of the process in three ways,
+    * equally likely unless configured otherwise:
     * <ul>
     *   <li><b>1</b> → Success: Transitions to {@link CompletedState}</li>
     *   <li><b>2</b> — Failure due to a system error: Sets the {@link FailureType} to {@code SYSTEM_ERROR} and transitions to {@link FailedState}.</li>
@@ -33,16 +52,16 @@ public class InManufacturingState implements ManufacturingState {
     */
     @Override
     public void proceed(ManufacturingProcess proc) {
-        int outcome = new Random().nextInt(3) + 1;  // Generates 1, 2 or 3.
+        int outcome = proc.getSimulation().outcome(proc.getProduct(), proc.nextRandom());  // 1, 2 or 3.
         if (outcome == 1) {
-            proc.setState(new CompletedState());
+            proc.setState(CompletedState.getInstance());
             proc.proceed();
         } else if (outcome == 2) {
             proc.setFailureType(FailureType.SYSTEM_ERROR);
-            proc.setState(new FailedState());
+            proc.setState(FailedState.getInstance());
         } else {
             proc.setFailureType(FailureType.DAMAGED_COMPONENT);
-            proc.setState(new FailedState());
+            proc.setState(FailedState.getInstance());
         }
     }
 
@@ -58,4 +77,14 @@ public class InManufacturingState implements ManufacturingState {
     public String getStateName(ManufacturingProcess process) {
         return "In Manufacturing";
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the status of this state, always {@link ProcessStatus#IN_MANUFACTURING}.
+     *
+     * @return {@link ProcessStatus#IN_MANUFACTURING}
+     */
+    @Override
+    public ProcessStatus getStatus() {
+        return ProcessStatus.IN_MANUFACTURING;
+    }
+}
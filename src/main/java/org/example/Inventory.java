@@ -1,30 +1,95 @@
 package org.example;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Represents an inventory of {@link Component} objects and is implemented as a singleton.
+ * Represents an inventory of {@link Component} objects, the stock of one plant.
  * <p>
- * The {@link Inventory} class provides methods for adding components, 
- * retrieving components by name, removing component stock, and printing the details of 
+ * The {@link Inventory} class provides methods for adding components,
+ * retrieving components by name, removing component stock, and printing the details of
  * all components in the inventory.
  * </p>
+ * <p>
+ * Each manufacturing run is given the inventory it builds from through its
+ * {@link ManufacturingService} and {@link ManufacturingProcess}, so several plants or order books
+ * can run side by side in one JVM, each on its own inventory with its own locks. The stock is kept
+ * by the components themselves, so every inventory needs its own component and product objects,
+ * for example loaded from the catalog once per plant. {@link #getInstance()} returns the default
+ * inventory used by the application and by code that does not name one.
+ * </p>
+ * <p>
+ * The inventory is safe to use from several manufacturing threads at once. Stock updates
+ * are guarded by a fixed array of striped locks, where each component is mapped to one stripe
+ * by its dense id. A reservation of several components locks all the stripes it touches in
+ * ascending order, so reservations never deadlock and either deduct every requirement or none.
+ * </p>
+ * <p>
+ * Reservations given a {@link StockWaiter} queue the units they cannot reserve at the component
+ * that limits them, and {@link #restock(String, double)} serves the queue of a component in
+ * arrival order, so waiting processes are resumed without polling the stock.
+ * </p>
  */
 public class Inventory {
-    private static Inventory instance = new Inventory();
+    // Number of lock stripes, one bit each in a long mask.
+    private static final int STRIPES = 64;
+
+    /**
+     * Units of a product waiting for stock, queued at the component that limits them.
+     */
+    private static final class StockRequest implements Comparable<StockRequest> {
+        private final Product product;
+        private final StockWaiter waiter;
+        private final long sequence; // arrival order
+        private int units;           // units still waiting
+
+        private StockRequest(Product product, StockWaiter waiter, long sequence, int units) {
+            this.product = product;
+            this.waiter = waiter;
+            this.sequence = sequence;
+            this.units = units;
+        }
+
+        @Override
+        public int compareTo(StockRequest other) {
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final Inventory instance = new Inventory();
     // Map of component name to BasicComponent.
-    private Map<String, Component> components;
+    private final Map<String, Component> components;
+    private final ReentrantLock[] locks;
+    private volatile InventoryJournal journal; // records stock changes when set
+    // Requests waiting for each component, oldest first, guarded by the stripe lock of the component.
+    private final Map<Component, PriorityQueue<StockRequest>> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger waitingRequests = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
 
-    
-    private Inventory() {
-        components = new HashMap<>();
+
+    /**
+     * Constructs an empty inventory, independent of the default one.
+     */
+    public Inventory() {
+        components = new ConcurrentHashMap<>();
+        locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
     }
 
     /**
-     * Retrieves the singleton instance of the {@link Inventory}.
+     * Retrieves the default {@link Inventory}.
      *
-     * @return the single {@link Inventory} instance
+     * @return the default {@link Inventory} instance
      */
     public static Inventory getInstance() {
         return instance;
@@ -39,6 +104,76 @@ public class Inventory {
         components.put(component.getName(), component);
     }
 
+    /**
+     * Sets the journal that records every stock change and manufactured product.
+     *
+     * @param journal the {@link InventoryJournal} to append to, or {@code null} to stop journaling
+     */
+    public void setJournal(InventoryJournal journal) {
+        if (journal != null) {
+            journal.setInventory(this);
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Forces the records appended to the journal of this inventory to disk, if it has one.
+     */
+    void commitJournal() {
+        InventoryJournal current = journal;
+        if (current != null) {
+            current.commit();
+        }
+    }
+
+    /**
+     * Adds a newly manufactured unit of a product to the inventory.
+     * <p>
+     * The quantity of the product is increased and the product is registered in the inventory.
+     * The change is journaled under the stripe lock of the product, so snapshots never see the
+     * quantity without its journal record.
+     * </p>
+     *
+     * @param product the manufactured {@link Product}
+     */
+    public void addManufactured(Product product) {
+        ReentrantLock lock = locks[stripeOf(product)];
+        lock.lock();
+        try {
+            product.increaseQuantity();
+            components.put(product.getName(), product);
+            InventoryJournal current = journal;
+            if (current != null) {
+                current.manufactured(product);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (waitingRequests.get() > 0) {
+            wake(product);
+        }
+    }
+
+    /**
+     * Sets the quantity of a product, journaling the change under the stripe lock of the product.
+     *
+     * @param product  the {@link Product} to update
+     * @param quantity the new quantity
+     */
+    public void setProductQuantity(Product product, double quantity) {
+        ReentrantLock lock = locks[stripeOf(product)];
+        lock.lock();
+        try {
+            product.setQuantity(quantity);
+            InventoryJournal current = journal;
+            if (current != null) {
+                current.quantitySet(product, quantity);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Retrieves a {@link Component} by its name.
      *
@@ -58,7 +193,190 @@ public class Inventory {
     public void removeStock(String name, double quantityUsed) {
         Component component = components.get(name);
         if (component != null) {
-            component.decreaseQuantity(quantityUsed);
+            ReentrantLock lock = locks[stripeOf(component)];
+            lock.lock();
+            try {
+                component.decreaseQuantity(quantityUsed);
+                InventoryJournal current = journal;
+                if (current != null && component instanceof BasicComponent) {
+                    current.deducted((BasicComponent) component, quantityUsed);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Atomically reserves the requirements of one unit of a product from the stock.
+     * <p>
+     * Every stripe touched by the bill of materials is locked before the stock is checked, so the
+     * check and the deduction happen as one step. A sub-assembly requirement is reserved from the
+     * built units of that {@link Product}. If any requirement has insufficient stock, nothing is deducted.
+     * </p>
+     *
+     * @param product the product whose requirements are reserved
+     * @return {@code true} if all quantities were deducted, {@code false} if none were
+     */
+    public boolean reserve(Product product) {
+        return reserveUpTo(product, 1) == 1;
+    }
+
+    /**
+     * Atomically reserves the requirements of as many units as possible, up to the given count.
+     * <p>
+     * The stripes of all requirements are locked once, the maximum buildable number of units is
+     * computed from the current stock in a single scan of the bill of materials and the
+     * requirements of those units are deducted in one update per component. Basic components are
+     * checked and deducted in their exact stock units, see {@link BasicComponent#getStockUnits()},
+     * so a stock that exactly covers a number of units always builds them.
+     * </p>
+     *
+     * @param product the product whose requirements are reserved
+     * @param units   the number of units requested
+     * @return the number of units whose requirements were deducted, between 0 and {@code units}
+     */
+    public int reserveUpTo(Product product, int units) {
+        long stripes = stripesOf(product);
+        lockAll(stripes);
+        try {
+            return take(product, units, -1, null);
+        } finally {
+            unlockAll(stripes);
+        }
+    }
+
+    /**
+     * Reserves the requirements of as many units as possible, up to the given count, and queues the
+     * other units until the stock is restocked.
+     * <p>
+     * The units that cannot be reserved wait in the queue of the component that limits them, in the
+     * order they arrived. Whenever {@link #restock(String, double)} adds stock to a component, or a
+     * sub-assembly is manufactured, the requests waiting for it are reserved oldest first, and a
+     * request still short of another component moves on to the queue of that component. Once units
+     * wait for a component, newer reservations with a waiter queue behind them instead of taking
+     * the stock. Reservations without a waiter do not queue and are not held back.
+     * </p>
+     *
+     * @param product the product whose requirements are reserved
+     * @param units   the number of units requested
+     * @param waiter  receives the units reserved or cancelled later
+     * @return the number of units reserved at once, the other units are passed to {@code waiter} later
+     */
+    public int reserveUpTo(Product product, int units, StockWaiter waiter) {
+        long stripes = stripesOf(product);
+        lockAll(stripes);
+        try {
+            int[] limiting = new int[1];
+            // A new request comes after every waiting one
+            int buildable = take(product, units, waitingRequests.get() > 0 ? Long.MAX_VALUE : -1, limiting);
+            if (buildable < units) {
+                StockRequest request = new StockRequest(product, waiter, sequence.incrementAndGet(), units - buildable);
+                waitingRequests.incrementAndGet();
+                enqueue(request, product.getRequiredComponent(limiting[0]));
+            }
+            return buildable;
+        } finally {
+            unlockAll(stripes);
+        }
+    }
+
+    /**
+     * Adds stock to a basic component and reserves the units waiting for it.
+     * <p>
+     * The waiting requests are reserved on the calling thread, which also makes the
+     * {@link StockWaiter#reserved(Product, int)} calls.
+     * </p>
+     *
+     * @param name     the name of the component to restock
+     * @param quantity the quantity to add, rounded to the precision of the component
+     * @throws IllegalArgumentException if the component is unknown or the quantity is negative
+     */
+    public void restock(String name, double quantity) {
+        Component component = components.get(name);
+        if (!(component instanceof BasicComponent)) {
+            throw new IllegalArgumentException("Unknown component: " + name);
+        }
+        if (!(quantity >= 0)) {
+            throw new IllegalArgumentException("Restock quantity must not be negative: " + quantity);
+        }
+        BasicComponent basic = (BasicComponent) component;
+        ReentrantLock lock = locks[stripeOf(basic)];
+        lock.lock();
+        try {
+            long units = basic.toUnits(quantity);
+            basic.decreaseUnits(-units);
+            InventoryJournal current = journal;
+            if (current != null) {
+                current.restocked(basic, units);
+            }
+        } finally {
+            lock.unlock();
+        }
+        wake(basic);
+    }
+
+    /**
+     * Removes every request of a waiter from the queues, see {@link #reserveUpTo(Product, int, StockWaiter)}.
+     * <p>
+     * The removed units are passed to {@link StockWaiter#cancelled(Product, int)} before this
+     * method returns. Units reserved concurrently may still be passed to
+     * {@link StockWaiter#reserved(Product, int)} by the restocking thread.
+     * </p>
+     *
+     * @param waiter the waiter whose requests are removed
+     */
+    public void cancelWaiting(StockWaiter waiter) {
+        List<StockRequest> removed = new ArrayList<>();
+        List<Component> heads = new ArrayList<>();
+        lockAll(-1L);
+        try {
+            for (Map.Entry<Component, PriorityQueue<StockRequest>> entry : queues.entrySet()) {
+                PriorityQueue<StockRequest> queue = entry.getValue();
+                StockRequest head = queue.peek();
+                for (Iterator<StockRequest> it = queue.iterator(); it.hasNext(); ) {
+                    StockRequest request = it.next();
+                    if (request.waiter == waiter) {
+                        it.remove();
+                        removed.add(request);
+                    }
+                }
+                if (head != null && head.waiter == waiter) {
+                    heads.add(entry.getKey());
+                }
+            }
+            waitingRequests.addAndGet(-removed.size());
+        } finally {
+            unlockAll(-1L);
+        }
+        for (StockRequest request : removed) {
+            waiter.cancelled(request.product, request.units);
+        }
+        // Requests behind a removed head may fit now
+        for (Component component : heads) {
+            wake(component);
+        }
+    }
+
+    /**
+     * Creates a {@link StockView} with the current stock of all components in the inventory and of
+     * the given products and their requirements, to evaluate plans without changing the inventory.
+     * <p>
+     * All stripes are locked while the stock is copied, so the view is a consistent snapshot.
+     * Further views of the same stock are best made with {@link StockView#fork()}, which does not copy.
+     * </p>
+     *
+     * @param products products that may not be in the inventory yet, such as those to be manufactured
+     * @return the new baseline {@link StockView}
+     */
+    public StockView view(Collection<Product> products) {
+        List<Component> covered = new ArrayList<>(components.values());
+        covered.addAll(products);
+        lockAllStripes();
+        try {
+            return StockView.of(covered);
+        } finally {
+            unlockAllStripes();
         }
     }
 
@@ -69,9 +387,205 @@ public class Inventory {
      * </p>
      */
     public void printInventory() {
-        System.out.println("\n=== INVENTORY COMPONENT DETAILS ===");
+        try (ReportSink sink = ReportSink.console()) {
+            printInventory(sink);
+        }
+    }
+
+    /**
+     * Writes the details of all components in the inventory to a report.
+     *
+     * @param sink the {@link ReportSink} receiving the details
+     */
+    public void printInventory(ReportSink sink) {
+        sink.section("INVENTORY COMPONENT DETAILS");
         for (Component comp : components.values()) {
-            comp.printDetail();
+            comp.printDetail(sink);
+        }
+    }
+
+    // Maps a component to its lock stripe by its dense id,
+    // or by spreading the hash of its name if it has none.
+    private static int stripeOf(Component component) {
+        if (component instanceof BasicComponent && ((BasicComponent) component).getId() >= 0) {
+            return ((BasicComponent) component).getId() & (STRIPES - 1);
+        }
+        int h = component.getName().hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // Reserves up to the given units of a product whose stripes are locked and returns the units
+    // reserved. With a sequence, requests that queued earlier for a requirement are served first.
+    // The index of the requirement that limited the units is stored in limiting when given.
+    private int take(Product product, int units, long sequence, int[] limiting) {
+        int count = product.getRequirementCount();
+        int buildable = units;
+        int limit = -1;
+        for (int i = 0; i < count && buildable > 0; i++) {
+            int fits = fits(product, i, buildable, sequence);
+            if (fits < buildable) {
+                buildable = fits;
+                limit = i;
+            }
+        }
+        if (ManufacturingMetrics.ENABLED && limit >= 0) {
+            ManufacturingMetrics.getInstance().recordStockOut(product.getRequiredComponent(limit));
+        }
+        for (int i = 0; buildable > 0 && i < count; i++) {
+            Component component = product.getRequiredComponent(i);
+            if (component instanceof BasicComponent) {
+                ((BasicComponent) component).decreaseUnits(product.getRequiredUnits(i) * buildable);
+            } else {
+                component.decreaseQuantity(product.getRequiredQuantity(i) * buildable);
+            }
+        }
+        InventoryJournal current = journal;
+        if (current != null && buildable > 0) {
+            current.reserved(product, buildable);
+        }
+        if (limiting != null) {
+            limiting[0] = limit;
+        }
+        return buildable;
+    }
+
+    // Returns how many of the given units the stock of a requirement covers, 0 while a request
+    // older than the sequence waits for it.
+    private int fits(Product product, int index, int units, long sequence) {
+        Component component = product.getRequiredComponent(index);
+        if (sequence >= 0) {
+            PriorityQueue<StockRequest> queue = queues.get(component);
+            StockRequest head = queue != null ? queue.peek() : null;
+            if (head != null && head.sequence < sequence) {
+                return 0;
+            }
+        }
+        if (component instanceof BasicComponent) {
+            return fitsUnits(((BasicComponent) component).getStockUnits(), product.getRequiredUnits(index), units);
+        }
+        return fitsAssembly(((Product) component).getQuantity(), product.getRequiredQuantity(index), units);
+    }
+
+    /**
+     * Returns how many units of a product the stock of a basic component covers, as a reservation
+     * of the inventory counts them.
+     *
+     * @param stock  the stock of the component in its stock units
+     * @param needed the stock units required by one unit of the product
+     * @param units  the number of units requested
+     * @return the number of units covered, between 0 and {@code units}
+     */
+    static int fitsUnits(long stock, long needed, int units) {
+        // Stock and requirement are exact unit counts, so the division is exact too.
+        return stock < 0 ? 0 : needed > 0 ? (int) Math.min(stock / needed, units) : units;
+    }
+
+    /**
+     * Returns how many units of a product the built units of a sub-assembly cover, as a reservation
+     * of the inventory counts them.
+     *
+     * @param stock  the built units of the sub-assembly
+     * @param needed the quantity of the sub-assembly required by one unit of the product
+     * @param units  the number of units requested
+     * @return the number of units covered, between 0 and {@code units}
+     */
+    static int fitsAssembly(double stock, double needed, int units) {
+        if (units == 1) {
+            return stock < needed ? 0 : 1;
+        }
+        // Tolerate rounding noise of fractional sub-assembly requirements.
+        return (int) Math.max(Math.min(Math.floor(stock / needed + 1e-9), units), 0);
+    }
+
+    // Appends a request to the queue of a component whose stripe is locked.
+    private void enqueue(StockRequest request, Component component) {
+        queues.computeIfAbsent(component, c -> new PriorityQueue<>()).add(request);
+    }
+
+    // Reserves the requests waiting for a component, oldest first, until one is still short of it.
+    // Requests short of another component move to its queue.
+    private void wake(Component component) {
+        PriorityQueue<StockRequest> queue = queues.get(component);
+        if (queue == null) {
+            return;
+        }
+        ReentrantLock lock = locks[stripeOf(component)];
+        int[] limiting = new int[1];
+        while (true) {
+            StockRequest head;
+            lock.lock();
+            try {
+                head = queue.peek();
+            } finally {
+                lock.unlock();
+            }
+            if (head == null) {
+                return;
+            }
+            long stripes = stripesOf(head.product);
+            int reserved;
+            boolean blocked = false;
+            lockAll(stripes);
+            try {
+                if (queue.peek() != head) {
+                    continue; // served or cancelled concurrently
+                }
+                reserved = take(head.product, head.units, head.sequence, limiting);
+                head.units -= reserved;
+                if (head.units == 0) {
+                    queue.poll();
+                    waitingRequests.decrementAndGet();
+                } else {
+                    Component shortOf = head.product.getRequiredComponent(limiting[0]);
+                    if (shortOf == component) {
+                        blocked = true;
+                    } else {
+                        queue.poll();
+                        enqueue(head, shortOf);
+                    }
+                }
+            } finally {
+                unlockAll(stripes);
+            }
+            if (reserved > 0) {
+                head.waiter.reserved(head.product, reserved);
+            }
+            if (blocked) {
+                return;
+            }
+        }
+    }
+
+    // Returns the mask of the stripes of all requirements of a product.
+    private static long stripesOf(Product product) {
+        long stripes = 0L;
+        for (int i = 0; i < product.getRequirementCount(); i++) {
+            stripes |= 1L << stripeOf(product.getRequiredComponent(i));
+        }
+        return stripes;
+    }
+
+    // Locks every stripe, stopping all stock changes until unlockAllStripes is called.
+    void lockAllStripes() {
+        lockAll(-1L);
+    }
+
+    // Releases the stripes locked by lockAllStripes.
+    void unlockAllStripes() {
+        unlockAll(-1L);
+    }
+
+    // Locks the stripes set in the mask in ascending order.
+    private void lockAll(long stripes) {
+        for (long rest = stripes; rest != 0; rest &= rest - 1) {
+            locks[Long.numberOfTrailingZeros(rest)].lock();
+        }
+    }
+
+    // Unlocks the stripes set in the mask.
+    private void unlockAll(long stripes) {
+        for (long rest = stripes; rest != 0; rest &= rest - 1) {
+            locks[Long.numberOfTrailingZeros(rest)].unlock();
         }
     }
 }
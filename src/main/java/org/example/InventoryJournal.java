@@ -0,0 +1,439 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A binary, append-only journal of inventory changes and process outcomes, with snapshots for fast recovery.
+ * <p>
+ * Every stock reservation, direct stock deduction, restock, product quantity change and process outcome is
+ * appended as a fixed-size record of {@value #RECORD_SIZE} bytes to memory-mapped segment files.
+ * Appends are plain memory writes; durability is provided by {@link #commit()}, which forces the
+ * mapped segments to disk as a group commit: all threads waiting at the same time share one force.
+ * A {@link ManufacturingService} commits the journal of its inventory after each level of a run, and
+ * {@link #startPeriodicCommit(long, TimeUnit)} bounds the records a crash can lose within a level to
+ * those of one period. Records appended since the last commit are only as durable as the page cache.
+ * </p>
+ * <p>
+ * {@link #snapshot()} writes the stock of every component together with the journal position, so
+ * {@link #recover(ProcessLog)} only replays the records appended after the latest snapshot.
+ * Components are identified by their dense id and products by their index in the catalog the
+ * journal was opened with.
+ * </p>
+ * <p>
+ * Recovery restores the stock of basic components only. The quantity of a product is the order
+ * loaded from the catalog, which a run overwrites with the units it built, so manufactured units,
+ * quantity changes and the sub-assembly part of reservations are journaled for auditing but not
+ * restored over the order of the next run.
+ * </p>
+ * <p>
+ * Record layout: type (1 byte), code (1 byte, a status or failure type), 2 unused bytes, id (4 bytes)
+ * and value (8 byte double). The type is written last, so a record that was not completely
+ * written before a crash reads as the end of the journal.
+ * </p>
+ */
+public class InventoryJournal implements Closeable {
+    private static final int RECORD_SIZE = 16;
+    private static final int RECORDS_PER_SEGMENT = 4 * 1024 * 1024;
+    private static final long SEGMENT_SIZE = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+    private static final String SNAPSHOT = "snapshot.bin";
+
+    // Record types, 0 marks free space.
+    private static final byte RESERVED = 1;
+    private static final byte DEDUCTED = 2;
+    private static final byte MANUFACTURED = 3;
+    private static final byte OUTCOME = 4;
+    private static final byte QUANTITY = 5;
+    private static final byte RESTOCKED = 6;
+
+    private static final ProcessStatus[] STATUSES = ProcessStatus.values();
+    private static final FailureType[] FAILURES = FailureType.values();
+
+    private final Path directory;
+    private final List<BasicComponent> components;
+    private final List<Product> products;
+    private final Map<Product, Integer> productIds = new IdentityHashMap<>();
+
+    private final Object flushLock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private volatile Inventory inventory = Inventory.getInstance(); // the inventory recording into this
+    private long appended;        // number of records appended, guarded by this
+    private long durable;         // number of records forced to disk, guarded by flushLock
+    private ScheduledExecutorService committer; // the periodic commits, guarded by this
+
+    /**
+     * Opens the journal in the given directory, creating it if needed.
+     * <p>
+     * The journal is positioned after its last complete record. Call {@link #recover(ProcessLog)}
+     * to apply the journal to the catalog before recording new changes.
+     * </p>
+     *
+     * @param directory  the directory holding the segments and the snapshot
+     * @param components the components of the catalog, indexed by their id
+     * @param products   the products of the catalog, identified by their index
+     * @throws IOException if the journal cannot be opened
+     */
+    public InventoryJournal(Path directory, List<BasicComponent> components, List<Product> products)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.components = components;
+        this.products = products;
+        for (int i = 0; i < products.size(); i++) {
+            productIds.put(products.get(i), i);
+        }
+        int last = 0;
+        while (Files.exists(segmentPath(last + 1))) {
+            last++;
+        }
+        openSegment(last);
+        int offset = 0;
+        while (offset < SEGMENT_SIZE && segment.get(offset) != 0) {
+            offset += RECORD_SIZE;
+        }
+        appended = (long) last * RECORDS_PER_SEGMENT + offset / RECORD_SIZE;
+        durable = appended;
+    }
+
+    /**
+     * Records that the requirements of some units of a product were deducted from the stock.
+     *
+     * @param product the product whose requirements were reserved
+     * @param units   the number of units reserved
+     */
+    public void reserved(Product product, int units) {
+        append(RESERVED, (byte) 0, productIds.getOrDefault(product, -1), units);
+    }
+
+    /**
+     * Records a direct deduction from the stock of a component.
+     *
+     * @param component the component whose stock was decreased
+     * @param quantity  the quantity deducted
+     */
+    public void deducted(BasicComponent component, double quantity) {
+        append(DEDUCTED, (byte) 0, component.getId(), quantity);
+    }
+
+    /**
+     * Records stock added to a component, in the exact stock units that were added.
+     *
+     * @param component the component whose stock was increased
+     * @param units     the stock units added, see {@link BasicComponent#toUnits(double)}
+     */
+    public void restocked(BasicComponent component, long units) {
+        append(RESTOCKED, (byte) 0, component.getId(), units);
+    }
+
+    /**
+     * Records that a unit of a product was manufactured and added to the inventory.
+     *
+     * @param product the manufactured product
+     */
+    public void manufactured(Product product) {
+        append(MANUFACTURED, (byte) 0, productIds.getOrDefault(product, -1), 1);
+    }
+
+    /**
+     * Records that the quantity of a product was set.
+     *
+     * @param product  the product
+     * @param quantity the new quantity
+     */
+    public void quantitySet(Product product, double quantity) {
+        append(QUANTITY, (byte) 0, productIds.getOrDefault(product, -1), quantity);
+    }
+
+    /**
+     * Records the outcome of a manufacturing process.
+     *
+     * @param process the processed {@link ManufacturingProcess}
+     */
+    public void outcome(ManufacturingProcess process) {
+        outcome(process.getProduct(), process.getStatus(), process.getFailureType());
+    }
+
+    /**
+     * Records the outcome of a unit of a product.
+     *
+     * @param product     the product of the unit
+     * @param status      the final status of the unit
+     * @param failureType the reason of the failure, or {@code null}
+     */
+    public void outcome(Product product, ProcessStatus status, FailureType failureType) {
+        int code = status.ordinal() | (failureType == null ? 0 : (failureType.ordinal() + 1) << 4);
+        append(OUTCOME, (byte) code, productIds.getOrDefault(product, -1), 0);
+    }
+
+    // Writes one record at the end of the journal, rolling over to a new segment when full.
+    private synchronized void append(byte type, byte code, int id, double value) {
+        int offset = (int) (appended % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        if (offset == 0 && appended > 0 && appended / RECORDS_PER_SEGMENT != segmentIndex) {
+            rollSegment();
+        }
+        segment.put(offset + 1, code);
+        segment.putInt(offset + 4, id);
+        segment.putDouble(offset + 8, value);
+        segment.put(offset, type);
+        appended++;
+    }
+
+    /**
+     * Forces all records appended so far to disk.
+     * <p>
+     * Threads committing at the same time are served by a single force of the segment, so the
+     * cost of a disk flush is shared by every change appended before it.
+     * </p>
+     */
+    public void commit() {
+        long target;
+        MappedByteBuffer current;
+        synchronized (this) {
+            target = appended;
+            current = segment;
+        }
+        synchronized (flushLock) {
+            if (durable >= target) {
+                return;
+            }
+            current.force();
+            durable = target;
+        }
+    }
+
+    /**
+     * Commits the journal at a fixed rate on a daemon thread until it is closed.
+     * <p>
+     * A commit with nothing new to force returns at once, so a short period only costs a disk
+     * flush while records are appended.
+     * </p>
+     *
+     * @param period the time between two commits
+     * @param unit   the unit of the period
+     * @throws IllegalStateException if periodic commits were already started
+     */
+    public synchronized void startPeriodicCommit(long period, TimeUnit unit) {
+        if (committer != null) {
+            throw new IllegalStateException("Periodic commits already started");
+        }
+        committer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "inventory-journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleAtFixedRate(this::commit, period, period, unit);
+    }
+
+    /**
+     * Returns the number of records forced to disk.
+     *
+     * @return the number of records committed, including those of earlier runs
+     */
+    long durableSize() {
+        synchronized (flushLock) {
+            return durable;
+        }
+    }
+
+    // Called by the inventory the journal is attached to, whose stripes guard the snapshots.
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Writes a snapshot of the stock of all components.
+     * <p>
+     * All inventory stripes are locked while the values are copied, so no journaled change can
+     * happen between reading them and reading the journal position. The snapshot
+     * is written to a temporary file and moved into place, so a crash keeps the previous one.
+     * </p>
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        double[] stock = new double[components.size()];
+        long position;
+        Inventory inventory = this.inventory;
+        inventory.lockAllStripes();
+        try {
+            synchronized (this) {
+                position = appended;
+            }
+            for (int i = 0; i < stock.length; i++) {
+                stock[i] = components.get(i).getStockQuantity();
+            }
+        } finally {
+            inventory.unlockAllStripes();
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeLong(position);
+            out.writeInt(stock.length);
+            for (double value : stock) {
+                out.writeDouble(value);
+            }
+        }
+        commit();
+        Files.move(temporary, directory.resolve(SNAPSHOT),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores the component stock from the latest snapshot and replays the records appended after it.
+     * <p>
+     * Product quantities are left as loaded from the catalog.
+     * </p>
+     *
+     * @param outcomes a log receiving the replayed process outcomes, or {@code null} to skip them
+     * @return the number of records replayed
+     * @throws IOException if the snapshot or a segment cannot be read
+     */
+    public long recover(ProcessLog outcomes) throws IOException {
+        long position = 0;
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                position = in.readLong();
+                int componentCount = in.readInt();
+                for (int i = 0; i < componentCount; i++) {
+                    components.get(i).restoreStockQuantity(in.readDouble());
+                }
+                // Snapshots of earlier versions end with product quantities, which are not restored
+            }
+        }
+        long replayed = 0;
+        synchronized (this) {
+            MappedByteBuffer buffer = null;
+            int mapped = -1;
+            for (long record = position; record < appended; record++) {
+                int index = (int) (record / RECORDS_PER_SEGMENT);
+                if (index != mapped) {
+                    buffer = index == segmentIndex ? segment : mapSegment(index);
+                    mapped = index;
+                }
+                apply(buffer, (int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE, outcomes);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    // Applies the record at the given offset to the component stock.
+    private void apply(MappedByteBuffer buffer, int offset, ProcessLog outcomes) {
+        byte type = buffer.get(offset);
+        int code = buffer.get(offset + 1);
+        int id = buffer.getInt(offset + 4);
+        double value = buffer.getDouble(offset + 8);
+        if (id < 0) {
+            return;
+        }
+        switch (type) {
+            case RESERVED:
+                Product reserved = products.get(id);
+                for (int i = 0; i < reserved.getRequirementCount(); i++) {
+                    Component component = reserved.getRequiredComponent(i);
+                    if (component instanceof BasicComponent) {
+                        ((BasicComponent) component).decreaseUnits(reserved.getRequiredUnits(i) * (long) value);
+                    }
+                }
+                break;
+            case DEDUCTED:
+                components.get(id).decreaseQuantity(value);
+                break;
+            case RESTOCKED:
+                components.get(id).decreaseUnits(-(long) value);
+                break;
+            case OUTCOME:
+                if (outcomes != null) {
+                    int failure = (code >> 4) & 0xF;
+                    outcomes.append(products.get(id), STATUSES[code & 0xF],
+                            failure == 0 ? null : FAILURES[failure - 1]);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the number of records in the journal.
+     *
+     * @return the number of records appended, including those of earlier runs
+     */
+    public synchronized long size() {
+        return appended;
+    }
+
+    /**
+     * Stops the periodic commits, forces the appended records to disk and closes the journal.
+     *
+     * @throws IOException if the segment cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService periodic;
+        synchronized (this) {
+            periodic = committer;
+            committer = null;
+        }
+        if (periodic != null) {
+            periodic.shutdown();
+            try {
+                periodic.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        commit();
+        synchronized (this) {
+            channel.close();
+        }
+    }
+
+    // Forces the full segment and maps the next one.
+    private void rollSegment() {
+        try {
+            segment.force();
+            channel.close();
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot roll journal segment " + (segmentIndex + 1), e);
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        segmentIndex = index;
+    }
+
+    private MappedByteBuffer mapSegment(int index) throws IOException {
+        try (FileChannel old = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+            return old.map(FileChannel.MapMode.READ_ONLY, 0, SEGMENT_SIZE);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("journal-%06d.seg", index));
+    }
+}
@@ -0,0 +1,135 @@
+package org.example;
+
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * A {@link ReportSink} exporting the report as JSON Lines, one object per record.
+ * <p>
+ * Every object has a {@code record} member naming the record and one member per
+ * {@link ReportSink} method parameter, for example
+ * {@code {"record":"process","product":"Chair","state":"Completed"}}. Records can therefore be
+ * streamed and processed one line at a time.
+ * </p>
+ */
+class JsonReportSink extends BufferedReportSink {
+
+    /**
+     * Constructs a JSON sink writing to the given channel.
+     *
+     * @param channel     the output channel
+     * @param charset     the character encoding of the output
+     * @param ownsChannel whether {@link #close()} closes the channel
+     */
+    JsonReportSink(WritableByteChannel channel, Charset charset, boolean ownsChannel) {
+        super(channel, charset, Locale.ROOT, ownsChannel);
+    }
+
+    @Override
+    public void section(String title) {
+        record("section").member("title", title).end();
+    }
+
+    @Override
+    public void message(String text) {
+        record("message").member("text", text).end();
+    }
+
+    @Override
+    public void component(String name, String type, double unitCost, double unitWeight, double stock) {
+        record("component").member("name", name).member("type", type).member("unitCost", unitCost)
+                .member("unitWeight", unitWeight).member("stock", stock).end();
+    }
+
+    @Override
+    public void product(String name, double unitCost, double unitWeight, double quantity) {
+        record("product").member("name", name).member("unitCost", unitCost)
+                .member("unitWeight", unitWeight).member("quantity", quantity).end();
+    }
+
+    @Override
+    public void processState(String product, String state) {
+        record("process").member("product", product).member("state", state).end();
+    }
+
+    @Override
+    public void manufactured(String product, long units, double cost, double weight) {
+        record("manufactured").member("product", product).member("units", units)
+                .member("cost", cost).member("weight", weight).end();
+    }
+
+    @Override
+    public void failures(FailureType type, long count) {
+        record("failures").member("type", type.name()).member("count", count).end();
+    }
+
+    @Override
+    public void plannedProduct(String product, int feasible, int requested, String limitedBy) {
+        record("planned").member("product", product).member("feasible", feasible)
+                .member("requested", requested).member("limitedBy", limitedBy).end();
+    }
+
+    @Override
+    public void shortage(String component, double demand, double available, double missing) {
+        record("shortage").member("component", component).member("demand", demand)
+                .member("available", available).member("missing", missing).end();
+    }
+
+    @Override
+    public void shortUnits(long units) {
+        record("shortUnits").member("units", units).end();
+    }
+
+    @Override
+    public void forecast(String measure, double mean, double p5, double p50, double p95) {
+        record("forecast").member("measure", measure).member("mean", mean).member("p5", p5)
+                .member("p50", p50).member("p95", p95).end();
+    }
+
+    // Starts the object of a record.
+    private JsonReportSink record(String record) {
+        append("{\"record\":\"").append(record).append('"');
+        return this;
+    }
+
+    private JsonReportSink member(String name, String value) {
+        append(",\"").append(name).append("\":");
+        if (value == null) {
+            append("null");
+            return this;
+        }
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                append('\\').append(c);
+            } else if (c < 0x20) {
+                append(String.format("\\u%04x", (int) c));
+            } else {
+                append(c);
+            }
+        }
+        append('"');
+        return this;
+    }
+
+    private JsonReportSink member(String name, double value) {
+        append(",\"").append(name).append("\":");
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            append("null");
+        } else {
+            append(value);
+        }
+        return this;
+    }
+
+    private JsonReportSink member(String name, long value) {
+        append(",\"").append(name).append("\":").appendNumber(value, 0);
+        return this;
+    }
+
+    private void end() {
+        append('}').endLine();
+    }
+}
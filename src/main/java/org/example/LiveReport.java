@@ -0,0 +1,143 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running aggregates of the manufacturing results, updated as each process reaches a terminal state.
+ * <p>
+ * Every completed process increments a {@link LongAdder} of its product and every failed process
+ * one of its {@link FailureType}, so threads finishing processes at the same time update separate
+ * cells instead of contending on one counter or on a lock. A product is registered with a dense id
+ * the first time one of its processes is recorded; afterwards recording is a lock-free hash lookup
+ * and an increment.
+ * </p>
+ * <p>
+ * {@link #snapshot()} sums the counters into a {@link ReportSummary} at any moment without stopping
+ * production. Each count is exact for some moment during the snapshot, so while processes are still
+ * finishing the counts of different products may be a few units apart in time. Once manufacturing
+ * has finished the snapshot equals the summary of the {@link ProcessLog}.
+ * </p>
+ */
+public class LiveReport {
+    private static final FailureType[] FAILURES = FailureType.values();
+
+    /**
+     * The running counters of one product.
+     */
+    private static final class ProductCounters {
+        private final Product product;
+        private final LongAdder completed = new LongAdder();
+
+        private ProductCounters(Product product) {
+            this.product = product;
+        }
+    }
+
+    private final ConcurrentHashMap<Product, ProductCounters> counters = new ConcurrentHashMap<>();
+    private final LongAdder[] failures = new LongAdder[FAILURES.length];
+    // Counters by product id; the array is published before the count that covers its new entries.
+    private volatile ProductCounters[] registered = new ProductCounters[16];
+    private volatile int registeredCount;
+
+    /**
+     * Constructs empty aggregates.
+     */
+    public LiveReport() {
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the result of a processed {@link ManufacturingProcess}.
+     *
+     * @param process the process, ignored unless it completed or failed
+     */
+    public void record(ManufacturingProcess process) {
+        record(process.getProduct(), process.getStatus(), process.getFailureType());
+    }
+
+    /**
+     * Records the result of one process.
+     *
+     * @param product     the product of the process
+     * @param status      the status the process ended in, ignored unless it is a terminal state
+     * @param failureType the failure type of a failed process, or {@code null}
+     */
+    public void record(Product product, ProcessStatus status, FailureType failureType) {
+        record(product, status, failureType, 1);
+    }
+
+    /**
+     * Records the same result for several processes of a product.
+     *
+     * @param product     the product of the processes
+     * @param status      the status the processes ended in, ignored unless it is a terminal state
+     * @param failureType the failure type of failed processes, or {@code null}
+     * @param units       the number of processes
+     */
+    public void record(Product product, ProcessStatus status, FailureType failureType, long units) {
+        if (status == ProcessStatus.COMPLETED) {
+            countersOf(product).completed.add(units);
+        } else if (status == ProcessStatus.FAILED) {
+            countersOf(product); // numbers the product like the log does
+            if (failureType != null) {
+                failures[failureType.ordinal()].add(units);
+            }
+        }
+    }
+
+    /**
+     * Sums the running counters into a summary of all processes recorded so far.
+     * <p>
+     * Products are numbered in the order their first process was recorded, like in a
+     * {@link ProcessLog}, and their unit cost and weight are read when the snapshot is taken.
+     * </p>
+     *
+     * @return a new {@link ReportSummary} that does not change with later processes
+     */
+    public ReportSummary snapshot() {
+        int n = registeredCount;
+        ProductCounters[] current = registered;
+        Product[] products = new Product[n];
+        double[] unitCost = new double[n];
+        double[] unitWeight = new double[n];
+        long[] completed = new long[n];
+        for (int id = 0; id < n; id++) {
+            products[id] = current[id].product;
+            unitCost[id] = products[id].getTotalCost();
+            unitWeight[id] = products[id].getTotalWeight();
+            completed[id] = current[id].completed.sum();
+        }
+        long[] failed = new long[failures.length];
+        for (int i = 0; i < failed.length; i++) {
+            failed[i] = failures[i].sum();
+        }
+        return new ReportSummary(products, unitCost, unitWeight, completed, failed);
+    }
+
+    private ProductCounters countersOf(Product product) {
+        ProductCounters c = counters.get(product);
+        return c != null ? c : register(product);
+    }
+
+    // Assigns the next id to a product seen for the first time.
+    private synchronized ProductCounters register(Product product) {
+        ProductCounters c = counters.get(product);
+        if (c == null) {
+            int id = registeredCount;
+            ProductCounters[] current = registered;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, id * 2);
+            }
+            c = new ProductCounters(product);
+            current[id] = c;
+            registered = current;
+            registeredCount = id + 1;
+            counters.put(product, c);
+        }
+        return c;
+    }
+}
@@ -1,27 +1,76 @@
 // ManufactureManager.java
 package org.example;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * Manages the manufacturing processes and can print out the states of all product manufacturing processes.
  * <p>
  * The {@link ManufactureManager} class follows the GRASP principles of Controller and Low Coupling patterns.
  * It acts as a controller over multiple manufacturing processes and provides an overview of the manufacturing results.
  * </p>
+ * <p>
+ * Processes are not retained: their product, state and failure type are appended to a
+ * columnar {@link ProcessLog}, which the reports read from, and counted in a {@link LiveReport}
+ * whose totals can be read while manufacturing is still running.
+ * </p>
  */
 public class ManufactureManager {
-    private final List<ManufacturingProcess> processes = new ArrayList<>();
+    private final ProcessLog log = new ProcessLog();
+    private final LiveReport live = new LiveReport();
+    private volatile InventoryJournal journal; // records process outcomes when set
 
      /**
-     * Adds a {@link ManufacturingProcess} to the manager's list.
+     * Records a processed {@link ManufacturingProcess} in the manager's log.
+     * The log is synchronized since schedulers may add processes from several threads.
      *
      * @param p the {@link ManufacturingProcess} to add
      */
     public void addProcess(ManufacturingProcess p) {
-        processes.add(p);
+        log.append(p);
+        live.record(p);
+        InventoryJournal current = journal;
+        if (current != null) {
+            current.outcome(p);
+        }
+    }
+
+    /**
+     * Records units of a product that were not built because a {@link MaterialPlan} predicted a
+     * stock shortage, as failed with {@link FailureType#STOCK_SHORTAGE}.
+     *
+     * @param product  the product of the units
+     * @param units    the number of units
+     * @param limiting the component that was short, or {@code null} if unknown
+     */
+    public void addShortages(Product product, int units, Component limiting) {
+        InventoryJournal current = journal;
+        for (int i = 0; i < units; i++) {
+            log.append(product, ProcessStatus.FAILED, FailureType.STOCK_SHORTAGE);
+            if (current != null) {
+                current.outcome(product, ProcessStatus.FAILED, FailureType.STOCK_SHORTAGE);
+            }
+        }
+        if (units > 0) {
+            live.record(product, ProcessStatus.FAILED, FailureType.STOCK_SHORTAGE, units);
+        }
+        if (ManufacturingMetrics.ENABLED && units > 0) {
+            ManufacturingMetrics metrics = ManufacturingMetrics.getInstance();
+            ManufacturingMetrics.Recorder recorder = metrics.recorder();
+            recorder.transitions(ProcessStatus.WAITING_FOR_STOCK, units);
+            recorder.transitions(ProcessStatus.FAILED, units);
+            recorder.failures(FailureType.STOCK_SHORTAGE, units);
+            if (limiting != null) {
+                metrics.recordStockOuts(limiting, units);
+            }
+        }
+    }
+
+    /**
+     * Sets the journal that records the outcome of every added process.
+     *
+     * @param journal the {@link InventoryJournal} to append to, or {@code null} to stop journaling
+     */
+    public void setJournal(InventoryJournal journal) {
+        this.journal = journal;
     }
 
     /**
@@ -29,20 +78,38 @@ public class ManufactureManager {
      * The state indicates whether the process is in manufacturing, completed, or failed.
      */
     public void printProcessDetails() {
-        System.out.println("\n=== PRODUCT MANUFACTURING STATES ===");
-        processes.forEach(p ->
-            System.out.printf("Product: %-15s | State: %-25s%n", 
-                             p.getProduct().getName(), p.getStateName()));
+        try (ReportSink sink = ReportSink.console()) {
+            printProcessDetails(sink);
+        }
+    }
+
+    /**
+     * Writes the product name and the state of all processes to a report.
+     *
+     * @param sink the {@link ReportSink} receiving the process states
+     */
+    public void printProcessDetails(ReportSink sink) {
+        sink.section("PRODUCT MANUFACTURING STATES");
+        for (int i = 0; i < log.size(); i++) {
+            sink.processState(log.getProduct(i).getName(), log.getStateName(i));
+        }
+    }
+
+    /**
+     * Returns the log of all recorded manufacturing processes.
+     *
+     * @return the {@link ProcessLog} of this manager
+     */
+    public ProcessLog getLog() {
+        return log;
     }
 
     /**
-     * Returns an unmodifiable view of the list of manufacturing processes to ensure
-     * the internal list isn't modified by external code.
-     * </p>
+     * Returns the running aggregates of all recorded manufacturing processes.
      *
-     * @return an unmodifiable list of {@link ManufacturingProcess} instances
+     * @return the {@link LiveReport} of this manager, readable while processes are recorded
      */
-    public List<ManufacturingProcess> getProcesses() {
-        return Collections.unmodifiableList(processes);
+    public LiveReport getLiveReport() {
+        return live;
     }
 }
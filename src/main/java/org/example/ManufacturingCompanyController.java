@@ -1,8 +1,10 @@
 package org.example;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Acts as the controller for the manufacturing company.
@@ -10,10 +12,29 @@ import java.util.stream.Collectors;
  * <p>
  * The responsibilities of the controller are:
  * <ul>
- *   <li>Load raw materials and product definitions from CSV files with {@link CSVDataLoader}.</li>
+ *   <li>Load raw materials and product definitions from CSV files with {@link CSVDataLoader},
+ *       through a {@link CatalogSnapshot} in the file given by the {@code manufacturing.catalogSnapshot}
+ *       system property, or in the temporary directory by default.</li>
  *   <li>Initialize {@link Inventory} singleton with loaded components.</li>
- *   <li>Delegate manufacturing of all products to {@link ManufacturingService}.</li>
- *   <li>Delegate printing out inventory status and final report to {@link ReportService}.</li>
+ *   <li>Delegate manufacturing of all products to {@link ManufacturingService}, in parallel
+ *       when the {@code manufacturing.parallelism} system property is greater than 1 and in
+ *       batches of {@code manufacturing.batchSize} units.</li>
+ *   <li>Draw the outcomes of units with a {@link Simulation}, reproducibly when the
+ *       {@code manufacturing.seed} system property is set, with the weights of completing, system
+ *       errors and damaged components given as {@code completed,systemError,damaged} by
+ *       {@code manufacturing.outcomes}, or by {@code manufacturing.outcomes.<product name>} for one product.</li>
+ *   <li>Delegate printing out inventory status and final report to {@link ReportService}, written
+ *       as {@code text}, {@code csv} or {@code json} as named by the {@code manufacturing.report}
+ *       system property to the file given by {@code manufacturing.reportFile}, or to the console.</li>
+ *   <li>Print the {@link ManufacturingMetrics} when the {@code manufacturing.metrics} system property is set.</li>
+ *   <li>Predict stock shortages with a {@link MaterialPlanner} before manufacturing when the
+ *       {@code manufacturing.plan} system property is set, or share scarce components by the
+ *       {@link AllocationPolicy} named by the {@code manufacturing.allocation} system property.</li>
+ *   <li>Forecast the distribution of the output with a {@link CapacityPlanner} of as many simulated
+ *       runs as the {@code manufacturing.trials} system property gives, before manufacturing.</li>
+ *   <li>Recover and record the inventory in an {@link InventoryJournal} in the directory given by
+ *       the {@code manufacturing.journal} system property, if set, committed every
+ *       {@code manufacturing.journal.commitMillis} (100) milliseconds.</li>
  * </ul>
  * </p>
  * 
@@ -26,6 +47,10 @@ public class ManufacturingCompanyController {
     private final List<Product> products;
     private final ManufacturingService service;
     private final ReportService reporter;
+    private final InventoryJournal journal;
+    private final MaterialPlanner planner;
+    private final CapacityPlanner capacity;
+    private final int trials;
 
     /**
      * Constructs the controller by loading data from resource files and preparing all services.
@@ -39,19 +64,97 @@ public class ManufacturingCompanyController {
         // Retrieve the singleton inventory instance
         this.inventory = Inventory.getInstance();
 
-        // Load basic components and register them into inventory
-        List<BasicComponent> comps = loader.loadComponents();
+        // Load components and products, from the binary snapshot unless the CSV files changed
+        String snapshot = System.getProperty("manufacturing.catalogSnapshot");
+        CatalogSnapshot catalog = loader.loadCatalog(
+            snapshot != null ? Paths.get(snapshot) : loader.defaultSnapshotFile());
+
+        // Register basic components into inventory
+        List<BasicComponent> comps = catalog.getComponents();
         comps.forEach(inventory::addComponent);
+        this.products = catalog.getProducts();
+
+        // Initialize service and report handlers, running units in parallel, in batches and waiting for stock when configured
+        int parallelism = Integer.getInteger("manufacturing.parallelism", 1);
+        int batchSize   = Integer.getInteger("manufacturing.batchSize", 1);
+        long stockWait  = Long.getLong("manufacturing.stockWait", 0L);
+        Simulation simulation = openSimulation();
+        this.service   = new ManufacturingService(parallelism > 1
+            ? new ParallelScheduler(parallelism, true, batchSize, stockWait)
+            : new RoundRobinScheduler(batchSize, stockWait), simulation, inventory);
+        this.reporter  = new ReportService(inventory, openReport(
+            System.getProperty("manufacturing.report", "text"), System.getProperty("manufacturing.reportFile")));
+        String allocation = System.getProperty("manufacturing.allocation");
+        this.planner   = allocation != null
+            ? new MaterialPlanner(AllocationPolicy.valueOf(allocation.toUpperCase()), batchSize)
+            : Boolean.getBoolean("manufacturing.plan") ? new MaterialPlanner(batchSize) : null;
+        this.trials    = Integer.getInteger("manufacturing.trials", 0);
+        this.capacity  = trials > 0
+            ? new CapacityPlanner(simulation, batchSize, Runtime.getRuntime().availableProcessors())
+            : null;
+
+        // Replay the journal of earlier runs and keep recording into it when configured
+        this.journal   = openJournal(System.getProperty("manufacturing.journal"), comps);
+    }
+
+    // Creates the simulation configured by the seed and outcome weight properties.
+    private Simulation openSimulation() {
+        Long seed = Long.getLong("manufacturing.seed");
+        Simulation simulation = seed != null ? new Simulation(seed) : new Simulation();
+        String weights = System.getProperty("manufacturing.outcomes");
+        if (weights != null) {
+            double[] w = parseWeights(weights);
+            simulation = simulation.withOutcomes(w[0], w[1], w[2]);
+        }
+        for (Product p : products) {
+            String productWeights = System.getProperty("manufacturing.outcomes." + p.getName());
+            if (productWeights != null) {
+                double[] w = parseWeights(productWeights);
+                simulation = simulation.withOutcomes(p, w[0], w[1], w[2]);
+            }
+        }
+        return simulation;
+    }
 
-        // Build a lookup table for component name to Component instance
-        Map<String, Component> lookup = comps.stream()
-            .collect(Collectors.toMap(Component::getName, c -> c));
-        // Load products using the lookup for required components
-        this.products = loader.loadProducts(lookup);
+    // Parses the comma separated weights of completing, system errors and damaged components.
+    private static double[] parseWeights(String weights) {
+        String[] parts = weights.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected completed,systemError,damaged weights: " + weights);
+        }
+        double[] w = new double[3];
+        for (int i = 0; i < 3; i++) {
+            w[i] = Double.parseDouble(parts[i].trim());
+        }
+        return w;
+    }
+
+    // Opens the report sink in the given format, writing to the console if there is no file.
+    private static ReportSink openReport(String format, String file) {
+        try {
+            return ReportSink.open(format, file != null ? Paths.get(file) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open report file " + file, e);
+        }
+    }
 
-        // Initialize service and report handlers
-        this.service   = new ManufacturingService();
-        this.reporter  = new ReportService(inventory);
+    // Opens and recovers the journal in the given directory, or returns null if there is none.
+    private InventoryJournal openJournal(String directory, List<BasicComponent> comps) {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            InventoryJournal opened = new InventoryJournal(Paths.get(directory), comps, products);
+            long replayed = opened.recover(null);
+            reporter.printJournalRecovery(replayed);
+            inventory.setJournal(opened);
+            service.getManager().setJournal(opened);
+            opened.startPeriodicCommit(Long.getLong("manufacturing.journal.commitMillis", 100L),
+                TimeUnit.MILLISECONDS);
+            return opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + directory, e);
+        }
     }
 
     /**
@@ -61,13 +164,42 @@ public class ManufacturingCompanyController {
      * process states and the final summary report.
      */
     public void run() {
-        // Execute manufacturing processes for all products
-        List<ManufacturingProcess> processes = service.manufacture(products);
+        // Forecast the spread of the output over many simulated runs before building
+        if (capacity != null) {
+            reporter.printCapacityForecast(capacity.forecast(products, trials));
+        }
+
+        // Execute manufacturing processes for all products, skipping the units the plan predicts to fail
+        if (planner != null) {
+            MaterialPlan plan = planner.plan(products);
+            reporter.printMaterialPlan(plan);
+            service.manufacture(products, plan);
+        } else {
+            service.manufacture(products);
+        }
+        // Release the worker threads of the scheduler
+        service.close();
 
         // Display current inventory levels and manufacturing states
         reporter.printProcessDetails(service.getManager());
 
-        // Display a consolidated final report of successes and failures
-        reporter.printFinalReport(processes);
+        // Display a consolidated final report of successes and failures, counted while manufacturing
+        reporter.printFinalReport(service.getManager().getLiveReport().snapshot());
+
+        // Display the pipeline metrics when they are collected
+        if (ManufacturingMetrics.ENABLED) {
+            reporter.printMetrics(ManufacturingMetrics.getInstance().snapshot());
+        }
+        reporter.close();
+
+        // Persist the final inventory so the next start only replays later changes
+        if (journal != null) {
+            try {
+                journal.snapshot();
+                journal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write journal snapshot", e);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,378 @@
+package org.example;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A low-overhead registry of metrics for the manufacturing pipeline, implemented as a singleton.
+ * <p>
+ * The registry counts the processes entering each {@link ProcessStatus}, the failures per
+ * {@link FailureType} and the stock-outs per component, and records the time spent in each
+ * state's {@code proceed} in a {@link LatencyHistogram}. Transition and failure counters are
+ * kept per thread and only written by their owning thread with opaque stores, so counting is a
+ * plain increment without atomic instructions, and snapshots sum the counters of all threads.
+ * The counters of threads that have terminated are merged into a retired total and dropped, so
+ * short-lived worker threads do not make the registry or its snapshots grow.
+ * Batches of units look up the counters of their thread once instead of on every transition.
+ * </p>
+ * <p>
+ * Reading the clock costs about as much as a state transition, so only one in
+ * {@code manufacturing.metrics.sampling} calls to {@code proceed} is timed on average, 64 by
+ * default. The gaps between timed calls are random, so they do not line up with the repeating
+ * states of the units. Counts are always exact, the histograms hold a uniform sample of the latencies.
+ * </p>
+ * <p>
+ * Metrics are only collected when the {@code manufacturing.metrics} system property is
+ * {@code true}. Callers check the constant {@link #ENABLED} before recording, which the JIT
+ * folds away when metrics are disabled.
+ * </p>
+ */
+public class ManufacturingMetrics {
+    /**
+     * Whether metrics are collected, set by the {@code manufacturing.metrics} system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("manufacturing.metrics");
+
+    // One in this many proceed calls is timed.
+    private static final int SAMPLING = Math.max(1, Integer.getInteger("manufacturing.metrics.sampling", 64));
+
+    private static final ProcessStatus[] STATUSES = ProcessStatus.values();
+    private static final FailureType[] FAILURES = FailureType.values();
+    // Counter slots of a thread: transitions per status, then failures per type.
+    private static final int SLOTS = STATUSES.length + FAILURES.length;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static ManufacturingMetrics instance = new ManufacturingMetrics();
+
+    // Counters of every live thread that recorded a metric.
+    private final Queue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+    // Sum of the counters of terminated threads, guarded by itself.
+    private final long[] retired = new long[SLOTS];
+    private final ThreadLocal<Recorder> recorder = ThreadLocal.withInitial(() -> {
+        retireTerminated();
+        Recorder counters = new Recorder(Thread.currentThread());
+        recorders.add(counters);
+        return counters;
+    });
+    private final LatencyHistogram[] latencies = new LatencyHistogram[STATUSES.length];
+    private final Map<String, LongAdder> stockOuts = new ConcurrentHashMap<>();
+
+    private ManufacturingMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Retrieves the singleton instance of the {@link ManufacturingMetrics}.
+     *
+     * @return the single {@link ManufacturingMetrics} instance
+     */
+    public static ManufacturingMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Counts a process entering a state.
+     *
+     * @param status the status of the state entered
+     */
+    public void recordTransition(ProcessStatus status) {
+        recorder.get().transitions(status, 1);
+    }
+
+    /**
+     * Decides whether the current call to {@code proceed} should be timed.
+     *
+     * @return {@code true} for one in {@code manufacturing.metrics.sampling} calls on average
+     */
+    public boolean sampleLatency() {
+        return recorder.get().sampleLatency();
+    }
+
+    /**
+     * Records the time a state took to proceed.
+     *
+     * @param status the status of the state that proceeded
+     * @param nanos  the elapsed time in nanoseconds
+     */
+    public void recordLatency(ProcessStatus status, long nanos) {
+        latencies[status.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts a failed process.
+     *
+     * @param type the reason of the failure
+     */
+    public void recordFailure(FailureType type) {
+        recorder.get().failures(type, 1);
+    }
+
+    /**
+     * Counts a reservation that found a component out of stock.
+     *
+     * @param component the component that limited the reservation
+     */
+    public void recordStockOut(Component component) {
+        recordStockOuts(component, 1);
+    }
+
+    /**
+     * Counts units that found a component out of stock.
+     *
+     * @param component the component that limited the units
+     * @param count     the number of units
+     */
+    public void recordStockOuts(Component component, long count) {
+        stockOuts.computeIfAbsent(component.getName(), name -> new LongAdder()).add(count);
+    }
+
+    /**
+     * Returns the counters of the calling thread, for code recording many metrics in a row.
+     *
+     * @return the {@link Recorder} of the calling thread, which only that thread may use
+     */
+    Recorder recorder() {
+        return recorder.get();
+    }
+
+    // Merges the counters of terminated threads into the retired total and drops them. A thread
+    // that is no longer alive has finished all its writes, so its counters are read exactly.
+    private void retireTerminated() {
+        synchronized (retired) {
+            for (Iterator<Recorder> it = recorders.iterator(); it.hasNext(); ) {
+                Recorder counters = it.next();
+                if (!counters.owner.isAlive()) {
+                    for (int i = 0; i < SLOTS; i++) {
+                        retired[i] += counters.slots[i];
+                    }
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of threads whose counters are still kept apart from the retired total.
+     *
+     * @return the number of registered {@link Recorder}s
+     */
+    int recorderCount() {
+        return recorders.size();
+    }
+
+    // Returns the number of proceed calls until the next timed one, SAMPLING on average.
+    private static int nextGap() {
+        return SAMPLING == 1 ? 1 : 1 + ThreadLocalRandom.current().nextInt(2 * SAMPLING - 1);
+    }
+
+    /**
+     * Takes a snapshot of all metrics without stopping the manufacturing threads.
+     *
+     * @return the current values of all metrics
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Prints a snapshot to the given stream at a fixed rate on a daemon thread.
+     *
+     * @param out    the stream to print to
+     * @param period the time between two dumps
+     * @param unit   the unit of the period
+     * @return the executor running the dumps, shut it down to stop dumping
+     */
+    public ScheduledExecutorService startPeriodicDump(PrintStream out, long period, TimeUnit unit) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "manufacturing-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> out.print(snapshot()), period, period, unit);
+        return executor;
+    }
+
+    /**
+     * The transition and failure counters of one thread and its countdown to the next timed call.
+     * <p>
+     * Only the owning thread writes the counters, with opaque stores, so snapshots read them
+     * without stopping the thread.
+     * </p>
+     */
+    static final class Recorder {
+        private final Thread owner;
+        private final long[] slots = new long[SLOTS]; // transitions per status, then failures per type
+        private int untilSample = nextGap();
+
+        private Recorder(Thread owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Counts processes entering a state.
+         *
+         * @param status the status of the state entered
+         * @param count  the number of processes
+         */
+        void transitions(ProcessStatus status, long count) {
+            add(status.ordinal(), count);
+        }
+
+        /**
+         * Counts failed processes.
+         *
+         * @param type  the reason of the failures
+         * @param count the number of processes
+         */
+        void failures(FailureType type, long count) {
+            add(STATUSES.length + type.ordinal(), count);
+        }
+
+        /**
+         * Decides whether the current call to {@code proceed} should be timed.
+         *
+         * @return {@code true} for one in {@code manufacturing.metrics.sampling} calls on average
+         */
+        boolean sampleLatency() {
+            if (--untilSample > 0) {
+                return false;
+            }
+            untilSample = nextGap();
+            return true;
+        }
+
+        private void add(int slot, long count) {
+            SLOT.setOpaque(slots, slot, (long) SLOT.getOpaque(slots, slot) + count);
+        }
+    }
+
+    /**
+     * An immutable point-in-time copy of the metrics.
+     */
+    public static class Snapshot {
+        private final Map<ProcessStatus, Long> entered = new EnumMap<>(ProcessStatus.class);
+        private final Map<ProcessStatus, LatencyHistogram.Snapshot> latencies = new EnumMap<>(ProcessStatus.class);
+        private final Map<FailureType, Long> failures = new EnumMap<>(FailureType.class);
+        private final Map<String, Long> stockOuts = new TreeMap<>();
+        private final long timestamp = System.nanoTime();
+
+        private Snapshot(ManufacturingMetrics metrics) {
+            long[] totals;
+            // Retire and sum under the same lock, so no recorder is counted twice or missed
+            synchronized (metrics.retired) {
+                metrics.retireTerminated();
+                totals = metrics.retired.clone();
+                for (Recorder recorder : metrics.recorders) {
+                    for (int i = 0; i < SLOTS; i++) {
+                        totals[i] += (long) SLOT.getOpaque(recorder.slots, i);
+                    }
+                }
+            }
+            for (ProcessStatus status : STATUSES) {
+                entered.put(status, totals[status.ordinal()]);
+                latencies.put(status, metrics.latencies[status.ordinal()].snapshot());
+            }
+            for (FailureType type : FAILURES) {
+                failures.put(type, totals[STATUSES.length + type.ordinal()]);
+            }
+            metrics.stockOuts.forEach((name, count) -> stockOuts.put(name, count.sum()));
+        }
+
+        /**
+         * Returns the number of processes that entered a state.
+         *
+         * @param status the status of the state
+         * @return the number of transitions into that state
+         */
+        public long getTransitions(ProcessStatus status) {
+            return entered.get(status);
+        }
+
+        /**
+         * Returns the latency histogram of a state.
+         *
+         * @param status the status of the state
+         * @return the snapshot of the time spent proceeding from that state
+         */
+        public LatencyHistogram.Snapshot getLatency(ProcessStatus status) {
+            return latencies.get(status);
+        }
+
+        /**
+         * Returns the number of failures of a type.
+         *
+         * @param type the failure type
+         * @return the number of failures
+         */
+        public long getFailures(FailureType type) {
+            return failures.get(type);
+        }
+
+        /**
+         * Returns the stock-out counts per component name.
+         *
+         * @return a sorted map of component names to stock-out counts
+         */
+        public Map<String, Long> getStockOuts() {
+            return stockOuts;
+        }
+
+        /**
+         * Returns the {@link System#nanoTime()} the snapshot was taken at, to compute rates between snapshots.
+         *
+         * @return the time of the snapshot in nanoseconds
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Formats the snapshot as the lines of a report, without line separators.
+         *
+         * @return the formatted transitions, latencies, failures and stock-outs
+         */
+        public List<String> lines() {
+            List<String> lines = new ArrayList<>();
+            for (ProcessStatus status : ProcessStatus.values()) {
+                LatencyHistogram.Snapshot latency = latencies.get(status);
+                lines.add(String.format("%-18s entered: %10d | proceed p50: %8d ns | p99: %8d ns | max: %10d ns",
+                        status, entered.get(status), latency.getPercentile(0.5),
+                        latency.getPercentile(0.99), latency.getPercentile(1.0)));
+            }
+            failures.forEach((type, count) -> lines.add(String.format("Failures due to %-18s %d", type + ":", count)));
+            stockOuts.forEach((name, count) -> lines.add(String.format("Stock-outs of %-20s %d", name + ":", count)));
+            return lines;
+        }
+
+        /**
+         * Formats the snapshot as a multi-line report.
+         *
+         * @return the formatted metrics
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("=== MANUFACTURING METRICS ===\n");
+            for (String line : lines()) {
+                sb.append(line).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package org.example;
 
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Represents a manufacturing process for a single product unit.
  * <p>
@@ -9,9 +13,23 @@ package org.example;
  * product being manufactured and handles transitions between different process states.
  * It can also hold the failure reason when the class transitions to {@link FailedState}.
  * </p>
+ * <p>
+ * The outcome of the unit is drawn by the {@link Simulation} of the process, from the random
+ * stream of the unit when the simulation is seeded. Stock is reserved from and built units are
+ * added to the {@link Inventory} of the process, so runs on different inventories are independent.
+ * </p>
+ * <p>
+ * A process of a scheduler that waits for stock is parked in {@link WaitingForStockState} when its
+ * stock is short, and resumed when the inventory is restocked, see {@link Inventory#restock(String, double)}.
+ * </p>
  */
 public class ManufacturingProcess {
     private final Product product;
+    private final Simulation simulation;
+    private final Inventory inventory;
+    private final SplittableRandom random; // the stream of the unit, null when unseeded
+    private final WaitingProcesses waiting; // parks the process while stock is short, null to fail at once
+    private ManufacturingMetrics.Recorder recorder; // metrics of the thread building its batch, null to look up
     private ManufacturingState state;
     private FailureType failureType;
 
@@ -22,8 +40,216 @@ public class ManufacturingProcess {
      * @param product the product to be manufactured
      */
     public ManufacturingProcess(Product product) {
+        this(product, Simulation.DEFAULT, 0);
+    }
+
+    /**
+     * Initializes a new manufacturing process for a unit of a product simulated by the given
+     * {@link Simulation}, in the "waiting for stock" state.
+     *
+     * @param product    the product to be manufactured
+     * @param simulation the simulation drawing the outcome
+     * @param unit       the position of the unit among the units of the product, from 0
+     */
+    public ManufacturingProcess(Product product, Simulation simulation, long unit) {
+        this(product, simulation, unit, Inventory.getInstance());
+    }
+
+    /**
+     * Initializes a new manufacturing process for a unit of a product built from the given
+     * {@link Inventory}, in the "waiting for stock" state.
+     *
+     * @param product    the product to be manufactured
+     * @param simulation the simulation drawing the outcome
+     * @param unit       the position of the unit among the units of the product, from 0
+     * @param inventory  the inventory the stock is reserved from and the unit is added to
+     */
+    public ManufacturingProcess(Product product, Simulation simulation, long unit, Inventory inventory) {
+        this(product, WaitingForStockState.getInstance(), simulation, unit, inventory, null, null);
+    }
+
+    /**
+     * Initializes a new manufacturing process that waits for short stock with the given group,
+     * in the "waiting for stock" state.
+     *
+     * @param product    the product to be manufactured
+     * @param simulation the simulation drawing the outcome
+     * @param unit       the position of the unit among the units of the product, from 0
+     * @param inventory  the inventory the stock is reserved from and the unit is added to
+     * @param waiting    the group parking the process while its stock is short, or {@code null} to fail at once
+     */
+    ManufacturingProcess(Product product, Simulation simulation, long unit, Inventory inventory,
+                         WaitingProcesses waiting) {
+        this(product, WaitingForStockState.getInstance(), simulation, unit, inventory, waiting, null);
+    }
+
+    /**
+     * Initializes a new manufacturing process for a product in the given state.
+     *
+     * @param product    the product to be manufactured
+     * @param state      the initial {@link ManufacturingState} of the process
+     * @param simulation the simulation drawing the outcome
+     * @param unit       the position of the unit among the units of the product
+     * @param inventory  the inventory the stock is reserved from and the unit is added to
+     * @param waiting    the group parking the process while its stock is short, or {@code null}
+     * @param recorder   the metrics of the thread building the batch of the process, or {@code null}
+     */
+    private ManufacturingProcess(Product product, ManufacturingState state, Simulation simulation, long unit,
+                                 Inventory inventory, WaitingProcesses waiting, ManufacturingMetrics.Recorder recorder) {
         this.product = product;
-        this.state = new WaitingForStockState();
+        this.simulation = simulation;
+        this.inventory = inventory;
+        this.waiting = waiting;
+        this.recorder = recorder;
+        this.random = simulation.unitStream(product, unit);
+        this.state = state;
+        if (ManufacturingMetrics.ENABLED) {
+            countTransition(state.getStatus());
+        }
+    }
+
+    /**
+     * Manufactures a batch of units of a product with a single stock reservation.
+     * <p>
+     * Instead of passing every unit through {@link WaitingForStockState}, the maximum number of
+     * buildable units is reserved at once with {@link Inventory#reserveUpTo(Product, int)}.
+     * Each reserved unit then starts in {@link InManufacturingState} and resolves its own outcome,
+     * while the units that could not be reserved fail with {@code STOCK_SHORTAGE}.
+     * </p>
+     *
+     * @param product the product to be manufactured
+     * @param units   the number of units requested
+     * @return the processed {@link ManufacturingProcess} of every requested unit
+     */
+    public static ManufacturingProcess[] processBatch(Product product, int units) {
+        return processBatch(product, units, Simulation.DEFAULT, 0);
+    }
+
+    /**
+     * Manufactures a batch of consecutive units of a product with a single stock reservation.
+     *
+     * @param product    the product to be manufactured
+     * @param units      the number of units requested
+     * @param simulation the simulation drawing the outcomes
+     * @param firstUnit  the position of the first unit of the batch among the units of the product
+     * @return the processed {@link ManufacturingProcess} of every requested unit
+     * @see #processBatch(Product, int)
+     */
+    public static ManufacturingProcess[] processBatch(Product product, int units, Simulation simulation,
+                                                      long firstUnit) {
+        return processBatch(product, units, simulation, firstUnit, Inventory.getInstance());
+    }
+
+    /**
+     * Manufactures a batch of consecutive units of a product from the given {@link Inventory} with
+     * a single stock reservation.
+     *
+     * @param product    the product to be manufactured
+     * @param units      the number of units requested
+     * @param simulation the simulation drawing the outcomes
+     * @param firstUnit  the position of the first unit of the batch among the units of the product
+     * @param inventory  the inventory the stock is reserved from and the units are added to
+     * @return the processed {@link ManufacturingProcess} of every requested unit
+     * @see #processBatch(Product, int)
+     */
+    public static ManufacturingProcess[] processBatch(Product product, int units, Simulation simulation,
+                                                      long firstUnit, Inventory inventory) {
+        int reserved = inventory.reserveUpTo(product, units);
+        return processReserved(product, units, reserved, simulation, firstUnit, inventory);
+    }
+
+    /**
+     * Manufactures a batch of consecutive units of a product, parking the units whose stock is short
+     * with the given group instead of failing them.
+     *
+     * @param product    the product to be manufactured
+     * @param units      the number of units requested
+     * @param simulation the simulation drawing the outcomes
+     * @param firstUnit  the position of the first unit of the batch among the units of the product
+     * @param inventory  the inventory the stock is reserved from and the units are added to
+     * @param waiting    the group parking the units, or {@code null} to fail them
+     * @return the processed {@link ManufacturingProcess} of every unit that was not parked
+     */
+    static ManufacturingProcess[] processBatch(Product product, int units, Simulation simulation, long firstUnit,
+                                               Inventory inventory, WaitingProcesses waiting) {
+        if (waiting == null) {
+            return processBatch(product, units, simulation, firstUnit, inventory);
+        }
+        int reserved = inventory.reserveUpTo(product, units, waiting);
+        return processReserved(product, units, reserved, simulation, firstUnit, inventory, waiting);
+    }
+
+    /**
+     * Manufactures a batch of consecutive units of a product whose stock was reserved beforehand
+     * with {@link Inventory#reserveUpTo(Product, int)}.
+     * <p>
+     * The reserved units resolve their outcomes, the others fail with {@code STOCK_SHORTAGE}.
+     * Schedulers use this to reserve stock in a fixed order and build the units concurrently.
+     * The units of the batch record their metrics with the counters of the calling thread, which
+     * are looked up once per batch.
+     * </p>
+     *
+     * @param product    the product to be manufactured
+     * @param units      the number of units requested
+     * @param reserved   the number of units whose stock is reserved
+     * @param simulation the simulation drawing the outcomes
+     * @param firstUnit  the position of the first unit of the batch among the units of the product
+     * @param inventory  the inventory the stock was reserved from, which the completed units are added to
+     * @return the processed {@link ManufacturingProcess} of every requested unit
+     */
+    public static ManufacturingProcess[] processReserved(Product product, int units, int reserved,
+                                                         Simulation simulation, long firstUnit,
+                                                         Inventory inventory) {
+        return processReserved(product, units, reserved, simulation, firstUnit, inventory, null);
+    }
+
+    /**
+     * Manufactures a batch of consecutive units of a product whose stock was reserved beforehand
+     * with {@link Inventory#reserveUpTo(Product, int, StockWaiter)}, parking the other units with
+     * the group that queued them.
+     *
+     * @param product    the product to be manufactured
+     * @param units      the number of units requested
+     * @param reserved   the number of units whose stock is reserved
+     * @param simulation the simulation drawing the outcomes
+     * @param firstUnit  the position of the first unit of the batch among the units of the product
+     * @param inventory  the inventory the stock was reserved from, which the completed units are added to
+     * @param waiting    the group the other units queued with, or {@code null} to fail them
+     * @return the processed {@link ManufacturingProcess} of every unit that was not parked
+     */
+    static ManufacturingProcess[] processReserved(Product product, int units, int reserved, Simulation simulation,
+                                                  long firstUnit, Inventory inventory, WaitingProcesses waiting) {
+        ManufacturingProcess[] batch = new ManufacturingProcess[units];
+        ManufacturingMetrics.Recorder recorder =
+                ManufacturingMetrics.ENABLED ? ManufacturingMetrics.getInstance().recorder() : null;
+        int size = 0;
+        for (int i = 0; i < units; i++) {
+            ManufacturingProcess proc;
+            if (i < reserved) {
+                proc = new ManufacturingProcess(product, InManufacturingState.getInstance(), simulation,
+                        firstUnit + i, inventory, waiting, recorder);
+                proc.proceed();
+            } else if (waiting != null) {
+                proc = new ManufacturingProcess(product, simulation, firstUnit + i, inventory, waiting);
+                if (waiting.park(proc)) {
+                    continue; // owned by the group now, a restock resumes and records it
+                }
+                proc.setState(InManufacturingState.getInstance());
+                proc.proceed();
+            } else {
+                proc = new ManufacturingProcess(product, FailedState.getInstance(), simulation,
+                        firstUnit + i, inventory, null, recorder);
+                proc.setFailureType(FailureType.STOCK_SHORTAGE);
+            }
+            batch[size++] = proc;
+        }
+        if (recorder != null) {
+            // The processes may change state on other threads later
+            for (int i = 0; i < size; i++) {
+                batch[i].recorder = null;
+            }
+        }
+        return size == units ? batch : Arrays.copyOf(batch, size);
     }
 
     /**
@@ -35,6 +261,43 @@ public class ManufacturingProcess {
         return product;
     }
 
+    /**
+     * Gets the simulation drawing the outcome of this process.
+     *
+     * @return the {@link Simulation} of the process
+     */
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * Gets the inventory this process reserves its stock from and adds its unit to.
+     *
+     * @return the {@link Inventory} of the process
+     */
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Gets the group that parks this process while its stock is short.
+     *
+     * @return the {@link WaitingProcesses} of the run, or {@code null} if the process fails at once
+     */
+    WaitingProcesses getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * Draws the next random number of this unit, from its seeded stream or from the
+     * {@link ThreadLocalRandom} of the calling thread.
+     *
+     * @return a random number in [0, 1)
+     */
+    public double nextRandom() {
+        return random != null ? random.nextDouble() : ThreadLocalRandom.current().nextDouble();
+    }
+
     /**
      * Gets the failure type of the manufacturing process.
      *
@@ -51,6 +314,13 @@ public class ManufacturingProcess {
      */
     public void setFailureType(FailureType ft) {
         this.failureType = ft;
+        if (ManufacturingMetrics.ENABLED && ft != null) {
+            if (recorder != null) {
+                recorder.failures(ft, 1);
+            } else {
+                ManufacturingMetrics.getInstance().recordFailure(ft);
+            }
+        }
     }
 
     /**
@@ -60,25 +330,70 @@ public class ManufacturingProcess {
      */
     public void setState(ManufacturingState state) {
         this.state = state;
+        if (ManufacturingMetrics.ENABLED) {
+            countTransition(state.getStatus());
+        }
+    }
+
+    // Counts a transition with the recorder of the batch, or with the one of the current thread.
+    private void countTransition(ProcessStatus status) {
+        if (recorder != null) {
+            recorder.transitions(status, 1);
+        } else {
+            ManufacturingMetrics.getInstance().recordTransition(status);
+        }
     }
 
     /**
      * Transitions the manufacturing process to the next state based on the current state
      * by delegating the state transition to the current state's {@code proceed} method.
+     * When metrics are enabled, the time spent in {@code proceed} is sampled for the state.
      */
     public void proceed() {
-        state.proceed(this);
+        if (ManufacturingMetrics.ENABLED && sampleLatency()) {
+            proceedTimed();
+        } else {
+            state.proceed(this);
+        }
+    }
+
+    // Decides with the recorder of the batch, or with the one of the current thread, whether to time this call.
+    private boolean sampleLatency() {
+        return recorder != null ? recorder.sampleLatency() : ManufacturingMetrics.getInstance().sampleLatency();
+    }
+
+    // Proceeds and records the time taken. Kept out of proceed, so it stays small enough to inline.
+    private void proceedTimed() {
+        ManufacturingState current = state;
+        long start = System.nanoTime();
+        current.proceed(this);
+        ManufacturingMetrics.getInstance().recordLatency(current.getStatus(), System.nanoTime() - start);
     }
 
     /**
      * Processes the manufacturing by advancing through the states, 
      * if the state is {@link InManufacturingState} the state is advanced again.
+     * <p>
+     * A process that waits for stock may be parked instead. Its {@link WaitingProcesses} then owns
+     * it: a restock resumes it on another thread and hands it to the {@link ManufactureManager}, so
+     * the caller must neither read nor record it.
+     * </p>
+     *
+     * @return {@code true} if the process was processed and the caller records it, {@code false}
+     *         if it was parked
      */
-    public void processManufacturing() {
-        state.proceed(this);
+    public boolean processManufacturing() {
+        if (waiting != null && state == WaitingForStockState.getInstance()) {
+            if (WaitingForStockState.getInstance().reserveOrPark(this)) {
+                return false;
+            }
+        } else {
+            proceed();
+        }
         if (state instanceof InManufacturingState) {
-            state.proceed(this);
+            proceed();
         }
+        return true;
     }
 
      /**
@@ -93,4 +408,13 @@ public class ManufacturingProcess {
     public String getStateName() {
         return state.getStateName(this);
     }
+
+    /**
+     * Retrieves the status of the current state of the manufacturing process.
+     *
+     * @return the {@link ProcessStatus} of the current state
+     */
+    public ProcessStatus getStatus() {
+        return state.getStatus();
+    }
 }
@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Defines how the units of a list of products are dispatched for manufacturing.
+ * <p>
+ * A {@link ManufacturingService} delegates the unit builds to a scheduler, which creates a
+ * {@link ManufacturingProcess} for each unit, processes it and hands it to the
+ * {@link ManufactureManager}. Implementations decide the order and the threads the units are
+ * built on, for example {@link RoundRobinScheduler} or {@link ParallelScheduler}. Schedulers keep
+ * no state between calls other than their worker threads, so one scheduler can serve runs on
+ * several inventories at once. Close a scheduler once no more runs are scheduled on it.
+ * </p>
+ */
+public interface ManufacturingScheduler extends AutoCloseable {
+    /**
+     * Manufactures the given number of units for each product with random outcomes.
+     *
+     * @param products the products to manufacture
+     * @param units    the number of units to build for each product, indexed like {@code products}
+     * @param manager  the manager that receives every processed {@link ManufacturingProcess}
+     */
+    default void schedule(List<Product> products, int[] units, ManufactureManager manager) {
+        schedule(products, units, manager, Simulation.DEFAULT);
+    }
+
+    /**
+     * Manufactures the given number of units for each product, drawing their outcomes with the given
+     * {@link Simulation}.
+     * <p>
+     * The {@code k}-th unit built of a product, counted from 0, is simulated as unit {@code k}.
+     * For a seeded simulation, implementations reserve stock in an order that does not depend on
+     * thread timing, so the results are reproducible.
+     * </p>
+     *
+     * @param products   the products to manufacture
+     * @param units      the number of units to build for each product, indexed like {@code products}
+     * @param manager    the manager that receives every processed {@link ManufacturingProcess}
+     * @param simulation the simulation drawing the outcomes of the units
+     */
+    default void schedule(List<Product> products, int[] units, ManufactureManager manager, Simulation simulation) {
+        schedule(products, units, manager, simulation, Inventory.getInstance());
+    }
+
+    /**
+     * Manufactures the given number of units for each product from the given {@link Inventory}.
+     *
+     * @param products   the products to manufacture
+     * @param units      the number of units to build for each product, indexed like {@code products}
+     * @param manager    the manager that receives every processed {@link ManufacturingProcess}
+     * @param simulation the simulation drawing the outcomes of the units
+     * @param inventory  the inventory the stock is reserved from and the built units are added to
+     */
+    void schedule(List<Product> products, int[] units, ManufactureManager manager, Simulation simulation,
+                  Inventory inventory);
+
+    /**
+     * Releases the worker threads of the scheduler, after which it cannot schedule any more units.
+     * Schedulers building on the calling thread have nothing to release.
+     */
+    @Override
+    default void close() {
+    }
+}
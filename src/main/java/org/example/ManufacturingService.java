@@ -1,5 +1,6 @@
 package org.example;
-import java.util.*;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A service class responsible for processing the manufacturing processes
@@ -9,8 +10,52 @@ import java.util.*;
  * tracks progress, and ensures the correct number of products are manufactured.
  * </p>
  */
-public class ManufacturingService {
+public class ManufacturingService implements AutoCloseable {
     private final ManufactureManager manager = new ManufactureManager();
+    private final ManufacturingScheduler scheduler;
+    private final Simulation simulation;
+    private final Inventory inventory;
+
+    /**
+     * Constructs a service that builds units one at a time with a {@link RoundRobinScheduler}.
+     */
+    public ManufacturingService() {
+        this(new RoundRobinScheduler());
+    }
+
+    /**
+     * Constructs a service that dispatches unit builds with the given scheduler.
+     *
+     * @param scheduler the {@link ManufacturingScheduler} deciding the order and threads of unit builds
+     */
+    public ManufacturingService(ManufacturingScheduler scheduler) {
+        this(scheduler, Simulation.DEFAULT);
+    }
+
+    /**
+     * Constructs a service that dispatches unit builds with the given scheduler and draws their
+     * outcomes with the given simulation.
+     *
+     * @param scheduler  the {@link ManufacturingScheduler} deciding the order and threads of unit builds
+     * @param simulation the {@link Simulation} drawing the outcome of every unit
+     */
+    public ManufacturingService(ManufacturingScheduler scheduler, Simulation simulation) {
+        this(scheduler, simulation, Inventory.getInstance());
+    }
+
+    /**
+     * Constructs a service that builds from the given inventory, so several services can run
+     * independent plants or order books at the same time.
+     *
+     * @param scheduler  the {@link ManufacturingScheduler} deciding the order and threads of unit builds
+     * @param simulation the {@link Simulation} drawing the outcome of every unit
+     * @param inventory  the {@link Inventory} the stock is reserved from and the built units are added to
+     */
+    public ManufacturingService(ManufacturingScheduler scheduler, Simulation simulation, Inventory inventory) {
+        this.scheduler = scheduler;
+        this.simulation = simulation;
+        this.inventory = inventory;
+    }
 
     /**
      * Returns the {@link ManufactureManager} instance used by this service.
@@ -25,39 +70,103 @@ public class ManufacturingService {
      * Initiates the manufacturing process for each product in the given list.
      * <p>
      * Each product is processed unit-by-unit until its original quantity is fulfilled.
-     * The method creates and processes a {@link ManufacturingProcess} for each unit,
-     * updates the manager with each process, processes each process with the manager
-     * and finally returns the full list of processes.
+     * The units are dispatched by the configured {@link ManufacturingScheduler}, which creates
+     * and processes a {@link ManufacturingProcess} for each unit and updates the manager with it.
+     * Products requiring sub-assemblies are built after them, see {@link #build(List, int[])}.
+     * Finally the log of all processes is returned.
      * </p>
      *
      * @param products the list of products to be manufactured
-     * @return a list of {@link ManufacturingProcess} instances representing all manufacturing work
+     * @return the {@link ProcessLog} representing all manufacturing work
      */
-    public List<ManufacturingProcess> manufacture(List<Product> products) {
+    public ProcessLog manufacture(List<Product> products) {
         
-        // Create a map to track how many units remain to be produced for each product
-        Map<Product, Double> remaining = new LinkedHashMap<>();
-        for (Product p : products) {
-            remaining.put(p, (double) p.getQuantity());
-            p.setQuantity(0); // Reset quantity for tracking during manufacturing
+        // Track how many units remain to be produced for each product
+        int[] units = new int[products.size()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = (int) products.get(i).getQuantity();
         }
+        return build(products, units);
+    }
 
-        // Iteratively process units of products until all processes are finished
-        boolean workLeft;
-        do {
-            workLeft = false;
-            for (Product prod : products) {
-                double left = remaining.get(prod);
-                if (left > 0) {
-                    ManufacturingProcess proc = new ManufacturingProcess(prod);
-                    proc.processManufacturing();
-                    manager.addProcess(proc);
-                    remaining.put(prod, left - 1);
-                    workLeft = true;
-                }
+    /**
+     * Manufactures the feasible units of a {@link MaterialPlan} of the given products.
+     * <p>
+     * The units the plan predicts to fail for lack of stock are recorded as failed with
+     * {@link FailureType#STOCK_SHORTAGE} without creating a {@link ManufacturingProcess},
+     * and only the feasible units are dispatched by the scheduler.
+     * </p>
+     *
+     * @param products the list of products to be manufactured
+     * @param plan     the plan made by a {@link MaterialPlanner} for the products
+     * @return the {@link ProcessLog} representing all manufacturing work
+     */
+    public ProcessLog manufacture(List<Product> products, MaterialPlan plan) {
+        if (plan.getProducts().size() != products.size()) {
+            throw new IllegalArgumentException("The plan covers " + plan.getProducts().size()
+                    + " products, expected " + products.size());
+        }
+        int[] units = new int[products.size()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = plan.getFeasibleUnits(i);
+            manager.addShortages(products.get(i), plan.getShortUnits(i), plan.getLimitingComponent(i));
+        }
+        return build(products, units);
+    }
+
+    /**
+     * Builds the given units of each product, with the sub-assemblies they need.
+     * <p>
+     * For single-level products the units are handed to the scheduler as they are. When a product
+     * requires other products, a {@link BillOfMaterials} adds the sub-assembly units its units
+     * consume and the scheduler builds the products level by level, so sub-assemblies are in stock
+     * before the products using them reserve them.
+     * </p>
+     * <p>
+     * The journal of the inventory, if any, is committed after each level, so the stock changes
+     * and outcomes of a finished level survive a crash of the next one.
+     * </p>
+     *
+     * @param products the products to build
+     * @param units    the number of units of each product, indexed like {@code products}
+     * @return the {@link ProcessLog} representing all manufacturing work
+     */
+    private ProcessLog build(List<Product> products, int[] units) {
+        BillOfMaterials bom = new BillOfMaterials(products);
+        if (!bom.isMultiLevel()) {
+            for (Product p : products) {
+                inventory.setProductQuantity(p, 0); // Reset quantity for tracking during manufacturing
             }
-        } while (workLeft);
+            scheduler.schedule(products, units, manager, simulation, inventory);
+            inventory.commitJournal();
+            return manager.getLog();
+        }
 
-        return manager.getProcesses();
+        List<Product> ordered = bom.getProducts();
+        int[] gross = bom.grossUnits(products, units);
+        for (Product p : ordered) {
+            inventory.setProductQuantity(p, 0); // Built units are the stock of sub-assemblies
+        }
+        int from = 0;
+        for (int level = 0; level <= bom.getDepth(); level++) {
+            int to = from;
+            while (to < ordered.size() && bom.getLevel(ordered.get(to)) == level) {
+                to++;
+            }
+            scheduler.schedule(ordered.subList(from, to), Arrays.copyOfRange(gross, from, to), manager, simulation,
+                    inventory);
+            inventory.commitJournal();
+            from = to;
+        }
+        return manager.getLog();
+    }
+
+    /**
+     * Closes the {@link ManufacturingScheduler} of this service, releasing its worker threads.
+     * The manager and its log remain readable.
+     */
+    @Override
+    public void close() {
+        scheduler.close();
     }
 }
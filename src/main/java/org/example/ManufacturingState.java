@@ -24,4 +24,11 @@ public interface ManufacturingState {
      * @return the human-readable name of the state
      */
     String getStateName(ManufacturingProcess process);
+
+    /**
+     * Returns the {@link ProcessStatus} represented by this state.
+     *
+     * @return the status of a process in this state
+     */
+    ProcessStatus getStatus();
 }
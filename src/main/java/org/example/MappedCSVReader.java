@@ -0,0 +1,371 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A streaming CSV reader that tokenizes a memory-mapped file directly from its bytes.
+ * <p>
+ * The file is mapped region by region with a {@link FileChannel} and split into rows and
+ * fields without creating intermediate strings. Each row is handed to a {@link RowHandler} as
+ * a reusable {@link Row} view, which only decodes text cells on request and parses numeric
+ * cells straight from the mapped bytes.
+ * </p>
+ * <p>
+ * Fields are separated by a single delimiter byte and are not quoted. A UTF-8 byte order mark
+ * at the start of the file is skipped, as are empty lines.
+ * </p>
+ * <p>
+ * Large files can also be read with {@link #readParallel}, which splits the file into
+ * line-aligned chunks that are parsed concurrently on the common fork-join pool.
+ * </p>
+ */
+public class MappedCSVReader {
+    // Bytes mapped at once, a region always ends on a line boundary.
+    private static final long REGION_SIZE = 64L * 1024 * 1024;
+    // Smallest chunk worth parsing on its own thread.
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Receives the rows of a CSV file one at a time.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * Handles one row. The row view is reused for the next row and must not be retained.
+         *
+         * @param row the current row
+         */
+        void handle(Row row);
+    }
+
+    /**
+     * Reads every row of the file, including the header, and passes it to the handler.
+     *
+     * @param file      the CSV file to read
+     * @param delimiter the field delimiter, an ASCII character
+     * @param handler   the handler receiving each row
+     * @throws IOException if the file cannot be mapped
+     */
+    public static void read(Path file, char delimiter, RowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readRange(channel, file, 0, channel.size(), new Row((byte) delimiter), handler);
+        }
+    }
+
+    /**
+     * Reads the first row of the file and passes it to the handler.
+     *
+     * @param file      the CSV file to read
+     * @param delimiter the field delimiter, an ASCII character
+     * @param handler   the handler receiving the first row
+     * @return the byte offset of the row following the first one
+     * @throws IOException if the file cannot be mapped
+     */
+    public static long readHeader(Path file, char delimiter, RowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(REGION_SIZE, size));
+            int start = hasByteOrderMark(buffer) ? 3 : 0;
+            int end = start;
+            while (end < buffer.limit() && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (end == buffer.limit() && end < size) {
+                throw new IOException("Line longer than " + REGION_SIZE + " bytes in " + file);
+            }
+            Row row = new Row((byte) delimiter);
+            row.buffer = buffer;
+            row.parse(start, end);
+            handler.handle(row);
+            return Math.min(end + 1L, size);
+        }
+    }
+
+    /**
+     * Reads the rows from the given offset to the end of the file in parallel.
+     * <p>
+     * The range is split into line-aligned chunks, each mapped region by region and parsed on the
+     * common fork-join pool into its own accumulator. The accumulators are returned in file order,
+     * so callers can assemble the rows in their original order.
+     * </p>
+     *
+     * @param file        the CSV file to read
+     * @param from        the byte offset of the first row to read, usually returned by {@link #readHeader}
+     * @param delimiter   the field delimiter, an ASCII character
+     * @param accumulator creates the accumulator of one chunk
+     * @param handler     adds a row to the accumulator of its chunk
+     * @param <T>         the accumulator type
+     * @return the accumulators of all chunks in file order
+     * @throws IOException if the file cannot be mapped
+     */
+    public static <T> List<T> readParallel(Path file, long from, char delimiter,
+                                           Supplier<T> accumulator, BiConsumer<T, Row> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long length = Math.max(size - from, 0);
+            int chunks = (int) Math.max(1, Math.min(
+                    Runtime.getRuntime().availableProcessors() * 4L, length / MIN_CHUNK_SIZE));
+            long[] bounds = new long[chunks + 1];
+            bounds[0] = from;
+            bounds[chunks] = size;
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = nextLine(channel, Math.max(from + length * i / chunks, bounds[i - 1]), size);
+            }
+            try {
+                return IntStream.range(0, chunks).parallel().mapToObj(i -> {
+                    T result = accumulator.get();
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    try {
+                        readRange(channel, file, start, end, new Row((byte) delimiter),
+                                row -> handler.accept(result, row));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return result;
+                }).collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Maps the rows between the given offsets region by region, skipping a byte order mark at the
+    // start of the file. Only a single line longer than a region cannot be read.
+    private static void readRange(FileChannel channel, Path file, long position, long end, Row row,
+                                  RowHandler handler) throws IOException {
+        while (position < end) {
+            long length = Math.min(REGION_SIZE, end - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            boolean last = position + length == end;
+            int start = position == 0 && hasByteOrderMark(buffer) ? 3 : 0;
+            int consumed = readRows(buffer, start, (int) length, last, row, handler);
+            if (consumed == 0 && !last) {
+                throw new IOException("Line longer than " + REGION_SIZE + " bytes in " + file);
+            }
+            position += consumed;
+        }
+    }
+
+    // Returns the offset after the first line break at or after the given position.
+    private static long nextLine(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // Parses the rows of the buffer between the given offsets and returns the offset after the
+    // last parsed line. Unless this is the last region, a trailing partial line is left for the next one.
+    private static int readRows(MappedByteBuffer buffer, int start, int end, boolean last, Row row, RowHandler handler) {
+        row.buffer = buffer;
+        int lineStart = start;
+        int consumed = start;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                row.parse(lineStart, i);
+                if (!row.isBlank()) {
+                    handler.handle(row);
+                }
+                lineStart = i + 1;
+                consumed = lineStart;
+            }
+        }
+        if (last && lineStart < end) {
+            row.parse(lineStart, end);
+            if (!row.isBlank()) {
+                handler.handle(row);
+            }
+            consumed = end;
+        }
+        return consumed;
+    }
+
+    private static boolean hasByteOrderMark(MappedByteBuffer buffer) {
+        return buffer.limit() >= 3
+                && buffer.get(0) == (byte) 0xEF
+                && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF;
+    }
+
+    /**
+     * A reusable view of one row of the mapped file.
+     */
+    public static class Row {
+        // Powers of ten that are exact doubles.
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+        // Significant digits that always fit the 53 bit mantissa of a double exactly.
+        private static final int EXACT_DIGITS = 15;
+
+        private final byte delimiter;
+        private MappedByteBuffer buffer;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int count;
+        private byte[] scratch = new byte[64];
+
+        Row(byte delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        // Records the field boundaries of the line between the given offsets.
+        void parse(int from, int to) {
+            if (to > from && buffer.get(to - 1) == '\r') {
+                to--;
+            }
+            count = 0;
+            int fieldStart = from;
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == delimiter) {
+                    add(fieldStart, i);
+                    fieldStart = i + 1;
+                }
+            }
+            add(fieldStart, to);
+        }
+
+        private void add(int from, int to) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = from;
+            ends[count++] = to;
+        }
+
+        private boolean isBlank() {
+            return count == 1 && starts[0] == ends[0];
+        }
+
+        /**
+         * Returns the number of fields in the row.
+         *
+         * @return the field count
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Decodes the field at the given index as trimmed UTF-8 text.
+         *
+         * @param index the index of the field
+         * @return the text of the field
+         */
+        public String text(int index) {
+            int from = starts[index];
+            int to = ends[index];
+            while (from < to && buffer.get(from) <= ' ') {
+                from++;
+            }
+            while (to > from && buffer.get(to - 1) <= ' ') {
+                to--;
+            }
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(from, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses the field at the given index as a decimal number.
+         * <p>
+         * Leading blanks are skipped, either a comma or a dot is accepted as the decimal
+         * separator and parsing stops at the first other character, so unit suffixes such as
+         * "kg" or "pieces" are ignored. A field without digits is read as {@code 0.0}.
+         * </p>
+         * <p>
+         * Numbers of up to {@value #EXACT_DIGITS} significant digits and {@code 22} decimals are
+         * an exact integer divided by an exact power of ten, which rounds once like
+         * {@link Double#parseDouble(String)}. Longer numbers are parsed with
+         * {@link Double#parseDouble(String)}, so every field gives the same value.
+         * </p>
+         *
+         * @param index the index of the field
+         * @return the numeric value of the field
+         */
+        public double number(int index) {
+            int i = starts[index];
+            int to = ends[index];
+            while (i < to && buffer.get(i) <= ' ') {
+                i++;
+            }
+            boolean negative = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+            int first = i;
+            long mantissa = 0;
+            int significant = 0; // digits from the first non-zero one
+            int scale = 0;
+            boolean fraction = false;
+            for (; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    if (b != '0' || significant > 0) {
+                        significant++;
+                    }
+                    if (significant <= EXACT_DIGITS) {
+                        mantissa = mantissa * 10 + (b - '0');
+                    }
+                    if (fraction) {
+                        scale++;
+                    }
+                } else if ((b == '.' || b == ',') && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+            }
+            double value = significant > EXACT_DIGITS || scale >= POWERS_OF_TEN.length
+                    ? parseDigits(first, i)
+                    : mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+
+        // Parses the digits and the decimal separator between the given offsets with Double.parseDouble.
+        private double parseDigits(int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(from, scratch, 0, length);
+            for (int k = 0; k < length; k++) {
+                if (scratch[k] == ',') {
+                    scratch[k] = '.';
+                }
+            }
+            return Double.parseDouble(new String(scratch, 0, length, StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * The result of a {@link MaterialPlanner} run: the feasible build plan and the component shortages.
+ * <p>
+ * For every product of the planned list the plan holds the number of requested units and the
+ * number of units that can be built from the current stock, in the order the units are scheduled.
+ * The remaining units are predicted to fail with {@link FailureType#STOCK_SHORTAGE}.
+ * </p>
+ */
+public class MaterialPlan {
+
+    /**
+     * A component whose aggregate demand exceeds its available stock.
+     */
+    public static class Shortage {
+        private final Component component;
+        private final double demand;
+        private final double available;
+
+        Shortage(Component component, double demand, double available) {
+            this.component = component;
+            this.demand = demand;
+            this.available = available;
+        }
+
+        /**
+         * Returns the short component.
+         *
+         * @return the {@link Component} whose stock does not cover the demand
+         */
+        public Component getComponent() {
+            return component;
+        }
+
+        /**
+         * Returns the quantity of the component needed by all requested units.
+         *
+         * @return the aggregate demand
+         */
+        public double getDemand() {
+            return demand;
+        }
+
+        /**
+         * Returns the stock of the component when the plan was made.
+         *
+         * @return the available stock
+         */
+        public double getAvailable() {
+            return available;
+        }
+
+        /**
+         * Returns the quantity missing to build all requested units.
+         *
+         * @return the demand minus the available stock
+         */
+        public double getShortfall() {
+            return demand - available;
+        }
+    }
+
+    private final List<Product> products;
+    private final int[] requested;
+    private final int[] feasible;
+    private final Component[] limiting;
+    private final List<Shortage> shortages;
+
+    MaterialPlan(List<Product> products, int[] requested, int[] feasible, Component[] limiting,
+                 List<Shortage> shortages) {
+        this.products = products;
+        this.requested = requested;
+        this.feasible = feasible;
+        this.limiting = limiting;
+        this.shortages = shortages;
+    }
+
+    /**
+     * Returns the planned products.
+     *
+     * @return the products, indexed like the units of this plan
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Returns the number of requested units of a product.
+     *
+     * @param index the index of the product
+     * @return the requested units
+     */
+    public int getRequestedUnits(int index) {
+        return requested[index];
+    }
+
+    /**
+     * Returns the number of units of a product that can be built from the current stock.
+     *
+     * @param index the index of the product
+     * @return the feasible units
+     */
+    public int getFeasibleUnits(int index) {
+        return feasible[index];
+    }
+
+    /**
+     * Returns the number of units of a product predicted to fail for lack of stock.
+     *
+     * @param index the index of the product
+     * @return the requested minus the feasible units
+     */
+    public int getShortUnits(int index) {
+        return requested[index] - feasible[index];
+    }
+
+    /**
+     * Returns the component that stops the remaining units of a product from being built.
+     *
+     * @param index the index of the product
+     * @return the limiting {@link Component}, or {@code null} if all requested units are feasible
+     */
+    public Component getLimitingComponent(int index) {
+        return limiting[index];
+    }
+
+    /**
+     * Returns the total number of units predicted to fail for lack of stock.
+     *
+     * @return the short units of all products
+     */
+    public long getTotalShortUnits() {
+        long total = 0;
+        for (int i = 0; i < requested.length; i++) {
+            total += requested[i] - feasible[i];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the components whose aggregate demand exceeds their stock, in component order.
+     *
+     * @return the list of {@link Shortage} entries
+     */
+    public List<Shortage> getShortages() {
+        return shortages;
+    }
+}
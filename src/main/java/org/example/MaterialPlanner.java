@@ -0,0 +1,323 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Predicts stock shortages before manufacturing, with a material requirements planning pass.
+ * <p>
+ * The aggregate demand of all requested units is computed per component in one pass over the
+ * sparse bills of materials and compared with the current stock. Products that only use
+ * components whose stock covers the demand can build every unit. The units of the products
+ * competing for short components are allocated by replaying the round-robin order of the
+ * schedulers on a copy of the stock, skipping over whole rounds while every product still fits,
+ * so the cost depends on the number of competing products rather than the number of units.
+ * </p>
+ * <p>
+ * Products with sub-assemblies are planned on their {@link BillOfMaterials} explosion, so a unit
+ * needs the basic components of all its levels, which are built with it. With
+ * {@link AllocationPolicy#ROUND_ROBIN} the plan of single-level products matches a
+ * {@link RoundRobinScheduler} with the same batch size. The other policies choose the units of the
+ * competing products to maximize the value or the number of built units instead, see
+ * {@link StockAllocator}. Since the feasible units of a plan fit into the stock together, they can
+ * be built in any order, for example by a {@link ParallelScheduler}.
+ * </p>
+ * <p>
+ * Plans can also be made from a {@link StockView} instead of the current stock, so alternative
+ * scenarios forked from one baseline are compared without changing the inventory.
+ * </p>
+ * <p>
+ * Stock and requirements are planned in the exact stock units of each component, see
+ * {@link BasicComponent#toUnits(double)}, like the {@link Inventory} reserves them.
+ * </p>
+ */
+public class MaterialPlanner {
+    private final AllocationPolicy policy;
+    private final int batchSize;
+
+    /**
+     * Constructs a planner for schedulers building one unit of each product per round.
+     */
+    public MaterialPlanner() {
+        this(1);
+    }
+
+    /**
+     * Constructs a planner sharing scarce components with the given policy.
+     *
+     * @param policy    the {@link AllocationPolicy} for components whose stock does not cover the demand
+     * @param batchSize the maximum number of units reserved together by the scheduler, at least 1,
+     *                  used by {@link AllocationPolicy#ROUND_ROBIN}
+     */
+    public MaterialPlanner(AllocationPolicy policy, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.policy = Objects.requireNonNull(policy, "policy");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Constructs a planner for schedulers building up to the given number of units of each product per round.
+     *
+     * @param batchSize the maximum number of units reserved together, at least 1
+     */
+    public MaterialPlanner(int batchSize) {
+        this(AllocationPolicy.ROUND_ROBIN, batchSize);
+    }
+
+    /**
+     * Plans the manufacturing of the quantity of each product.
+     *
+     * @param products the products to manufacture
+     * @return the {@link MaterialPlan} for the quantities of the products
+     */
+    public MaterialPlan plan(List<Product> products) {
+        int[] units = new int[products.size()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = (int) products.get(i).getQuantity();
+        }
+        return plan(products, units);
+    }
+
+    /**
+     * Plans the manufacturing of the given number of units of each product from the current stock.
+     *
+     * @param products the products to manufacture
+     * @param units    the number of units to build for each product, indexed like {@code products}
+     * @return the {@link MaterialPlan} with the feasible units and the shortages
+     */
+    public MaterialPlan plan(List<Product> products, int[] units) {
+        return plan(products, units, null);
+    }
+
+    /**
+     * Plans the manufacturing of the given number of units of each product from the stock of a view,
+     * for example a fork of a baseline with a scenario applied.
+     *
+     * @param products the products to manufacture
+     * @param units    the number of units to build for each product, indexed like {@code products}
+     * @param view     the {@link StockView} to plan from, or {@code null} for the current stock
+     * @return the {@link MaterialPlan} with the feasible units and the shortages
+     * @throws IllegalArgumentException if a required component is not covered by the view
+     */
+    public MaterialPlan plan(List<Product> products, int[] units, StockView view) {
+        if (units.length != products.size()) {
+            throw new IllegalArgumentException("Expected " + products.size() + " unit counts, got " + units.length);
+        }
+        int n = products.size();
+        int[] feasible = new int[n];
+        Component[] limiting = new Component[n];
+
+        // Basic components needed per unit, through all levels for products with sub-assemblies.
+        BasicComponent[][] required = new BasicComponent[n][];
+        long[][] needed = new long[n][];
+        BillOfMaterials bom = null;
+        for (int p = 0; p < n; p++) {
+            Product product = products.get(p);
+            boolean nested = false;
+            for (int j = 0; j < product.getRequirementCount(); j++) {
+                nested |= product.getRequiredComponent(j) instanceof Product;
+            }
+            if (nested) {
+                bom = bom != null ? bom : new BillOfMaterials(products);
+                BillOfMaterials.Explosion explosion = bom.explode(product);
+                required[p] = new BasicComponent[explosion.size()];
+                needed[p] = new long[explosion.size()];
+                for (int j = 0; j < explosion.size(); j++) {
+                    required[p][j] = explosion.getComponent(j);
+                    needed[p][j] = required[p][j].toUnits(explosion.getQuantity(j));
+                }
+            } else {
+                required[p] = new BasicComponent[product.getRequirementCount()];
+                needed[p] = new long[product.getRequirementCount()];
+                for (int j = 0; j < product.getRequirementCount(); j++) {
+                    required[p][j] = (BasicComponent) product.getRequiredComponent(j);
+                    needed[p][j] = product.getRequiredUnits(j);
+                }
+            }
+        }
+
+        // Map every required component to a stock slot, registered components by their dense id.
+        int maxId = -1;
+        for (BasicComponent[] components : required) {
+            for (BasicComponent component : components) {
+                maxId = Math.max(maxId, component.getId());
+            }
+        }
+        List<BasicComponent> slots = new ArrayList<>(Collections.nCopies(maxId + 1, (BasicComponent) null));
+        Map<Component, Integer> unregistered = new IdentityHashMap<>();
+        int[][] slotOf = new int[n][];
+        for (int p = 0; p < n; p++) {
+            slotOf[p] = new int[required[p].length];
+            for (int j = 0; j < slotOf[p].length; j++) {
+                BasicComponent component = required[p][j];
+                int id = component.getId();
+                if (id < 0) {
+                    Integer slot = unregistered.get(component);
+                    if (slot == null) {
+                        slot = slots.size();
+                        unregistered.put(component, slot);
+                        slots.add(null);
+                    }
+                    id = slot;
+                }
+                slots.set(id, component);
+                slotOf[p][j] = id;
+            }
+        }
+
+        // Aggregate demand of all requested units against the current stock.
+        long[] stock = new long[slots.size()];
+        long[] demand = new long[slots.size()];
+        for (int s = 0; s < stock.length; s++) {
+            BasicComponent component = slots.get(s);
+            if (component != null) {
+                stock[s] = view != null ? view.getStockUnits(component) : component.getStockUnits();
+            }
+        }
+        for (int p = 0; p < n; p++) {
+            if (units[p] <= 0) {
+                continue;
+            }
+            for (int j = 0; j < slotOf[p].length; j++) {
+                demand[slotOf[p][j]] += units[p] * needed[p][j];
+            }
+        }
+        boolean[] scarce = new boolean[stock.length];
+        List<MaterialPlan.Shortage> shortages = new ArrayList<>();
+        for (int s = 0; s < stock.length; s++) {
+            if (demand[s] > 0 && demand[s] >= stock[s]) {
+                scarce[s] = true;
+                if (demand[s] > stock[s]) {
+                    double scale = slots.get(s).getScale();
+                    shortages.add(new MaterialPlan.Shortage(slots.get(s), demand[s] / scale, stock[s] / scale));
+                }
+            }
+        }
+
+        // Products without scarce components build every unit, the others compete for the stock.
+        List<Integer> contested = new ArrayList<>();
+        for (int p = 0; p < n; p++) {
+            if (units[p] <= 0) {
+                continue;
+            }
+            boolean competing = false;
+            for (int slot : slotOf[p]) {
+                competing |= scarce[slot];
+            }
+            if (competing) {
+                contested.add(p);
+            } else {
+                feasible[p] = units[p];
+            }
+        }
+        if (policy == AllocationPolicy.ROUND_ROBIN) {
+            allocate(required, needed, units, slotOf, scarce, stock, contested, feasible, limiting);
+        } else {
+            new StockAllocator(policy, products, required, needed, units, slotOf, scarce, stock, contested)
+                    .allocate(contested, feasible, limiting);
+        }
+
+        return new MaterialPlan(products, units.clone(), feasible, limiting, shortages);
+    }
+
+    // Replays the round-robin reservations of the contested products on the scarce stock.
+    // Stock only decreases, so a product is done once a reservation falls short.
+    private void allocate(BasicComponent[][] required, long[][] needed, int[] units, int[][] slotOf,
+                          boolean[] scarce, long[] stock, List<Integer> contested, int[] feasible,
+                          Component[] limiting) {
+        int m = contested.size();
+        int[] remaining = new int[m];
+        boolean[] active = new boolean[m];
+        long[] roundDemand = new long[stock.length]; // demand of one full round of all active products
+        for (int c = 0; c < m; c++) {
+            int p = contested.get(c);
+            remaining[c] = units[p];
+            active[c] = true;
+            addRoundDemand(needed[p], slotOf[p], scarce, roundDemand, batchSize);
+        }
+        int activeCount = m;
+        while (activeCount > 0) {
+            // Skip the rounds in which every active product builds a full batch.
+            long rounds = Long.MAX_VALUE;
+            for (int c = 0; c < m; c++) {
+                if (active[c]) {
+                    rounds = Math.min(rounds, remaining[c] / batchSize);
+                }
+            }
+            for (int s = 0; s < stock.length && rounds > 0; s++) {
+                if (scarce[s] && roundDemand[s] > 0) {
+                    rounds = Math.min(rounds, Math.max(stock[s], 0) / roundDemand[s]);
+                }
+            }
+            if (rounds > 0) {
+                for (int s = 0; s < stock.length; s++) {
+                    if (scarce[s] && roundDemand[s] > 0) {
+                        stock[s] -= roundDemand[s] * rounds;
+                    }
+                }
+                for (int c = 0; c < m; c++) {
+                    if (active[c]) {
+                        remaining[c] -= (int) rounds * batchSize;
+                        feasible[contested.get(c)] += (int) rounds * batchSize;
+                    }
+                }
+            }
+
+            // Then replay one round reservation by reservation.
+            for (int c = 0; c < m; c++) {
+                if (!active[c]) {
+                    continue;
+                }
+                int p = contested.get(c);
+                int take = Math.min(batchSize, remaining[c]);
+                int buildable = reserve(required[p], needed[p], slotOf[p], scarce, stock, take, limiting, p);
+                feasible[p] += buildable;
+                remaining[c] = buildable < take ? 0 : remaining[c] - take;
+                if (remaining[c] == 0) {
+                    active[c] = false;
+                    activeCount--;
+                    addRoundDemand(needed[p], slotOf[p], scarce, roundDemand, -batchSize);
+                }
+            }
+        }
+    }
+
+    // Mirrors Inventory#reserveUpTo on the scarce stock slots.
+    private static int reserve(BasicComponent[] required, long[] needs, int[] slots, boolean[] scarce,
+                               long[] stock, int units, Component[] limiting, int index) {
+        int buildable = units;
+        for (int j = 0; j < slots.length && buildable > 0; j++) {
+            if (!scarce[slots[j]]) {
+                continue;
+            }
+            long available = stock[slots[j]];
+            long needed = needs[j];
+            int fits = available < 0 ? 0 : needed > 0 ? (int) Math.min(available / needed, buildable) : buildable;
+            if (fits < buildable) {
+                buildable = fits;
+                limiting[index] = required[j];
+            }
+        }
+        for (int j = 0; buildable > 0 && j < slots.length; j++) {
+            if (scarce[slots[j]]) {
+                stock[slots[j]] -= needs[j] * buildable;
+            }
+        }
+        return buildable;
+    }
+
+    private static void addRoundDemand(long[] needs, int[] slots, boolean[] scarce, long[] roundDemand,
+                                       int units) {
+        for (int j = 0; j < slots.length; j++) {
+            if (scarce[slots[j]]) {
+                roundDemand[slots[j]] += units * needs[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Schedules unit builds concurrently on a {@link ForkJoinPool} with a configurable parallelism.
+ * <p>
+ * The pool is created once with the scheduler and shared by all its runs, so the levels of a bill
+ * of materials and repeated runs do not start new worker threads. Idle workers are retired by the
+ * pool, and {@link #close()} shuts it down.
+ * </p>
+ * <p>
+ * Units are taken in the same round-robin sequence as {@link RoundRobinScheduler} and dispatched
+ * in fixed size windows, so memory stays bounded for large order books. Stock is reserved through
+ * the thread-safe {@link Inventory}, so units of one window compete for components concurrently.
+ * With a batch size greater than one, each dispatch builds up to that many units of a product
+ * through {@link ManufacturingProcess#processBatch(Product, int)}.
+ * </p>
+ * <p>
+ * When {@code ordered} is set, the processes of each window are handed to the
+ * {@link ManufactureManager} in round-robin order, otherwise in completion order.
+ * </p>
+ * <p>
+ * With a seeded {@link Simulation} the stock of a window is reserved on the scheduling thread in
+ * round-robin order before its units are built concurrently. Every unit then gets the same stock and
+ * the same random stream as with a {@link RoundRobinScheduler} of the same batch size, so the results
+ * are identical for any parallelism.
+ * </p>
+ * <p>
+ * With a stock wait, units short of stock are parked instead of failing and handed to the manager
+ * when a restock of the inventory resumes them, after the units of their window. The run ends once
+ * all parked units were resumed, or once no unit was resumed for the wait.
+ * </p>
+ */
+public class ParallelScheduler implements ManufacturingScheduler {
+    // Number of dispatches submitted together before the next window is started.
+    private static final int WINDOW = 4096;
+
+    private final int parallelism;
+    private final boolean ordered;
+    private final int batchSize;
+    private final long stockWaitMillis;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a scheduler using the given number of worker threads and batch size.
+     *
+     * @param parallelism the number of worker threads, at least 1
+     * @param ordered     whether processes are recorded in round-robin order
+     * @param batchSize   the maximum number of units reserved together, at least 1
+     */
+    public ParallelScheduler(int parallelism, boolean ordered, int batchSize) {
+        this(parallelism, ordered, batchSize, 0);
+    }
+
+    /**
+     * Constructs a scheduler using the given number of worker threads and batch size, parking the
+     * units short of stock until the inventory is restocked.
+     *
+     * @param parallelism     the number of worker threads, at least 1
+     * @param ordered         whether processes are recorded in round-robin order
+     * @param batchSize       the maximum number of units reserved together, at least 1
+     * @param stockWaitMillis how long the run waits for the next restock of parked units, 0 to fail them at once
+     */
+    public ParallelScheduler(int parallelism, boolean ordered, int batchSize, long stockWaitMillis) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (stockWaitMillis < 0) {
+            throw new IllegalArgumentException("Stock wait must not be negative: " + stockWaitMillis);
+        }
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.batchSize = batchSize;
+        this.stockWaitMillis = stockWaitMillis;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Constructs a scheduler using the given number of worker threads, building one unit per dispatch.
+     *
+     * @param parallelism the number of worker threads, at least 1
+     * @param ordered     whether processes are recorded in round-robin order
+     */
+    public ParallelScheduler(int parallelism, boolean ordered) {
+        this(parallelism, ordered, 1);
+    }
+
+    /**
+     * Constructs an ordered scheduler using one worker thread per available processor.
+     */
+    public ParallelScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * Dispatches all units window by window on the {@link ForkJoinPool} of the scheduler.
+     *
+     * @param products   the products to manufacture
+     * @param units      the number of units to build for each product, indexed like {@code products}
+     * @param manager    the manager that receives every processed {@link ManufacturingProcess}
+     * @param simulation the simulation drawing the outcomes of the units
+     * @param inventory  the inventory the stock is reserved from and the built units are added to
+     */
+    @Override
+    public void schedule(List<Product> products, int[] units, ManufactureManager manager, Simulation simulation,
+                         Inventory inventory) {
+        WaitingProcesses waiting = stockWaitMillis > 0
+                ? new WaitingProcesses(inventory, manager, stockWaitMillis)
+                : null;
+        int[] remaining = units.clone();
+        int[] window = new int[WINDOW];
+        int[] counts = new int[WINDOW];
+        int[] firsts = new int[WINDOW];
+        int[] reserved = simulation.isSeeded() ? new int[WINDOW] : null;
+        ManufacturingProcess[][] done = new ManufacturingProcess[WINDOW][];
+        int cursor = 0;
+        int size;
+        while ((size = fillWindow(units, remaining, window, counts, firsts, cursor)) > 0) {
+            cursor = (window[size - 1] + 1) % remaining.length;
+            int n = size;
+            if (reserved != null) {
+                for (int i = 0; i < n; i++) {
+                    reserved[i] = waiting != null
+                            ? inventory.reserveUpTo(products.get(window[i]), counts[i], waiting)
+                            : inventory.reserveUpTo(products.get(window[i]), counts[i]);
+                }
+            }
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+                Product product = products.get(window[i]);
+                ManufacturingProcess[] built = reserved != null
+                        ? ManufacturingProcess.processReserved(product, counts[i], reserved[i], simulation,
+                                firsts[i], inventory, waiting)
+                        : build(product, counts[i], simulation, firsts[i], inventory, waiting);
+                if (ordered) {
+                    done[i] = built;
+                } else {
+                    for (ManufacturingProcess proc : built) {
+                        manager.addProcess(proc);
+                    }
+                }
+            })).join();
+            if (ordered) {
+                for (int i = 0; i < n; i++) {
+                    for (ManufacturingProcess proc : done[i]) {
+                        manager.addProcess(proc);
+                    }
+                    done[i] = null;
+                }
+            }
+        }
+        if (waiting != null) {
+            waiting.await();
+        }
+    }
+
+    /**
+     * Shuts down the worker threads of the scheduler. Units already dispatched are still built.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Builds the given number of units of a product, one by one or as a single batch,
+    // leaving out the parked processes.
+    private ManufacturingProcess[] build(Product product, int units, Simulation simulation, int firstUnit,
+                                         Inventory inventory, WaitingProcesses waiting) {
+        if (batchSize == 1) {
+            ManufacturingProcess proc = new ManufacturingProcess(product, simulation, firstUnit, inventory, waiting);
+            return proc.processManufacturing()
+                    ? new ManufacturingProcess[] {proc}
+                    : new ManufacturingProcess[0];
+        }
+        return ManufacturingProcess.processBatch(product, units, simulation, firstUnit, inventory, waiting);
+    }
+
+    // Fills the window with product indexes, unit counts and the position of the first unit of each
+    // dispatch in round-robin order, starting at the cursor, and returns the number of dispatches taken.
+    private int fillWindow(int[] units, int[] remaining, int[] window, int[] counts, int[] firsts, int cursor) {
+        int size = 0;
+        int idle = 0;
+        int i = cursor;
+        while (size < window.length && idle < remaining.length) {
+            if (remaining[i] > 0) {
+                int take = Math.min(batchSize, remaining[i]);
+                firsts[size] = units[i] - remaining[i];
+                remaining[i] -= take;
+                window[size] = i;
+                counts[size++] = take;
+                idle = 0;
+            } else {
+                idle++;
+            }
+            i = (i + 1) % remaining.length;
+        }
+        return size;
+    }
+}
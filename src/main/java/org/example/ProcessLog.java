@@ -0,0 +1,202 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, append-only log of manufacturing process results stored in columns.
+ * <p>
+ * Instead of keeping every {@link ManufacturingProcess} alive, the log records for each process
+ * the id of its product, its {@link ProcessStatus}, its {@link FailureType} and optionally the
+ * time it was recorded in primitive arrays. Products are assigned ids in the order they first
+ * appear, so one entry takes 6 bytes, or 14 bytes with timestamps.
+ * </p>
+ * <p>
+ * Appending is synchronized so schedulers can record processes from several threads. Reading is
+ * meant to happen after manufacturing has finished.
+ * </p>
+ */
+public class ProcessLog {
+    private static final int INITIAL_CAPACITY = 1024;
+    // Failure column value for processes without a failure type.
+    private static final byte NO_FAILURE = -1;
+
+    private static final ProcessStatus[] STATUSES = ProcessStatus.values();
+    private static final FailureType[] FAILURES = FailureType.values();
+
+    private final List<Product> products = new ArrayList<>();
+    private final Map<Product, Integer> productIds = new IdentityHashMap<>();
+    private final boolean timestamped;
+
+    private int[] productColumn = new int[INITIAL_CAPACITY];
+    private byte[] statusColumn = new byte[INITIAL_CAPACITY];
+    private byte[] failureColumn = new byte[INITIAL_CAPACITY];
+    private long[] timeColumn;
+    private int size;
+
+    /**
+     * Constructs an empty log without timestamps.
+     */
+    public ProcessLog() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty log.
+     *
+     * @param timestamped whether the time of each append is recorded, in nanoseconds
+     */
+    public ProcessLog(boolean timestamped) {
+        this.timestamped = timestamped;
+        this.timeColumn = timestamped ? new long[INITIAL_CAPACITY] : null;
+    }
+
+    /**
+     * Appends the product, status and failure type of a processed {@link ManufacturingProcess}.
+     *
+     * @param process the process to record
+     */
+    public void append(ManufacturingProcess process) {
+        append(process.getProduct(), process.getStatus(), process.getFailureType());
+    }
+
+    /**
+     * Appends the result of one process.
+     *
+     * @param product     the product of the process
+     * @param status      the status the process ended in
+     * @param failureType the failure type of the process, or {@code null} if it did not fail
+     */
+    public synchronized void append(Product product, ProcessStatus status, FailureType failureType) {
+        if (size == productColumn.length) {
+            grow();
+        }
+        productColumn[size] = idOf(product);
+        statusColumn[size] = (byte) status.ordinal();
+        failureColumn[size] = failureType == null ? NO_FAILURE : (byte) failureType.ordinal();
+        if (timestamped) {
+            timeColumn[size] = System.nanoTime();
+        }
+        size++;
+    }
+
+    /**
+     * Returns the number of recorded processes.
+     *
+     * @return the number of entries in the log
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct products in the log.
+     *
+     * @return the number of product ids assigned
+     */
+    public int getProductCount() {
+        return products.size();
+    }
+
+    /**
+     * Returns the product with the given id.
+     *
+     * @param productId the id assigned to the product by this log
+     * @return the {@link Product} with that id
+     */
+    public Product getProductById(int productId) {
+        return products.get(productId);
+    }
+
+    /**
+     * Returns the product id of the entry at the given index.
+     *
+     * @param index the index of the entry
+     * @return the id of the product of that entry
+     */
+    public int getProductId(int index) {
+        return productColumn[index];
+    }
+
+    /**
+     * Returns the product of the entry at the given index.
+     *
+     * @param index the index of the entry
+     * @return the {@link Product} of that entry
+     */
+    public Product getProduct(int index) {
+        return products.get(productColumn[index]);
+    }
+
+    /**
+     * Returns the status of the entry at the given index.
+     *
+     * @param index the index of the entry
+     * @return the {@link ProcessStatus} of that entry
+     */
+    public ProcessStatus getStatus(int index) {
+        return STATUSES[statusColumn[index]];
+    }
+
+    /**
+     * Returns the failure type of the entry at the given index.
+     *
+     * @param index the index of the entry
+     * @return the {@link FailureType} of that entry, or {@code null} if the process did not fail
+     */
+    public FailureType getFailureType(int index) {
+        byte code = failureColumn[index];
+        return code == NO_FAILURE ? null : FAILURES[code];
+    }
+
+    /**
+     * Returns the time the entry at the given index was appended.
+     *
+     * @param index the index of the entry
+     * @return the {@link System#nanoTime()} of the append
+     * @throws IllegalStateException if the log does not record timestamps
+     */
+    public long getTimestamp(int index) {
+        if (!timestamped) {
+            throw new IllegalStateException("Process log does not record timestamps");
+        }
+        return timeColumn[index];
+    }
+
+    /**
+     * Returns the human-readable state name of the entry at the given index,
+     * the same as {@link ManufacturingProcess#getStateName()} returned for the process.
+     *
+     * @param index the index of the entry
+     * @return the state name of that entry
+     */
+    public String getStateName(int index) {
+        ProcessStatus status = getStatus(index);
+        return status == ProcessStatus.FAILED ? FailedState.nameOf(getFailureType(index)) : status.toString();
+    }
+
+    // Returns the id of a product, assigning the next one on its first appearance.
+    private int idOf(Product product) {
+        Integer id = productIds.get(product);
+        if (id == null) {
+            id = products.size();
+            products.add(product);
+            productIds.put(product, id);
+        }
+        return id;
+    }
+
+    // Doubles the capacity of all columns.
+    private void grow() {
+        int capacity = productColumn.length * 2;
+        productColumn = Arrays.copyOf(productColumn, capacity);
+        statusColumn = Arrays.copyOf(statusColumn, capacity);
+        failureColumn = Arrays.copyOf(failureColumn, capacity);
+        if (timestamped) {
+            timeColumn = Arrays.copyOf(timeColumn, capacity);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+/**
+ * Enumeration of the stages a manufacturing process can be in.
+ * <p>
+ * Each {@link ManufacturingState} reports one of these values, which lets compact
+ * structures such as {@link ProcessLog} record a state without keeping the process itself.
+ * Each status has a name that is returned by the {@link #toString()} method.
+ * </p>
+ *
+ * <ul>
+ *   <li>{@link #WAITING_FOR_STOCK} — The process waits for its components to be reserved.</li>
+ *   <li>{@link #IN_MANUFACTURING} — The components are reserved and the product is being assembled.</li>
+ *   <li>{@link #COMPLETED} — The product was manufactured successfully.</li>
+ *   <li>{@link #FAILED} — The process failed, the reason is given by a {@link FailureType}.</li>
+ * </ul>
+ */
+public enum ProcessStatus {
+    WAITING_FOR_STOCK ("Waiting For Stock"),
+    IN_MANUFACTURING  ("In Manufacturing"),
+    COMPLETED         ("Completed"),
+    FAILED            ("Failed");
+
+    private final String displayName;
+
+    /**
+     * Constructs a process status with the given name.
+     *
+     * @param displayName the name for the process status
+     */
+    ProcessStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the name of the process status.
+     *
+     * @return the name of this process status
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
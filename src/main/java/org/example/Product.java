@@ -1,26 +1,60 @@
 package org.example;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents a manufactured product in the manufacturing system
  * composed of multiple basic components.
  * <p>
  * This class is a composite in the Composite Design Pattern and implements
- * the {@link Component} interface. It maintains a map of components
- * to the amount needed for one unit of the product.
+ * the {@link Component} interface. It maintains a sparse bill of materials: parallel arrays
+ * of the required components, their dense ids and the amount of each needed for one unit
+ * of the product. Stock checks scan these arrays without boxing, while
+ * {@link #getRequirements()} offers a read-only map view of them.
  * </p>
  * <p>
- * The cost and weight of the product are computed dynamically by aggregating
- * the properties of its components.
+ * The cost and weight of the product are computed by aggregating the properties of its
+ * components and cached together with the rollup epoch of {@link BasicComponent} they were
+ * computed in. When a unit cost or weight changes the epoch advances and the rollup is computed
+ * again on the next read. Nested products use their own cached rollups, so each product of a
+ * deep bill of materials is rolled up once per epoch.
  * </p>
  */
 public class Product implements Component {
 
+    /**
+     * An immutable cost and weight rollup, published as a whole so readers never
+     * see a cost and a weight from different epochs.
+     */
+    private static final class Rollup {
+        private final long epoch;
+        private final double cost;
+        private final double weight;
+
+        private Rollup(long epoch, double cost, double weight) {
+            this.epoch = epoch;
+            this.cost = cost;
+            this.weight = weight;
+        }
+    }
+
     private final String name;
-    // Mapping of component name (to fetch from Inventory) and required quantity per one unit of product.
-    private final Map<Component, Double> requirements;
+    // Sparse bill of materials, the required components and their quantities per one unit of product.
+    private final Component[] components;
+    private final int[] componentIds; // BasicComponent ids, -1 for products and unregistered components
+    private final double[] quantities;
+    private final long[] units; // quantities in stock units of basic components, 0 for products
+    private final Map<Component, Double> requirements = new RequirementsView();
     private double quantity; // number of this product to manufacture
+    private volatile Rollup rollup; // cached cost and weight per unit
 
     /**
      * Constructs a new Product with the specified name, required components,
@@ -31,8 +65,37 @@ public class Product implements Component {
      * @param quantity     the quantity of the product to manufacture
      */
     public Product(String name, Map<Component, Double> requirements, int quantity) {
+        this(name,
+             requirements.keySet().toArray(new Component[0]),
+             requirements.values().stream().mapToDouble(Double::doubleValue).toArray(),
+             quantity);
+    }
+
+    /**
+     * Constructs a new Product with the specified name, sparse bill of materials
+     * and quantity to manufacture.
+     *
+     * @param name       the name of the product
+     * @param components the required components
+     * @param quantities the required quantity per unit of each component, indexed like {@code components}
+     * @param quantity   the quantity of the product to manufacture
+     */
+    public Product(String name, Component[] components, double[] quantities, int quantity) {
+        if (components.length != quantities.length) {
+            throw new IllegalArgumentException("Components and quantities differ in length for " + name);
+        }
         this.name = name;
-        this.requirements = requirements;
+        this.components = components.clone();
+        this.quantities = quantities.clone();
+        this.componentIds = new int[components.length];
+        this.units = new long[components.length];
+        for (int i = 0; i < components.length; i++) {
+            Component component = Objects.requireNonNull(components[i], "Unresolved component in " + name);
+            componentIds[i] = component instanceof BasicComponent ? ((BasicComponent) component).getId() : -1;
+            if (component instanceof BasicComponent) {
+                units[i] = ((BasicComponent) component).toUnits(quantities[i]);
+            }
+        }
         this.quantity = quantity;
     }
 
@@ -47,7 +110,7 @@ public class Product implements Component {
     }
 
     /**
-     * Returns the component requirements for one unit of this product.
+     * Returns a read-only map view of the component requirements for one unit of this product.
      *
      * @return a map of components to required quantities
      */
@@ -55,12 +118,63 @@ public class Product implements Component {
         return requirements;
     }
 
+    /**
+     * Returns the number of distinct components required by this product.
+     *
+     * @return the number of entries in the bill of materials
+     */
+    public int getRequirementCount() {
+        return components.length;
+    }
+
+    /**
+     * Returns the required component at the given position of the bill of materials.
+     *
+     * @param index the position in the bill of materials
+     * @return the required {@link Component}
+     */
+    public Component getRequiredComponent(int index) {
+        return components[index];
+    }
+
+    /**
+     * Returns the dense id of the required component at the given position of the bill of materials.
+     *
+     * @param index the position in the bill of materials
+     * @return the id of the {@link BasicComponent}, or -1 for products and unregistered components
+     */
+    public int getRequiredComponentId(int index) {
+        return componentIds[index];
+    }
+
+    /**
+     * Returns the quantity per unit of the required component at the given position of the bill of materials.
+     *
+     * @param index the position in the bill of materials
+     * @return the required quantity per unit of this product
+     */
+    public double getRequiredQuantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Returns the quantity per unit of the required basic component at the given position of the
+     * bill of materials in its stock units, see {@link BasicComponent#toUnits(double)}.
+     *
+     * @param index the position in the bill of materials
+     * @return the required stock units per unit of this product, 0 for a sub-assembly
+     */
+    public long getRequiredUnits(int index) {
+        return units[index];
+    }
+
     /**
      * Returns the number of units of this product to manufacture.
+     * The quantity methods are synchronized since completed processes may update it concurrently.
      *
      * @return the quantity
      */
-    public double getQuantity() {
+    public synchronized double getQuantity() {
         return quantity;
     }
 
@@ -69,14 +183,14 @@ public class Product implements Component {
      *
      * @param quantity the quantity of the product to manufacture
      */
-    public void setQuantity(double quantity) {
+    public synchronized void setQuantity(double quantity) {
         this.quantity = quantity;
     }
 
     /**
      * Increases the number of units of this product to manufacture by one.
      */
-    public void increaseQuantity() {
+    public synchronized void increaseQuantity() {
         this.quantity += 1;
     }
 
@@ -86,44 +200,84 @@ public class Product implements Component {
      * @param quantityUsed the number of units to subtract from the quantity
      */
     @Override
-    public void decreaseQuantity(double quantityUsed) {
+    public synchronized void decreaseQuantity(double quantityUsed) {
         this.quantity -= quantityUsed;
     }
 
     /**
-     * Computes and returns the total cost of one unit of this product
-     * by summing the unit costs of all required components multiplied
-     * by their required quantities.
+     * Returns the total cost of one unit of this product, which is the sum of the
+     * unit costs of all required components multiplied by their required quantities.
      *
      * @return the total cost per unit
      */
     @Override
     public double getTotalCost() {
-        double total = 0.0;
-        for (Map.Entry<Component, Double> entry : requirements.entrySet()) {
-            Component component = entry.getKey();
-            total += component.getTotalCost() * entry.getValue();
-        }
-        return total;
+        return rollup().cost;
     }
 
     /**
-     * Computes and returns the total weight of one unit of this product
-     * by summing the unit weights of all required components multiplied
-     * by their required quantities.
+     * Returns the total weight of one unit of this product, which is the sum of the
+     * unit weights of all required components multiplied by their required quantities.
      *
      * @return the total weight per unit
      */
     @Override
     public double getTotalWeight() {
-        double total = 0.0;
-        for (Map.Entry<Component, Double> entry : requirements.entrySet()) {
-            Component component = entry.getKey();
-            if (component != null) {
-                total += component.getTotalWeight() * entry.getValue();
+        return rollup().weight;
+    }
+
+    // Returns the cached rollup, computing it again if a unit cost or weight changed since.
+    private Rollup rollup() {
+        long epoch = BasicComponent.rollupEpoch();
+        Rollup current = rollup;
+        if (current != null && current.epoch == epoch) {
+            return current;
+        }
+        // Roll up stale sub-assemblies first with an explicit stack, so deep bills of materials
+        // do not recurse once per level.
+        Deque<Product> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Product top = stack.peek();
+            boolean ready = true;
+            for (Component component : top.components) {
+                if (component instanceof Product && !((Product) component).isRolledUp(epoch)) {
+                    stack.push((Product) component);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                stack.pop();
+                if (!top.isRolledUp(epoch)) {
+                    top.rollUp(epoch);
+                }
             }
         }
-        return total;
+        return rollup;
+    }
+
+    private boolean isRolledUp(long epoch) {
+        Rollup current = rollup;
+        return current != null && current.epoch == epoch;
+    }
+
+    // Computes the rollup from the basic components and the rollups of the sub-assemblies.
+    private void rollUp(long epoch) {
+        double cost = 0.0;
+        double weight = 0.0;
+        for (int i = 0; i < components.length; i++) {
+            Component component = components[i];
+            if (component instanceof Product) {
+                Rollup child = ((Product) component).rollup;
+                cost += child.cost * quantities[i];
+                weight += child.weight * quantities[i];
+            } else {
+                cost += component.getTotalCost() * quantities[i];
+                weight += component.getTotalWeight() * quantities[i];
+            }
+        }
+        // A change during the computation leaves a stale epoch, so it is recomputed next time.
+        rollup = new Rollup(epoch, cost, weight);
     }
 
     /**
@@ -136,6 +290,16 @@ public class Product implements Component {
                 name, getTotalCost(), getTotalWeight(), quantity);
     }
 
+    /**
+     * Writes the details of the product to a report.
+     *
+     * @param sink the {@link ReportSink} receiving the details
+     */
+    @Override
+    public void printDetail(ReportSink sink) {
+        sink.product(name, getTotalCost(), getTotalWeight(), getQuantity());
+    }
+
     /**
      * Returns a formatted string representation of the product which has the product name
      * quantity to manufacture, required components and their quantities,
@@ -152,11 +316,11 @@ public class Product implements Component {
                 .append(quantity)
                 .append("\nRequirements:\n");
 
-        for (Map.Entry<Component, Double> entry : requirements.entrySet()) {
+        for (int i = 0; i < components.length; i++) {
             sb.append("  - ")
-                    .append(entry.getKey().getName())
+                    .append(components[i].getName())
                     .append(": ")
-                    .append(entry.getValue())
+                    .append(quantities[i])
                     .append("\n");
         }
 
@@ -168,4 +332,56 @@ public class Product implements Component {
         return sb.toString();
     }
 
+    /**
+     * A read-only map adapter over the bill of materials arrays.
+     */
+    private final class RequirementsView extends AbstractMap<Component, Double> {
+        private final Set<Map.Entry<Component, Double>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Component, Double>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < components.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Component, Double> next() {
+                        if (next >= components.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        return new AbstractMap.SimpleImmutableEntry<>(components[i], quantities[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return components.length;
+            }
+        };
+
+        @Override
+        public Set<Map.Entry<Component, Double>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public Double get(Object key) {
+            for (int i = 0; i < components.length; i++) {
+                if (components[i] == key) {
+                    return quantities[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+    }
 }
@@ -1,24 +1,57 @@
 package org.example;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
- * Generates and prints a summary report for a list of {@link ManufacturingProcess} instances.
+ * Generates and prints a summary report for the manufacturing processes recorded in a {@link ProcessLog}.
  * The report includes successfully manufactured products with their total quantities, costs, 
  * and weights and the number of failed processes grouped by failure type.
+ * <p>
+ * The log is aggregated in a single pass into a {@link ReportSummary}, optionally split over
+ * the common fork-join pool and merged back together for very large logs.
+ * </p>
  */
 public class ReportGenerator {
-    private final List<ManufacturingProcess> processes;
+    private final ProcessLog processes;
+    private final boolean parallel;
 
     /**
-     * Constructs a new {@link ReportGenerator} with a list of manufacturing processes.
+     * Constructs a new {@link ReportGenerator} with a log of manufacturing processes.
      *
-     * @param processes the list of {@link ManufacturingProcess} instances to summarize
+     * @param processes the {@link ProcessLog} of the processes to summarize
      */
-    public ReportGenerator(List<ManufacturingProcess> processes) {
+    public ReportGenerator(ProcessLog processes) {
+        this(processes, false);
+    }
+
+    /**
+     * Constructs a new {@link ReportGenerator} with a log of manufacturing processes.
+     *
+     * @param processes the {@link ProcessLog} of the processes to summarize
+     * @param parallel  whether the log is aggregated in parallel
+     */
+    public ReportGenerator(ProcessLog processes, boolean parallel) {
         this.processes = processes;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Aggregates all logged processes into per-product success counts with their cost and
+     * weight, and failure counts per {@link FailureType}.
+     *
+     * @return the {@link ReportSummary} of the log
+     */
+    public ReportSummary summarize() {
+        ReportSummary empty = new ReportSummary(processes);
+        if (!parallel) {
+            for (int i = 0; i < processes.size(); i++) {
+                empty.accept(i);
+            }
+            return empty;
+        }
+        return IntStream.range(0, processes.size())
+                .parallel()
+                .collect(empty::newEmpty, ReportSummary::accept, ReportSummary::merge);
     }
 
     /**
@@ -31,40 +64,37 @@ public class ReportGenerator {
      * </ul>
      */
     public void printReport() {
-        Map<String, Integer> success = new HashMap<>();
-        Map<String, Double> cost = new HashMap<>();
-        Map<String, Double> weight = new HashMap<>();
-        int sysErr = 0, dmg = 0, stk = 0;
+        try (ReportSink sink = ReportSink.console()) {
+            printReport(sink);
+        }
+    }
+
+    /**
+     * Analyzes the manufacturing processes and writes the summary report to the given sink.
+     *
+     * @param sink the {@link ReportSink} receiving the report
+     */
+    public void printReport(ReportSink sink) {
+        printReport(summarize(), sink);
+    }
 
-        for (ManufacturingProcess p : processes) {
-            String name = p.getProduct().getName();
-            String state = p.getStateName();
-            if (state.equals("Completed")) {
-                success.merge(name, 1, Integer::sum);
-                cost.merge(name, p.getProduct().getTotalCost(), Double::sum);
-                weight.merge(name, p.getProduct().getTotalWeight(), Double::sum);
-            } else {
-                switch (p.getFailureType()) {
-                    case SYSTEM_ERROR:
-                        sysErr++;
-                        break;
-                    case DAMAGED_COMPONENT:
-                        dmg++;
-                        break;
-                    case STOCK_SHORTAGE:
-                        stk++;
-                        break;
-                }
+    /**
+     * Writes the report of an existing summary to the given sink.
+     *
+     * @param summary the {@link ReportSummary} to report, for example a {@link LiveReport} snapshot
+     * @param sink    the {@link ReportSink} receiving the report
+     */
+    public static void printReport(ReportSummary summary, ReportSink sink) {
+        sink.message("Manufactured Products:");
+        for (int id = 0; id < summary.getProductCount(); id++) {
+            if (summary.getCompleted(id) > 0) {
+                sink.manufactured(summary.getProduct(id).getName(), summary.getCompleted(id),
+                        summary.getCost(id), summary.getWeight(id));
             }
         }
 
-        System.out.println("Manufactured Products:");
-        success.forEach((prod, cnt)
-                -> System.out.printf(" - %-12s: %2d units | Cost: %8.2f | Weight: %7.2f%n",
-                        prod, cnt, cost.get(prod), weight.get(prod)));
-
-        System.out.printf("Failures due to %-18s %d%n", "System Error:", sysErr);
-        System.out.printf("Failures due to %-18s %d%n", "Damaged Component:", dmg);
-        System.out.printf("Failures due to %-18s %d%n", "Stock Shortage:", stk);
+        for (FailureType type : FailureType.values()) {
+            sink.failures(type, summary.getFailures(type));
+        }
     }
 }
@@ -1,25 +1,40 @@
 package org.example;
 
-import java.util.List;
-
 /**
  * A service class responsible for generating and printing reports
  * related to the the inventory of components and final report of products manufactured.
  * <p>
  * This class provides reporting methods that delegate to
  * the appropriate inventory and final report generation.
+ * All reports are written to one {@link ReportSink}, which is flushed after each report
+ * and released by {@link #close()}.
  * </p>
  */
 public class ReportService {
+    // Logs with at least this many entries are aggregated in parallel.
+    private static final int PARALLEL_REPORT_THRESHOLD = 1_000_000;
+
     private final Inventory inventory;
+    private final ReportSink sink;
 
     /**
-     * Constructs a new {@code ReportService} with the given inventory instance.
+     * Constructs a new {@code ReportService} printing to the console with the given inventory instance.
      *
      * @param inventory the {@link Inventory} singleton used to retrieve and print inventory data
      */
     public ReportService(Inventory inventory) {
+        this(inventory, ReportSink.console());
+    }
+
+    /**
+     * Constructs a new {@code ReportService} writing its reports to the given sink.
+     *
+     * @param inventory the {@link Inventory} singleton used to retrieve and print inventory data
+     * @param sink      the {@link ReportSink} receiving all reports
+     */
+    public ReportService(Inventory inventory, ReportSink sink) {
         this.inventory = inventory;
+        this.sink = sink;
     }
 
     /**
@@ -34,20 +49,112 @@ public class ReportService {
      * @param manager the {@link ManufactureManager} responsible for managing and printing product manufacturing processes
      */
     public void printProcessDetails(ManufactureManager manager) {
-        inventory.printInventory();
-        manager.printProcessDetails();
+        inventory.printInventory(sink);
+        manager.printProcessDetails(sink);
+        sink.flush();
     }
 
     /**
-     * Prints a final report summarizing the provided manufacturing processes.
+     * Prints the feasible build plan and the component shortages of a {@link MaterialPlan}.
+     *
+     * @param plan the {@link MaterialPlan} made before manufacturing
+     */
+    public void printMaterialPlan(MaterialPlan plan) {
+        sink.section("MATERIAL PLAN");
+        for (int i = 0; i < plan.getProducts().size(); i++) {
+            if (plan.getShortUnits(i) > 0) {
+                sink.plannedProduct(plan.getProducts().get(i).getName(), plan.getFeasibleUnits(i),
+                        plan.getRequestedUnits(i), plan.getLimitingComponent(i).getName());
+            }
+        }
+        for (MaterialPlan.Shortage shortage : plan.getShortages()) {
+            sink.shortage(shortage.getComponent().getName(), shortage.getDemand(),
+                    shortage.getAvailable(), shortage.getShortfall());
+        }
+        sink.shortUnits(plan.getTotalShortUnits());
+        sink.flush();
+    }
+
+    /**
+     * Prints how many journal records were replayed to recover the inventory.
+     *
+     * @param replayed the number of records replayed after the latest snapshot
+     */
+    public void printJournalRecovery(long replayed) {
+        sink.message("Recovered inventory from journal, " + replayed + " records replayed");
+        sink.flush();
+    }
+
+    /**
+     * Prints the state transitions, sampled latencies, failures and stock-outs collected by the
+     * {@link ManufacturingMetrics} of the run.
+     *
+     * @param metrics the {@link ManufacturingMetrics.Snapshot} to print
+     */
+    public void printMetrics(ManufacturingMetrics.Snapshot metrics) {
+        sink.section("MANUFACTURING METRICS");
+        for (String line : metrics.lines()) {
+            sink.message(line);
+        }
+        sink.flush();
+    }
+
+    /**
+     * Prints the mean, 5th percentile, median and 95th percentile of the completed units of every
+     * product and of the total output, cost and failures of a {@link CapacityForecast}.
+     *
+     * @param forecast the {@link CapacityForecast} made before manufacturing
+     */
+    public void printCapacityForecast(CapacityForecast forecast) {
+        sink.section("CAPACITY FORECAST");
+        sink.message(forecast.getTrials() + " simulated runs");
+        for (int i = 0; i < forecast.getProducts().size(); i++) {
+            sink.forecast(forecast.getProducts().get(i).getName() + " units", forecast.getMeanUnits(i),
+                    forecast.getUnitsPercentile(i, 5), forecast.getUnitsPercentile(i, 50),
+                    forecast.getUnitsPercentile(i, 95));
+        }
+        sink.forecast("Total units", forecast.getMeanOutput(), forecast.getOutputPercentile(5),
+                forecast.getOutputPercentile(50), forecast.getOutputPercentile(95));
+        sink.forecast("Total cost", forecast.getMeanCost(), forecast.getCostPercentile(5),
+                forecast.getCostPercentile(50), forecast.getCostPercentile(95));
+        for (FailureType type : FailureType.values()) {
+            sink.forecast(type + " failures", forecast.getMeanFailures(type), forecast.getFailuresPercentile(type, 5),
+                    forecast.getFailuresPercentile(type, 50), forecast.getFailuresPercentile(type, 95));
+        }
+        sink.flush();
+    }
+
+    /**
+     * Prints a final report summarizing the logged manufacturing processes.
      * <p>
-     * This method uses a {@link ReportGenerator} to format and print the final report.
+     * This method uses a {@link ReportGenerator} to format and print the final report,
+     * aggregating large logs in parallel.
      * </p>
      *
-     * @param processes a list of {@link ManufacturingProcess} for the final report
+     * @param processes the {@link ProcessLog} of manufacturing processes for the final report
+     */
+    public void printFinalReport(ProcessLog processes) {
+        sink.section("FINAL REPORT");
+        new ReportGenerator(processes, processes.size() >= PARALLEL_REPORT_THRESHOLD).printReport(sink);
+        sink.flush();
+    }
+
+    /**
+     * Prints a final report of a summary that has already been aggregated, such as a
+     * {@link LiveReport} snapshot, without scanning the process log.
+     *
+     * @param summary the {@link ReportSummary} of the manufacturing processes
+     */
+    public void printFinalReport(ReportSummary summary) {
+        sink.section("FINAL REPORT");
+        ReportGenerator.printReport(summary, sink);
+        sink.flush();
+    }
+
+    /**
+     * Flushes the written reports and releases the report sink.
      */
-    public void printFinalReport(List<ManufacturingProcess> processes) {
-        System.out.println("\n=== FINAL REPORT ===");
-        new ReportGenerator(processes).printReport();
+    public void close() {
+        sink.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * A destination for the rows of the inventory, process and final reports.
+ * <p>
+ * Reports are written as typed records instead of preformatted lines, so the same report can be
+ * printed as text, or exported as CSV or JSON for other tools. The sinks returned by
+ * {@link #console()} and {@link #open(String, Path)} format each record into memory and hand full
+ * buffers to a background thread that writes them to the output, so printing millions of process
+ * states costs little more than formatting them.
+ * </p>
+ * <p>
+ * A sink is written by one thread at a time. Records are only guaranteed to reach the output after
+ * {@link #flush()} or {@link #close()}.
+ * </p>
+ */
+public interface ReportSink extends AutoCloseable {
+
+    /**
+     * Starts a titled section of the report.
+     *
+     * @param title the section title
+     */
+    void section(String title);
+
+    /**
+     * Writes a line of free text.
+     *
+     * @param text the text
+     */
+    void message(String text);
+
+    /**
+     * Writes the details of a basic component in the inventory.
+     *
+     * @param name       the component name
+     * @param type       the component type
+     * @param unitCost   the cost of one unit
+     * @param unitWeight the weight of one unit
+     * @param stock      the stock quantity
+     */
+    void component(String name, String type, double unitCost, double unitWeight, double stock);
+
+    /**
+     * Writes the details of a product in the inventory.
+     *
+     * @param name       the product name
+     * @param unitCost   the cost of one unit with all its components
+     * @param unitWeight the weight of one unit with all its components
+     * @param quantity   the quantity of the product
+     */
+    void product(String name, double unitCost, double unitWeight, double quantity);
+
+    /**
+     * Writes the final state of one manufacturing process.
+     *
+     * @param product the name of the manufactured product
+     * @param state   the name of the final state of the process
+     */
+    void processState(String product, String state);
+
+    /**
+     * Writes the successfully manufactured units of a product.
+     *
+     * @param product the product name
+     * @param units   the number of completed units
+     * @param cost    the total cost of the completed units
+     * @param weight  the total weight of the completed units
+     */
+    void manufactured(String product, long units, double cost, double weight);
+
+    /**
+     * Writes the number of processes that failed for a reason.
+     *
+     * @param type  the failure type
+     * @param count the number of failed processes
+     */
+    void failures(FailureType type, long count);
+
+    /**
+     * Writes the planned units of a product that cannot build all its requested units.
+     *
+     * @param product   the product name
+     * @param feasible  the units that can be built
+     * @param requested the requested units
+     * @param limitedBy the name of the component limiting the product
+     */
+    void plannedProduct(String product, int feasible, int requested, String limitedBy);
+
+    /**
+     * Writes a component whose demand exceeds its stock.
+     *
+     * @param component the component name
+     * @param demand    the aggregate demand
+     * @param available the available stock
+     * @param missing   the quantity missing to cover the demand
+     */
+    void shortage(String component, double demand, double available, double missing);
+
+    /**
+     * Writes the total number of units predicted to fail for lack of stock.
+     *
+     * @param units the short units of all products
+     */
+    void shortUnits(long units);
+
+    /**
+     * Writes the distribution of a measure over the runs of a capacity forecast.
+     *
+     * @param measure the name of the measure
+     * @param mean    the mean over all runs
+     * @param p5      the 5th percentile
+     * @param p50     the median
+     * @param p95     the 95th percentile
+     */
+    void forecast(String measure, double mean, double p5, double p50, double p95);
+
+    /**
+     * Writes all records written so far to the output.
+     *
+     * @throws java.io.UncheckedIOException if the output cannot be written
+     */
+    void flush();
+
+    /**
+     * Flushes the sink and releases its output. The standard output is flushed but not closed.
+     *
+     * @throws java.io.UncheckedIOException if the output cannot be written
+     */
+    @Override
+    void close();
+
+    /**
+     * Creates a sink printing the text report to the standard output.
+     *
+     * @return a text {@link ReportSink} on {@code System.out}
+     */
+    static ReportSink console() {
+        return new TextReportSink(Channels.newChannel(System.out), Charset.defaultCharset(),
+                Locale.getDefault(Locale.Category.FORMAT), false);
+    }
+
+    /**
+     * Creates a sink writing the report in the given format to a file, or to the standard output.
+     *
+     * @param format the output format: {@code text}, {@code csv} or {@code json}
+     * @param file   the file to write, replaced if it exists, or {@code null} for the standard output
+     * @return the {@link ReportSink}
+     * @throws IOException              if the file cannot be opened
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    static ReportSink open(String format, Path file) throws IOException {
+        if (!format.equalsIgnoreCase("text") && !format.equalsIgnoreCase("csv")
+                && !format.equalsIgnoreCase("json")) {
+            throw new IllegalArgumentException("Unknown report format: " + format);
+        }
+        if (file == null && format.equalsIgnoreCase("text")) {
+            return console();
+        }
+        boolean owned = file != null;
+        WritableByteChannel channel = owned
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)
+                : Channels.newChannel(System.out);
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return new CsvReportSink(channel, StandardCharsets.UTF_8, owned);
+            case "json":
+                return new JsonReportSink(channel, StandardCharsets.UTF_8, owned);
+            default:
+                return new TextReportSink(channel, StandardCharsets.UTF_8,
+                        Locale.getDefault(Locale.Category.FORMAT), owned);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.example;
+
+/**
+ * A mergeable accumulator of manufacturing results used by {@link ReportGenerator}.
+ * <p>
+ * Results are counted in primitive arrays indexed by the product ids of a {@link ProcessLog}
+ * and by {@link FailureType} ordinal, so accumulating an entry is a few array updates without
+ * any string handling. The cost and weight of one unit of each product are computed once and
+ * shared by all accumulators of the same report, which makes partial summaries built on
+ * several threads cheap to {@link #merge(ReportSummary) merge}.
+ * </p>
+ * <p>
+ * A {@link LiveReport} creates summaries from its running counters instead of a log. Such a
+ * snapshot is complete when created and does not accept log entries.
+ * </p>
+ */
+public class ReportSummary {
+    private final ProcessLog log;
+    private final Product[] products;
+    private final double[] unitCost;
+    private final double[] unitWeight;
+    private final long[] completed;
+    private final long[] failures = new long[FailureType.values().length];
+
+    /**
+     * Constructs an empty summary for the given log, caching the cost and weight per unit
+     * of every product in it.
+     *
+     * @param log the {@link ProcessLog} whose entries are accumulated
+     */
+    public ReportSummary(ProcessLog log) {
+        this(log, new Product[log.getProductCount()], new double[log.getProductCount()],
+                new double[log.getProductCount()]);
+        for (int id = 0; id < unitCost.length; id++) {
+            Product product = log.getProductById(id);
+            products[id] = product;
+            unitCost[id] = product.getTotalCost();
+            unitWeight[id] = product.getTotalWeight();
+        }
+    }
+
+    // Constructs an empty summary sharing the cached products, unit costs and weights.
+    private ReportSummary(ProcessLog log, Product[] products, double[] unitCost, double[] unitWeight) {
+        this.log = log;
+        this.products = products;
+        this.unitCost = unitCost;
+        this.unitWeight = unitWeight;
+        this.completed = new long[unitCost.length];
+    }
+
+    /**
+     * Constructs a summary from counts accumulated elsewhere, indexed by product id.
+     *
+     * @param products   the products by id
+     * @param unitCost   the cost of one unit of each product
+     * @param unitWeight the weight of one unit of each product
+     * @param completed  the completed units of each product
+     * @param failures   the failures per {@link FailureType} ordinal
+     */
+    ReportSummary(Product[] products, double[] unitCost, double[] unitWeight, long[] completed, long[] failures) {
+        this.log = null;
+        this.products = products;
+        this.unitCost = unitCost;
+        this.unitWeight = unitWeight;
+        this.completed = completed;
+        System.arraycopy(failures, 0, this.failures, 0, this.failures.length);
+    }
+
+    /**
+     * Creates an empty summary for the same log that shares the cached unit costs and weights.
+     *
+     * @return a new empty {@link ReportSummary}
+     */
+    public ReportSummary newEmpty() {
+        return new ReportSummary(log, products, unitCost, unitWeight);
+    }
+
+    /**
+     * Accumulates the log entry at the given index.
+     *
+     * @param index the index of the entry in the log
+     * @throws IllegalStateException if this summary is a {@link LiveReport} snapshot
+     */
+    public void accept(int index) {
+        if (log == null) {
+            throw new IllegalStateException("A snapshot summary does not accept log entries");
+        }
+        ProcessStatus status = log.getStatus(index);
+        if (status == ProcessStatus.COMPLETED) {
+            completed[log.getProductId(index)]++;
+        } else if (status == ProcessStatus.FAILED) {
+            FailureType type = log.getFailureType(index);
+            if (type != null) {
+                failures[type.ordinal()]++;
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of another summary of the same log to this one.
+     *
+     * @param other the summary to merge into this one
+     */
+    public void merge(ReportSummary other) {
+        for (int id = 0; id < completed.length; id++) {
+            completed[id] += other.completed[id];
+        }
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] += other.failures[i];
+        }
+    }
+
+    /**
+     * Returns the number of distinct products in the summary.
+     *
+     * @return the number of product ids
+     */
+    public int getProductCount() {
+        return completed.length;
+    }
+
+    /**
+     * Returns the product with the given id.
+     *
+     * @param productId the id of the product in the log
+     * @return the {@link Product} with that id
+     */
+    public Product getProduct(int productId) {
+        return products[productId];
+    }
+
+    /**
+     * Returns the number of successfully manufactured units of a product.
+     *
+     * @param productId the id of the product in the log
+     * @return the number of completed units
+     */
+    public long getCompleted(int productId) {
+        return completed[productId];
+    }
+
+    /**
+     * Returns the total cost of the successfully manufactured units of a product.
+     *
+     * @param productId the id of the product in the log
+     * @return the cost of all completed units
+     */
+    public double getCost(int productId) {
+        return completed[productId] * unitCost[productId];
+    }
+
+    /**
+     * Returns the total weight of the successfully manufactured units of a product.
+     *
+     * @param productId the id of the product in the log
+     * @return the weight of all completed units
+     */
+    public double getWeight(int productId) {
+        return completed[productId] * unitWeight[productId];
+    }
+
+    /**
+     * Returns the number of processes that failed for the given reason.
+     *
+     * @param type the failure type
+     * @return the number of failures of that type
+     */
+    public long getFailures(FailureType type) {
+        return failures[type.ordinal()];
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Schedules unit builds one at a time on the calling thread in a fair round-robin order.
+ * <p>
+ * Every round builds one unit of each product that still has units left, so scarce
+ * components are shared between products by their order in the list.
+ * </p>
+ * <p>
+ * With a batch size greater than one, every round builds up to that many units of each product
+ * through {@link ManufacturingProcess#processBatch(Product, int)}, reserving their stock at once.
+ * </p>
+ * <p>
+ * Units are built and reserved in a fixed order on one thread, so runs with a seeded
+ * {@link Simulation} are always reproducible.
+ * </p>
+ * <p>
+ * With a stock wait, units short of stock are parked instead of failing and the run ends once
+ * they were all resumed by restocks of the inventory, or once no unit was resumed for the wait.
+ * Resumed units are built on the restocking threads, so their outcomes depend on restock timing.
+ * </p>
+ */
+public class RoundRobinScheduler implements ManufacturingScheduler {
+    private final int batchSize;
+    private final long stockWaitMillis;
+
+    /**
+     * Constructs a scheduler that builds one unit of each product per round.
+     */
+    public RoundRobinScheduler() {
+        this(1);
+    }
+
+    /**
+     * Constructs a scheduler that builds up to the given number of units of each product per round.
+     *
+     * @param batchSize the maximum number of units reserved together, at least 1
+     */
+    public RoundRobinScheduler(int batchSize) {
+        this(batchSize, 0);
+    }
+
+    /**
+     * Constructs a scheduler that builds up to the given number of units of each product per round
+     * and parks the units short of stock until the inventory is restocked.
+     *
+     * @param batchSize       the maximum number of units reserved together, at least 1
+     * @param stockWaitMillis how long the run waits for the next restock of parked units, 0 to fail them at once
+     */
+    public RoundRobinScheduler(int batchSize, long stockWaitMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (stockWaitMillis < 0) {
+            throw new IllegalArgumentException("Stock wait must not be negative: " + stockWaitMillis);
+        }
+        this.batchSize = batchSize;
+        this.stockWaitMillis = stockWaitMillis;
+    }
+
+    /**
+     * Iteratively processes one unit, or one batch, of each product per round until all units are built.
+     *
+     * @param products   the products to manufacture
+     * @param units      the number of units to build for each product, indexed like {@code products}
+     * @param manager    the manager that receives every processed {@link ManufacturingProcess}
+     * @param simulation the simulation drawing the outcomes of the units
+     * @param inventory  the inventory the stock is reserved from and the built units are added to
+     */
+    @Override
+    public void schedule(List<Product> products, int[] units, ManufactureManager manager, Simulation simulation,
+                         Inventory inventory) {
+        WaitingProcesses waiting = stockWaitMillis > 0
+                ? new WaitingProcesses(inventory, manager, stockWaitMillis)
+                : null;
+        int[] remaining = units.clone();
+        boolean workLeft;
+        do {
+            workLeft = false;
+            for (int i = 0; i < remaining.length; i++) {
+                if (remaining[i] > 0) {
+                    int built = units[i] - remaining[i];
+                    if (batchSize == 1) {
+                        ManufacturingProcess proc = new ManufacturingProcess(products.get(i), simulation, built,
+                                inventory, waiting);
+                        if (proc.processManufacturing()) {
+                            manager.addProcess(proc); // parked processes are added when resumed
+                        }
+                        remaining[i]--;
+                    } else {
+                        int batch = Math.min(batchSize, remaining[i]);
+                        for (ManufacturingProcess proc
+                                : ManufacturingProcess.processBatch(products.get(i), batch, simulation, built, inventory,
+                                        waiting)) {
+                            manager.addProcess(proc);
+                        }
+                        remaining[i] -= batch;
+                    }
+                    workLeft = true;
+                }
+            }
+        } while (workLeft);
+        if (waiting != null) {
+            waiting.await();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.example;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The random model of manufacturing outcomes: a seed and the probability of each outcome.
+ * <p>
+ * An unseeded simulation draws the outcome of every unit from the {@link java.util.concurrent.ThreadLocalRandom}
+ * of the building thread, so runs differ. A seeded simulation gives every unit its own
+ * {@link SplittableRandom} stream, derived from the seed, the name of the product and the position
+ * of the unit among the units of its product. The outcome of a unit therefore does not depend on
+ * the thread that builds it or on the order units are built in, and schedulers reserve stock in a
+ * fixed order in this mode, so seeded runs are reproducible with any number of threads. Scenarios
+ * with the same seed also share the random numbers of equal units, which keeps the differences
+ * between them free of sampling noise.
+ * </p>
+ * <p>
+ * A unit completes, fails with {@link FailureType#SYSTEM_ERROR} or fails with
+ * {@link FailureType#DAMAGED_COMPONENT} with configurable probabilities, one third each by default,
+ * which can be overridden per product. Simulations are immutable and can be shared between threads.
+ * </p>
+ */
+public final class Simulation {
+    /** The unseeded simulation with equally likely outcomes. */
+    static final Simulation DEFAULT = new Simulation();
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final boolean seeded;
+    private final long seed;
+    // Cumulative probabilities of completing and of a system error, the rest is a damaged component.
+    private final double[] outcomes;
+    private final Map<Product, double[]> productOutcomes;
+
+    /**
+     * Constructs an unseeded simulation with equally likely outcomes.
+     */
+    public Simulation() {
+        this(false, 0, new double[] {1.0 / 3, 2.0 / 3}, new IdentityHashMap<>());
+    }
+
+    /**
+     * Constructs a reproducible simulation with equally likely outcomes.
+     *
+     * @param seed the seed of all unit streams
+     */
+    public Simulation(long seed) {
+        this(true, seed, DEFAULT.outcomes, new IdentityHashMap<>());
+    }
+
+    private Simulation(boolean seeded, long seed, double[] outcomes, Map<Product, double[]> productOutcomes) {
+        this.seeded = seeded;
+        this.seed = seed;
+        this.outcomes = outcomes;
+        this.productOutcomes = productOutcomes;
+    }
+
+    /**
+     * Returns a copy of this simulation with the given outcome weights for all products without
+     * their own weights. The weights are normalized to probabilities.
+     *
+     * @param completed        the weight of completing
+     * @param systemError      the weight of failing with a system error
+     * @param damagedComponent the weight of failing with a damaged component
+     * @return the new {@link Simulation}
+     * @throws IllegalArgumentException if a weight is negative or all are zero
+     */
+    public Simulation withOutcomes(double completed, double systemError, double damagedComponent) {
+        return new Simulation(seeded, seed, cumulative(completed, systemError, damagedComponent), productOutcomes);
+    }
+
+    /**
+     * Returns a copy of this simulation with the given outcome weights for one product. The weights
+     * are normalized to probabilities.
+     *
+     * @param product          the product
+     * @param completed        the weight of completing
+     * @param systemError      the weight of failing with a system error
+     * @param damagedComponent the weight of failing with a damaged component
+     * @return the new {@link Simulation}
+     * @throws IllegalArgumentException if a weight is negative or all are zero
+     */
+    public Simulation withOutcomes(Product product, double completed, double systemError, double damagedComponent) {
+        Map<Product, double[]> copy = new IdentityHashMap<>(productOutcomes);
+        copy.put(product, cumulative(completed, systemError, damagedComponent));
+        return new Simulation(seeded, seed, outcomes, copy);
+    }
+
+    /**
+     * Checks whether the simulation is reproducible.
+     *
+     * @return {@code true} if the outcomes are drawn from seeded unit streams
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Returns the seed of the unit streams.
+     *
+     * @return the seed, 0 for an unseeded simulation
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the probability of each outcome of a unit of a product.
+     *
+     * @param product the product
+     * @return the probabilities of completing, of a system error and of a damaged component
+     */
+    public double[] getOutcomeProbabilities(Product product) {
+        double[] cumulative = cumulativeOutcomes(product);
+        return new double[] {cumulative[0], cumulative[1] - cumulative[0], 1 - cumulative[1]};
+    }
+
+    /**
+     * Returns the random stream of one unit of a product.
+     *
+     * @param product the product
+     * @param unit    the position of the unit among the units of the product, from 0
+     * @return the {@link SplittableRandom} of the unit, or {@code null} if the simulation is unseeded
+     */
+    SplittableRandom unitStream(Product product, long unit) {
+        if (!seeded) {
+            return null;
+        }
+        return new SplittableRandom(mix64(productSeed(product) + GOLDEN_GAMMA * (unit + 1)));
+    }
+
+    /**
+     * Returns a seeded copy of this simulation with the same outcome probabilities.
+     *
+     * @param seed the seed of the copy
+     * @return the new {@link Simulation}
+     */
+    Simulation withSeed(long seed) {
+        return new Simulation(true, seed, outcomes, productOutcomes);
+    }
+
+    /**
+     * Returns the seed the unit streams of a product are derived from.
+     *
+     * @param product the product
+     * @return the seed of the product
+     */
+    long productSeed(Product product) {
+        return mix64(seed + GOLDEN_GAMMA * (product.getName().hashCode() + 1L));
+    }
+
+    /**
+     * Returns the first random number of the stream of a unit without creating the stream, equal to
+     * {@code unitStream(product, unit).nextDouble()}.
+     *
+     * @param productSeed the seed of the product, see {@link #productSeed(Product)}
+     * @param unit        the position of the unit among the units of the product, from 0
+     * @return a random number in [0, 1)
+     */
+    static double unitUniform(long productSeed, long unit) {
+        // SplittableRandom advances its seed by the gamma and mixes it, keeping the top 53 bits.
+        return (mix64(mix64(productSeed + GOLDEN_GAMMA * (unit + 1)) + GOLDEN_GAMMA) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns the cumulative probabilities of the outcomes of a unit of a product, shared and not to be modified.
+     *
+     * @param product the product
+     * @return the probabilities of completing and of completing or failing with a system error
+     */
+    double[] cumulativeOutcomes(Product product) {
+        return productOutcomes.getOrDefault(product, outcomes);
+    }
+
+    /**
+     * Maps a uniform random number to the outcome of a unit of a product.
+     *
+     * @param product the product
+     * @param uniform a random number in [0, 1)
+     * @return 1 to complete, 2 for a system error, 3 for a damaged component
+     */
+    int outcome(Product product, double uniform) {
+        double[] cumulative = productOutcomes.isEmpty() ? outcomes : productOutcomes.getOrDefault(product, outcomes);
+        return uniform < cumulative[0] ? 1 : uniform < cumulative[1] ? 2 : 3;
+    }
+
+    private static double[] cumulative(double completed, double systemError, double damagedComponent) {
+        if (!(completed >= 0) || !(systemError >= 0) || !(damagedComponent >= 0)) {
+            throw new IllegalArgumentException("Outcome weights must not be negative: "
+                    + completed + ", " + systemError + ", " + damagedComponent);
+        }
+        double total = completed + systemError + damagedComponent;
+        if (!(total > 0) || Double.isInfinite(total)) {
+            throw new IllegalArgumentException("Outcome weights must have a positive sum: "
+                    + completed + ", " + systemError + ", " + damagedComponent);
+        }
+        return new double[] {completed / total, (completed + systemError) / total};
+    }
+
+    // The finalizer of SplitMix64, spreading nearby inputs over all 64 bits.
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,168 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocates scarce stock to the competing products of a {@link MaterialPlanner} to maximize the
+ * value of the built units.
+ * <p>
+ * The allocation is an adaptive greedy heuristic for the underlying linear program. Each scarce
+ * component is priced by its remaining demand divided by the square of its remaining stock, and
+ * products are ranked by their value per unit divided by the priced scarce stock one unit uses.
+ * The best ranked products get as many of their units as the remaining stock allows, then the
+ * prices are updated and the rest is ranked again, for a fixed number of epochs. Components that
+ * are still in demand by many waiting products thus become expensive as they run out, and
+ * products using abundant components are preferred.
+ * </p>
+ * <p>
+ * Every epoch sorts the waiting products and scans their scarce requirements once, so thousands
+ * of products and components are allocated in milliseconds. Stock and requirements are exact
+ * stock units, only the prices are approximate.
+ * </p>
+ */
+class StockAllocator {
+    // Number of times the prices are updated and the waiting products ranked again.
+    private static final int EPOCHS = 256;
+    private static final double EPSILON = 1e-9;
+
+    private final int m;
+    private final int[] units;        // requested units per contested product
+    private final double[] values;    // value of one unit per contested product
+    private final int[] start;        // offsets of the scarce requirements of each product
+    private final int[] slots;        // scarce stock slot of each requirement
+    private final int[] positions;    // position of each requirement in the required components
+    private final long[] needs;       // stock units of each requirement per unit
+    private final long[] stock;
+    private final BasicComponent[][] required;
+
+    /**
+     * Collects the scarce requirements of the contested products.
+     *
+     * @param policy    the objective, {@link AllocationPolicy#MAX_VALUE} or {@link AllocationPolicy#MAX_FILL_RATE}
+     * @param products  the planned products
+     * @param required  the basic components one unit of each product needs, indexed like {@code products}
+     * @param needed    the stock units of each of those components
+     * @param units     the requested units, indexed like {@code products}
+     * @param slotOf    the stock slot of each requirement of each product
+     * @param scarce    whether the demand of a slot exceeds its stock
+     * @param stock     the stock units of each slot
+     * @param contested the indexes of the products using scarce slots
+     */
+    StockAllocator(AllocationPolicy policy, List<Product> products, BasicComponent[][] required,
+                   long[][] needed, int[] units, int[][] slotOf, boolean[] scarce, long[] stock,
+                   List<Integer> contested) {
+        this.required = required;
+        this.m = contested.size();
+        this.units = new int[m];
+        this.values = new double[m];
+        this.start = new int[m + 1];
+        for (int c = 0; c < m; c++) {
+            int p = contested.get(c);
+            int count = 0;
+            for (int slot : slotOf[p]) {
+                count += scarce[slot] ? 1 : 0;
+            }
+            start[c + 1] = start[c] + count;
+        }
+        this.slots = new int[start[m]];
+        this.positions = new int[start[m]];
+        this.needs = new long[start[m]];
+        for (int c = 0; c < m; c++) {
+            int p = contested.get(c);
+            Product product = products.get(p);
+            this.units[c] = units[p];
+            values[c] = policy == AllocationPolicy.MAX_VALUE ? product.getTotalCost() : 1.0;
+            int k = start[c];
+            for (int j = 0; j < slotOf[p].length; j++) {
+                if (scarce[slotOf[p][j]]) {
+                    slots[k] = slotOf[p][j];
+                    positions[k] = j;
+                    needs[k++] = needed[p][j];
+                }
+            }
+        }
+        this.stock = stock;
+    }
+
+    /**
+     * Computes the allocation and stores it in the plan arrays.
+     *
+     * @param contested the indexes of the products using scarce slots
+     * @param feasible  receives the allocated units, indexed like {@code products}
+     * @param limiting  receives the component limiting each product that did not get all its units
+     */
+    void allocate(List<Integer> contested, int[] feasible, Component[] limiting) {
+        long[] left = stock.clone();
+        long[] demand = new long[stock.length]; // demand of the products still waiting
+        for (int c = 0; c < m; c++) {
+            for (int k = start[c]; k < start[c + 1]; k++) {
+                demand[slots[k]] += units[c] * needs[k];
+            }
+        }
+
+        boolean[] allocated = new boolean[m];
+        long[] order = new long[m];
+        int chunk = Math.max(1, m / EPOCHS);
+        int waiting = m;
+        while (waiting > 0) {
+            // Rank the waiting products by value per priced unit of scarce stock, best first.
+            int n = 0;
+            for (int c = 0; c < m; c++) {
+                if (allocated[c]) {
+                    continue;
+                }
+                double cost = 0;
+                for (int k = start[c]; k < start[c + 1]; k++) {
+                    double available = Math.max(left[slots[k]], EPSILON);
+                    cost += (double) needs[k] * demand[slots[k]] / (available * available);
+                }
+                float score = cost > 0 ? (float) (values[c] / cost) : Float.POSITIVE_INFINITY;
+                // The bits of non-negative floats are ordered like their values, invert them for a descending sort.
+                order[n++] = (long) (Integer.MAX_VALUE - Float.floatToIntBits(score)) << 32 | c;
+            }
+            Arrays.sort(order, 0, n);
+
+            // Give the best ranked products as many units as the stock allows.
+            for (int i = 0; i < Math.min(chunk, n); i++) {
+                int c = (int) order[i];
+                int fits = units[c];
+                for (int k = start[c]; k < start[c + 1] && fits > 0; k++) {
+                    long available = left[slots[k]];
+                    if (needs[k] > 0) {
+                        fits = available < 0 ? 0 : (int) Math.min(fits, available / needs[k]);
+                    }
+                }
+                for (int k = start[c]; k < start[c + 1]; k++) {
+                    left[slots[k]] -= needs[k] * fits;
+                    demand[slots[k]] -= units[c] * needs[k];
+                }
+                int p = contested.get(c);
+                feasible[p] = fits;
+                allocated[c] = true;
+                waiting--;
+            }
+        }
+
+        for (int c = 0; c < m; c++) {
+            int p = contested.get(c);
+            if (feasible[p] < units[c]) {
+                limiting[p] = required[p][positions[bindingRequirement(c, left)]];
+            }
+        }
+    }
+
+    // Finds the requirement of a product with the fewest units left in stock after the allocation.
+    private int bindingRequirement(int product, long[] left) {
+        int binding = start[product];
+        double fewest = Double.MAX_VALUE;
+        for (int k = start[product]; k < start[product + 1]; k++) {
+            double fits = (double) left[slots[k]] / needs[k];
+            if (fits < fewest) {
+                fewest = fits;
+                binding = k;
+            }
+        }
+        return binding;
+    }
+}
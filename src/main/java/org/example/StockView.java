@@ -0,0 +1,278 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A private, forkable copy of the stock of a catalog, for evaluating alternative plans without
+ * changing the {@link Inventory}.
+ * <p>
+ * The stock is kept in fixed size pages of a dense array, registered basic components at their
+ * dense id and products and unregistered components after them. {@link #fork()} returns a new view
+ * sharing all pages with this one, in constant time whatever the size of the catalog. Both views
+ * then copy a page the first time they change a quantity on it, so scenarios branching off one
+ * baseline only pay for the pages they change. The page table itself is copied on the first change
+ * after a fork, one reference per 256 components.
+ * </p>
+ * <p>
+ * Quantities follow the rules of the {@link Inventory}: the stock of a basic component is kept in
+ * its exact stock units, see {@link BasicComponent#getStockUnits()}, and the stock of a product is
+ * its number of built units, so a view accepts exactly the reservations the inventory would accept.
+ * Every view of one baseline
+ * covers the same components, those of the baseline and all the components and sub-assemblies they
+ * require. Views are thread-safe; forks of one view can be used by different threads concurrently.
+ * </p>
+ */
+public final class StockView {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * The components covered by a baseline and its forks, shared and never changed.
+     */
+    private static final class Slots {
+        private final Component[] components; // by slot
+        private final int registered;         // slots below are the dense ids of basic components
+        private final int size;
+        private final Map<Component, Integer> others = new IdentityHashMap<>();
+
+        private Slots(List<Component> covered) {
+            int maxId = -1;
+            for (Component component : covered) {
+                if (component instanceof BasicComponent) {
+                    maxId = Math.max(maxId, ((BasicComponent) component).getId());
+                }
+            }
+            registered = maxId + 1;
+            List<Component> bySlot = new ArrayList<>();
+            for (int i = 0; i < registered; i++) {
+                bySlot.add(null);
+            }
+            for (Component component : covered) {
+                int id = component instanceof BasicComponent ? ((BasicComponent) component).getId() : -1;
+                if (id >= 0 && bySlot.get(id) == null) {
+                    bySlot.set(id, component);
+                } else {
+                    // Two loads of a catalog may both use an id, only the first keeps it
+                    others.put(component, bySlot.size());
+                    bySlot.add(component);
+                }
+            }
+            components = bySlot.toArray(new Component[0]);
+            size = covered.size();
+        }
+
+        private int slotOf(Component component, int id) {
+            if (id >= 0 && id < registered && components[id] == component) {
+                return id;
+            }
+            Integer slot = others.get(component);
+            if (slot == null) {
+                throw new IllegalArgumentException("Component not in the stock view: " + component.getName());
+            }
+            return slot;
+        }
+    }
+
+    private final Slots slots;
+    private long[][] pages;        // stock units of basic components, bits of the built units of products
+    private boolean[] ownedPages;  // pages copied by this view, null while the page table is shared
+
+    private StockView(Slots slots, long[][] pages) {
+        this.slots = slots;
+        this.pages = pages;
+    }
+
+    /**
+     * Creates a baseline view with the current stock of the given components, the components and
+     * sub-assemblies they require and the built units of the products among them.
+     *
+     * @param components the components to cover
+     * @return the new {@link StockView}
+     */
+    public static StockView of(Collection<? extends Component> components) {
+        Map<Component, Boolean> seen = new IdentityHashMap<>();
+        List<Component> covered = new ArrayList<>();
+        Deque<Component> pending = new ArrayDeque<>(components);
+        while (!pending.isEmpty()) {
+            Component component = pending.pop();
+            if (seen.put(component, Boolean.TRUE) != null) {
+                continue;
+            }
+            covered.add(component);
+            if (component instanceof Product) {
+                Product product = (Product) component;
+                for (int i = 0; i < product.getRequirementCount(); i++) {
+                    pending.push(product.getRequiredComponent(i));
+                }
+            }
+        }
+        Slots slots = new Slots(covered);
+        long[][] pages = new long[(slots.components.length + PAGE_MASK) >>> PAGE_BITS][];
+        for (int p = 0; p < pages.length; p++) {
+            pages[p] = new long[PAGE_SIZE];
+        }
+        for (int s = 0; s < slots.components.length; s++) {
+            Component component = slots.components[s];
+            if (component != null) {
+                pages[s >>> PAGE_BITS][s & PAGE_MASK] = component instanceof Product
+                        ? Double.doubleToLongBits(((Product) component).getQuantity())
+                        : ((BasicComponent) component).getStockUnits();
+            }
+        }
+        return new StockView(slots, pages);
+    }
+
+    /**
+     * Creates a view sharing the current stock of this view, in constant time.
+     * <p>
+     * Later changes of either view are not seen by the other.
+     * </p>
+     *
+     * @return the new {@link StockView}
+     */
+    public synchronized StockView fork() {
+        ownedPages = null; // the pages are shared from now on
+        return new StockView(slots, pages);
+    }
+
+    /**
+     * Returns the number of components covered by this view.
+     *
+     * @return the number of components, including products
+     */
+    public int size() {
+        return slots.size;
+    }
+
+    /**
+     * Returns the stock of a basic component, or the built units of a product.
+     *
+     * @param component the component
+     * @return the quantity in this view
+     * @throws IllegalArgumentException if the component is not covered by this view
+     */
+    public synchronized double getStock(Component component) {
+        int slot = slotOf(component);
+        return component instanceof BasicComponent
+                ? (double) read(slot) / ((BasicComponent) component).getScale()
+                : readBuilt(slot);
+    }
+
+    /**
+     * Returns the stock of a basic component in its stock units, like {@link BasicComponent#getStockUnits()}.
+     *
+     * @param component the basic component
+     * @return the stock units in this view
+     * @throws IllegalArgumentException if the component is not covered by this view
+     */
+    public synchronized long getStockUnits(BasicComponent component) {
+        return read(slotOf(component));
+    }
+
+    /**
+     * Sets the stock of a basic component, or the built units of a product.
+     *
+     * @param component the component
+     * @param quantity  the new quantity
+     * @throws IllegalArgumentException if the component is not covered by this view
+     */
+    public synchronized void setStock(Component component, double quantity) {
+        int slot = slotOf(component);
+        if (component instanceof BasicComponent) {
+            write(slot, ((BasicComponent) component).toUnits(quantity));
+        } else {
+            writeBuilt(slot, quantity);
+        }
+    }
+
+    /**
+     * Adds a manufactured unit of a product, like {@link Inventory#addManufactured(Product)}.
+     *
+     * @param product the manufactured {@link Product}
+     * @throws IllegalArgumentException if the product is not covered by this view
+     */
+    public synchronized void addManufactured(Product product) {
+        int slot = slotOf(product);
+        writeBuilt(slot, readBuilt(slot) + 1);
+    }
+
+    /**
+     * Reserves the requirements of as many units as possible, up to the given count, like
+     * {@link Inventory#reserveUpTo(Product, int)}.
+     *
+     * @param product the product whose requirements are reserved
+     * @param units   the number of units requested
+     * @return the number of units whose requirements were deducted, between 0 and {@code units}
+     * @throws IllegalArgumentException if a requirement is not covered by this view
+     */
+    public synchronized int reserveUpTo(Product product, int units) {
+        int count = product.getRequirementCount();
+        int buildable = units;
+        for (int i = 0; i < count && buildable > 0; i++) {
+            Component component = product.getRequiredComponent(i);
+            int slot = slots.slotOf(component, product.getRequiredComponentId(i));
+            buildable = component instanceof BasicComponent
+                    ? Inventory.fitsUnits(read(slot), product.getRequiredUnits(i), buildable)
+                    : Inventory.fitsAssembly(readBuilt(slot), product.getRequiredQuantity(i), buildable);
+        }
+        for (int i = 0; buildable > 0 && i < count; i++) {
+            Component component = product.getRequiredComponent(i);
+            int slot = slots.slotOf(component, product.getRequiredComponentId(i));
+            if (component instanceof BasicComponent) {
+                write(slot, read(slot) - product.getRequiredUnits(i) * buildable);
+            } else {
+                writeBuilt(slot, readBuilt(slot) - product.getRequiredQuantity(i) * buildable);
+            }
+        }
+        return buildable;
+    }
+
+    /**
+     * Reserves the requirements of one unit of a product, like {@link Inventory#reserve(Product)}.
+     *
+     * @param product the product whose requirements are reserved
+     * @return {@code true} if all quantities were deducted, {@code false} if none were
+     */
+    public boolean reserve(Product product) {
+        return reserveUpTo(product, 1) == 1;
+    }
+
+    private int slotOf(Component component) {
+        return slots.slotOf(component,
+                component instanceof BasicComponent ? ((BasicComponent) component).getId() : -1);
+    }
+
+    // The built units of a product are kept as the bits of their double, like Product#getQuantity.
+    private double readBuilt(int slot) {
+        return Double.longBitsToDouble(read(slot));
+    }
+
+    private void writeBuilt(int slot, double built) {
+        write(slot, Double.doubleToLongBits(built));
+    }
+
+    private long read(int slot) {
+        return pages[slot >>> PAGE_BITS][slot & PAGE_MASK];
+    }
+
+    // Copies the page table and the page of the slot first if they are shared.
+    private void write(int slot, long value) {
+        if (ownedPages == null) {
+            pages = pages.clone();
+            ownedPages = new boolean[pages.length];
+        }
+        int page = slot >>> PAGE_BITS;
+        if (!ownedPages[page]) {
+            pages[page] = pages[page].clone();
+            ownedPages[page] = true;
+        }
+        pages[page][slot & PAGE_MASK] = value;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+/**
+ * Receives the units of a reservation that waited in the queues of an {@link Inventory}.
+ * <p>
+ * Units that {@link Inventory#reserveUpTo(Product, int, StockWaiter)} cannot reserve at once wait
+ * for a {@link Inventory#restock(String, double)} in first come, first served order. Every waiting
+ * unit ends in exactly one call of {@link #reserved(Product, int)} or
+ * {@link #cancelled(Product, int)}, made on the thread that restocked or cancelled, after the
+ * inventory released its locks. Implementations must be thread-safe and should return quickly.
+ * </p>
+ */
+public interface StockWaiter {
+    /**
+     * Called when the requirements of waiting units were reserved.
+     *
+     * @param product the product whose requirements were deducted
+     * @param units   the number of units reserved, at least 1
+     */
+    void reserved(Product product, int units);
+
+    /**
+     * Called when waiting units were removed by {@link Inventory#cancelWaiting(StockWaiter)}.
+     *
+     * @param product the product of the units
+     * @param units   the number of units that stopped waiting, at least 1
+     */
+    void cancelled(Product product, int units);
+}
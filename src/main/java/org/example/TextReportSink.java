@@ -0,0 +1,104 @@
+package org.example;
+
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * A {@link ReportSink} printing the human readable report, line for line as the console report.
+ */
+class TextReportSink extends BufferedReportSink {
+
+    /**
+     * Constructs a text sink writing to the given channel.
+     *
+     * @param channel     the output channel
+     * @param charset     the character encoding of the output
+     * @param locale      the locale of the decimal separator
+     * @param ownsChannel whether {@link #close()} closes the channel
+     */
+    TextReportSink(WritableByteChannel channel, Charset charset, Locale locale, boolean ownsChannel) {
+        super(channel, charset, locale, ownsChannel);
+    }
+
+    @Override
+    public void section(String title) {
+        append('\n').append("=== ").append(title).append(" ===").endLine();
+    }
+
+    @Override
+    public void message(String text) {
+        append(text).endLine();
+    }
+
+    @Override
+    public void component(String name, String type, double unitCost, double unitWeight, double stock) {
+        append("Basic Component: ").appendPadded(name, 20)
+                .append(" | Type: ").appendPadded(type, 14)
+                .append(" | Unit Cost: ").appendFixed(unitCost, 1, 8)
+                .append(" | Unit Weight: ").appendFixed(unitWeight, 2, 6)
+                .append(" | Stock: ").appendFixed(stock, 1, 6)
+                .endLine();
+    }
+
+    @Override
+    public void product(String name, double unitCost, double unitWeight, double quantity) {
+        append("Product: ").appendPadded(name, 28)
+                .append(" | Unit Cost: ").appendFixed(unitCost, 1, 9)
+                .append(" | Unit Weight: ").appendFixed(unitWeight, 2, 6)
+                .append(" | Quantity : ").appendFixed(quantity, 1, 7)
+                .endLine();
+    }
+
+    @Override
+    public void processState(String product, String state) {
+        append("Product: ").appendPadded(product, 15).append(" | State: ").appendPadded(state, 25).endLine();
+    }
+
+    @Override
+    public void manufactured(String product, long units, double cost, double weight) {
+        append(" - ").appendPadded(product, 12)
+                .append(": ").appendNumber(units, 2)
+                .append(" units | Cost: ").appendFixed(cost, 2, 8)
+                .append(" | Weight: ").appendFixed(weight, 2, 7)
+                .endLine();
+    }
+
+    @Override
+    public void failures(FailureType type, long count) {
+        append("Failures due to ").appendPadded(type + ":", 18).append(' ').appendNumber(count, 0).endLine();
+    }
+
+    @Override
+    public void plannedProduct(String product, int feasible, int requested, String limitedBy) {
+        append("Product: ").appendPadded(product, 15)
+                .append(" | Feasible: ").appendNumber(feasible, 5)
+                .append(" of ").appendNumber(requested, 5)
+                .append(" | Limited by: ").append(limitedBy)
+                .endLine();
+    }
+
+    @Override
+    public void shortage(String component, double demand, double available, double missing) {
+        append("Shortage: ").appendPadded(component, 20)
+                .append(" | Demand: ").appendFixed(demand, 1, 8)
+                .append(" | Available: ").appendFixed(available, 1, 8)
+                .append(" | Missing: ").appendFixed(missing, 1, 8)
+                .endLine();
+    }
+
+    @Override
+    public void shortUnits(long units) {
+        append("Units predicted to fail for lack of stock: ").appendNumber(units, 0).endLine();
+    }
+
+    @Override
+    public void forecast(String measure, double mean, double p5, double p50, double p95) {
+        append("Forecast: ").appendPadded(measure, 28)
+                .append(" | Mean: ").appendFixed(mean, 2, 10)
+                .append(" | P5: ").appendFixed(p5, 2, 10)
+                .append(" | P50: ").appendFixed(p50, 2, 10)
+                .append(" | P95: ").appendFixed(p95, 2, 10)
+                .endLine();
+    }
+}
@@ -1,54 +1,92 @@
 package org.example;
 
-import java.util.Map;
-
 /**
  * Implements and represents a state where the manufacturing process is waiting for all required
  * components to be available in stock before proceeding.
  * <p>
  * In this state, the system checks the {@link Inventory} singleton to verify whether
  * all components needed to manufacture the product are available in sufficient quantities.
+ * The check and the deduction are done by {@link Inventory#reserve(Product)} as a single
+ * all-or-nothing step, so concurrent processes can never oversell the stock.
  * </p>
  * <p>
  * If the stock is sufficient, the required quantities are deducted and the process
  * transitions to {@link InManufacturingState}. Otherwise, it sets the
- * {@link FailureType} to {@code STOCK_SHORTAGE} and transitions to {@link FailedState}.
+ * {@link FailureType} to {@code STOCK_SHORTAGE} and transitions to {@link FailedState},
+ * unless its scheduler waits for stock: the process then queues for the stock it lacks and stays
+ * in this state, parked without holding a thread, until a restock of the inventory reserves its
+ * stock and resumes it.
  * </p>
  */
 public class WaitingForStockState implements ManufacturingState {
+    private static final WaitingForStockState instance = new WaitingForStockState();
+
+    private WaitingForStockState() {
+    }
+
     /**
-     * Checks the availability of all required components for the product in {@link Inventory}.
+     * Retrieves the shared instance of the waiting for stock state.
+     * The state holds no per-process data, so a single instance serves every process.
+     *
+     * @return the single {@link WaitingForStockState} instance
+     */
+    public static WaitingForStockState getInstance() {
+        return instance;
+    }
+
+    /**
+     * Checks the availability of all required components for the product in the {@link Inventory}
+     * of the process.
      * <p>
      * If all components are available in sufficient quantity, the components are removed from
      * the inventory and the process transitions to {@link InManufacturingState}. 
      * If not, the process fails, sets the {@link FailureType} to {@code STOCK_SHORTAGE}
-     * and transitions to {@link FailedState}.
+     * and transitions to {@link FailedState}, or is parked if it waits for stock.
+     * </p>
+     * <p>
+     * A parked process belongs to its {@link WaitingProcesses} from then on, so a caller that may
+     * park processes uses {@link #reserveOrPark(ManufacturingProcess)} to learn whether it may still
+     * use the process.
      * </p>
      *
      * @param proc the manufacturing process context waiting for stock availability
      */
     @Override
     public void proceed(ManufacturingProcess proc) {
+        reserveOrPark(proc);
+    }
+
+    /**
+     * Reserves the stock of the process like {@link #proceed(ManufacturingProcess)} and tells
+     * whether the process was parked.
+     * <p>
+     * Once parked, a restock can resume the process on another thread at any time, setting its
+     * state, building its unit and handing it to the {@link ManufactureManager}. The caller must
+     * then neither read nor record the process.
+     * </p>
+     *
+     * @param proc the manufacturing process context waiting for stock availability
+     * @return {@code true} if the process was parked, {@code false} if it moved to the next state
+     */
+    boolean reserveOrPark(ManufacturingProcess proc) {
         Product product = proc.getProduct();
-        Inventory inv   = Inventory.getInstance();
-        boolean ok = true;
-        // Check if all required components have sufficient stock.
-        for (Map.Entry<Component, Double> e : product.getRequirements().entrySet()) {
-            BasicComponent comp = (BasicComponent) e.getKey();
-            if (comp == null || comp.getStockQuantity() < e.getValue()) {
-                ok = false;
-                break;
+        WaitingProcesses waiting = proc.getWaiting();
+        if (waiting != null) {
+            // Queue for the missing stock, unless a restock reserved it before the process parked
+            if (proc.getInventory().reserveUpTo(product, 1, waiting) != 1 && waiting.park(proc)) {
+                return true;
             }
+            proc.setState(InManufacturingState.getInstance());
+            return false;
         }
-        if (!ok) {
+        // Check and deduct all required components in a single atomic reservation.
+        if (!proc.getInventory().reserve(product)) {
             proc.setFailureType(FailureType.STOCK_SHORTAGE);
-            proc.setState(new FailedState());
+            proc.setState(FailedState.getInstance());
         } else {
-             // Deduct stock for the all required basic components before proceeding.
-            product.getRequirements()
-                   .forEach((comp, qty) -> inv.removeStock(comp.getName(), qty));
-            proc.setState(new InManufacturingState());
+            proc.setState(InManufacturingState.getInstance());
         }
+        return false;
     }
 
     /**
@@ -63,4 +101,14 @@ public class WaitingForStockState implements ManufacturingState {
     public String getStateName(ManufacturingProcess process) {
         return "Waiting For Stock";
     }
+
+    /**
+     * Returns the status of this state, always {@link ProcessStatus#WAITING_FOR_STOCK}.
+     *
+     * @return {@link ProcessStatus#WAITING_FOR_STOCK}
+     */
+    @Override
+    public ProcessStatus getStatus() {
+        return ProcessStatus.WAITING_FOR_STOCK;
+    }
 }
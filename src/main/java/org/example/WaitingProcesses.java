@@ -0,0 +1,163 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The processes of one scheduling run that wait in {@link WaitingForStockState} until their stock
+ * is restocked.
+ * <p>
+ * A process that cannot reserve its stock queues in the {@link Inventory} with this group as its
+ * {@link StockWaiter} and is parked here without blocking a thread. When a restock reserves units of
+ * a product, the oldest parked processes of the product are resumed on the restocking thread and
+ * handed to the {@link ManufactureManager}. {@link #await()} blocks the scheduler until every parked
+ * process was resumed, or until none was resumed for the wait timeout; the processes still parked
+ * then fail with {@link FailureType#STOCK_SHORTAGE}.
+ * </p>
+ */
+final class WaitingProcesses implements StockWaiter {
+    private final Inventory inventory;
+    private final ManufactureManager manager;
+    private final long timeoutNanos;
+    private final Map<Product, ArrayDeque<ManufacturingProcess>> parked = new IdentityHashMap<>();
+    // Units reserved by a restock before the process that queued them was parked
+    private final Map<Product, int[]> early = new IdentityHashMap<>();
+    private int outstanding; // parked processes not handed to the manager yet
+    private long progress;   // System.nanoTime() of the last reservation
+
+    /**
+     * Constructs an empty group.
+     *
+     * @param inventory     the inventory the processes queue in
+     * @param manager       the manager that receives every resumed or failed process
+     * @param timeoutMillis how long {@link #await()} waits for the next reservation, at least 1
+     */
+    WaitingProcesses(Inventory inventory, ManufactureManager manager, long timeoutMillis) {
+        this.inventory = inventory;
+        this.manager = manager;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Parks a process whose unit was queued with {@link Inventory#reserveUpTo(Product, int, StockWaiter)},
+     * unless a restock already reserved a unit of its product.
+     *
+     * @param proc the process waiting for stock
+     * @return {@code true} if the process was parked: a restock may resume it on another thread at any
+     *         time, so the caller must not use it any more; {@code false} if its unit is reserved and
+     *         the caller continues it
+     */
+    synchronized boolean park(ManufacturingProcess proc) {
+        int[] reserved = early.get(proc.getProduct());
+        if (reserved != null && reserved[0] > 0) {
+            reserved[0]--;
+            return false;
+        }
+        parked.computeIfAbsent(proc.getProduct(), p -> new ArrayDeque<>()).addLast(proc);
+        outstanding++;
+        return true;
+    }
+
+    /**
+     * Resumes the oldest parked processes of the product, which build their units and are handed
+     * to the manager.
+     *
+     * @param product the product whose requirements were deducted
+     * @param units   the number of units reserved
+     */
+    @Override
+    public void reserved(Product product, int units) {
+        List<ManufacturingProcess> resumed = take(product, units, true);
+        for (ManufacturingProcess proc : resumed) {
+            proc.setState(InManufacturingState.getInstance());
+            proc.proceed();
+            manager.addProcess(proc);
+        }
+        done(resumed.size());
+    }
+
+    /**
+     * Fails the newest parked processes of the product with {@link FailureType#STOCK_SHORTAGE}.
+     *
+     * @param product the product of the units
+     * @param units   the number of units that stopped waiting
+     */
+    @Override
+    public void cancelled(Product product, int units) {
+        List<ManufacturingProcess> failed = take(product, units, false);
+        for (ManufacturingProcess proc : failed) {
+            proc.setFailureType(FailureType.STOCK_SHORTAGE);
+            proc.setState(FailedState.getInstance());
+            manager.addProcess(proc);
+        }
+        done(failed.size());
+    }
+
+    /**
+     * Waits until every parked process was handed to the manager, failing the remaining ones once
+     * no unit was reserved for the timeout.
+     * <p>
+     * Call it after all processes of the run were dispatched. An interrupt stops the waiting like a
+     * timeout and is restored before returning.
+     * </p>
+     */
+    void await() {
+        boolean interrupted = false;
+        boolean expired = false;
+        synchronized (this) {
+            progress = System.nanoTime();
+            while (outstanding > 0 && !interrupted) {
+                long left = progress + timeoutNanos - System.nanoTime();
+                if (left <= 0) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            expired = outstanding > 0;
+        }
+        if (expired) {
+            inventory.cancelWaiting(this);
+        }
+        // Restocks that reserved units before the cancellation may still be resuming processes
+        synchronized (this) {
+            while (outstanding > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Removes parked processes of a product, the oldest or the newest first. Reserved units
+    // without a parked process are kept for the process that parks next.
+    private synchronized List<ManufacturingProcess> take(Product product, int units, boolean oldest) {
+        ArrayDeque<ManufacturingProcess> queue = parked.get(product);
+        List<ManufacturingProcess> taken = new ArrayList<>(units);
+        while (taken.size() < units && queue != null && !queue.isEmpty()) {
+            taken.add(oldest ? queue.pollFirst() : queue.pollLast());
+        }
+        if (oldest) {
+            early.computeIfAbsent(product, p -> new int[1])[0] += units - taken.size();
+            progress = System.nanoTime();
+        }
+        return taken;
+    }
+
+    private synchronized void done(int processes) {
+        outstanding -= processes;
+        notifyAll();
+    }
+}
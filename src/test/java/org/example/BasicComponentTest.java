@@ -0,0 +1,113 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the fixed-point stock arithmetic of {@link BasicComponent}.
+ */
+class BasicComponentTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void toUnitsRoundsHalfUpToTheStockPrecision() {
+        BasicComponent cents = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 0);
+        BasicComponent grams = new BasicComponent(1, "Screw", 1, 1, "Hardware", 0, 3);
+        BasicComponent pieces = new BasicComponent(2, "Hinge", 1, 1, "Hardware", 0, 0);
+
+        assertEquals(13, cents.toUnits(0.125));
+        assertEquals(-12, cents.toUnits(-0.125));
+        assertEquals(1250, cents.toUnits(12.5));
+        assertEquals(1, grams.toUnits(0.0005));
+        assertEquals(3, pieces.toUnits(2.5));
+    }
+
+    @Test
+    void fractionalDeductionsLeaveExactStock() {
+        BasicComponent component = new BasicComponent(0, "Paint", 1, 1, "Paint", 1.0);
+
+        for (int i = 0; i < 10; i++) {
+            component.decreaseQuantity(0.1);
+        }
+
+        assertEquals(0, component.getStockUnits());
+        assertEquals(0.0, component.getStockQuantity());
+    }
+
+    @Test
+    void constructorRejectsOutOfRangeDecimals() {
+        assertThrows(IllegalArgumentException.class, () -> new BasicComponent(0, "Wood", 1, 1, "Raw Material", 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new BasicComponent(0, "Wood", 1, 1, "Raw Material", 0, 10));
+    }
+
+    @Test
+    void tryDecreaseUnitsRejectsDeductionsBeyondTheStock() {
+        BasicComponent component = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 1.5);
+
+        assertFalse(component.tryDecreaseUnits(151));
+        assertTrue(component.tryDecreaseUnits(150));
+        assertEquals(0, component.getStockUnits());
+    }
+
+    @Test
+    void concurrentDeductionsAreNotLost() throws Exception {
+        int deductions = 10_000_000;
+        BasicComponent component = new BasicComponent(0, "Wood", 1, 1, "Raw Material", deductions / 100.0);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < deductions / THREADS; i++) {
+                component.decreaseUnits(1);
+            }
+            return 0L;
+        });
+
+        assertEquals(0, component.getStockUnits());
+    }
+
+    @Test
+    void concurrentConditionalDeductionsNeverOverdraw() throws Exception {
+        BasicComponent component = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 1000);
+
+        long taken = runConcurrently(() -> {
+            long count = 0;
+            while (component.tryDecreaseUnits(7)) {
+                count++;
+            }
+            return count;
+        });
+
+        assertEquals(100_000 / 7, taken);
+        assertEquals(100_000 % 7, component.getStockUnits());
+    }
+
+    // Runs the task on every thread at once and returns the sum of the results.
+    private static long runConcurrently(Callable<Long> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(task));
+            }
+            long sum = 0;
+            for (Future<Long> result : results) {
+                sum += result.get();
+            }
+            return sum;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link BufferedReportSink} encodes surrogate pairs split across the buffers it drains.
+ */
+class BufferedReportSinkTest {
+    private static final String PAIR = "\uD83D\uDEE0"; // a character outside the basic multilingual plane
+
+    @Test
+    void surrogatePairSplitByAFlushIsKept() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TextReportSink sink = new TextReportSink(Channels.newChannel(out), StandardCharsets.UTF_8, Locale.ROOT, true);
+
+        sink.append("Tool ").append(PAIR.charAt(0));
+        sink.flush();
+        sink.append(PAIR.charAt(1)).endLine();
+        sink.close();
+
+        assertEquals("Tool " + PAIR + BufferedReportSink.NEWLINE, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void unpairedHighSurrogateAtTheEndIsReplaced() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TextReportSink sink = new TextReportSink(Channels.newChannel(out), StandardCharsets.UTF_8, Locale.ROOT, true);
+
+        sink.append("Tool ").append(PAIR.charAt(0));
+        sink.close();
+
+        assertEquals("Tool ?", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link CapacityPlanner} trials reserve stock like the {@link Inventory}.
+ */
+class CapacityPlannerTest {
+    private static final Simulation ALWAYS_COMPLETED = new Simulation(1).withOutcomes(1, 0, 0);
+
+    @Test
+    void trialsBuildOnlyTheUnitsTheInventoryAccepts() {
+        // 29.999999999 covers two units of 10, although the quotient is within 1e-9 of three
+        BasicComponent resin = new BasicComponent(0, "Resin", 1, 1, "Raw Material", 29.999999999, 9);
+        Product mould = new Product("Mould", new Component[]{resin}, new double[]{10}, 3);
+
+        CapacityForecast forecast = new CapacityPlanner(ALWAYS_COMPLETED, 3, 1).forecast(List.of(mould), 4);
+
+        assertEquals(2.0, forecast.getMeanOutput());
+        assertEquals(1.0, forecast.getMeanFailures(FailureType.STOCK_SHORTAGE));
+        assertEquals(29_999_999_999L, resin.getStockUnits());
+    }
+
+    @Test
+    void trialsBuildSubAssembliesBeforeTheProductsUsingThem() {
+        BasicComponent wood = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 10);
+        Product leg = new Product("Leg", new Component[]{wood}, new double[]{1}, 0);
+        Product table = new Product("Table", new Component[]{wood, leg}, new double[]{2, 4}, 2);
+
+        CapacityForecast forecast = new CapacityPlanner(ALWAYS_COMPLETED, 1, 2)
+                .forecast(List.of(table), new int[]{2}, 3);
+
+        // Eight legs leave stock for one table top only
+        assertEquals(9.0, forecast.getMeanOutput());
+        assertEquals(1.0, forecast.getMeanFailures(FailureType.STOCK_SHORTAGE));
+    }
+}
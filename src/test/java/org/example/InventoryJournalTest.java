@@ -0,0 +1,123 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link InventoryJournal} recovers the component stock from a snapshot and the records after it.
+ */
+class InventoryJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverReplaysTheRecordsAfterTheSnapshot() throws IOException {
+        Catalog before = new Catalog();
+        Inventory inventory = before.inventory();
+        try (InventoryJournal journal = new InventoryJournal(directory, before.components, before.products)) {
+            journal.recover(null);
+            inventory.setJournal(journal);
+            assertEquals(3, inventory.reserveUpTo(before.shelf, 3));
+            journal.snapshot();
+            assertEquals(2, inventory.reserveUpTo(before.shelf, 2));
+            inventory.removeStock("Screws", 0.3);
+            inventory.restock("Wood", 0.125);
+            inventory.setJournal(null);
+        }
+
+        Catalog after = new Catalog();
+        try (InventoryJournal journal = new InventoryJournal(directory, after.components, after.products)) {
+            assertEquals(3, journal.recover(null));
+        }
+
+        for (int i = 0; i < before.components.size(); i++) {
+            assertEquals(before.components.get(i).getStockUnits(), after.components.get(i).getStockUnits(),
+                    before.components.get(i).getName());
+        }
+    }
+
+    @Test
+    void recoverRestocksTheUnitsThatWereAdded() throws IOException {
+        Catalog before = new Catalog();
+        Inventory inventory = before.inventory();
+        try (InventoryJournal journal = new InventoryJournal(directory, before.components, before.products)) {
+            journal.recover(null);
+            inventory.setJournal(journal);
+            // Half a stock unit rounds up when added, but would round towards zero as a negative deduction
+            inventory.restock("Wood", 0.125);
+            inventory.restock("Wood", 0.375);
+            inventory.setJournal(null);
+        }
+
+        Catalog after = new Catalog();
+        try (InventoryJournal journal = new InventoryJournal(directory, after.components, after.products)) {
+            journal.recover(null);
+        }
+
+        assertEquals(1051, before.wood.getStockUnits());
+        assertEquals(before.wood.getStockUnits(), after.wood.getStockUnits());
+    }
+
+    @Test
+    void recoverKeepsTheProductQuantitiesOfTheCatalog() throws IOException {
+        Catalog before = new Catalog();
+        Inventory inventory = before.inventory();
+        try (InventoryJournal journal = new InventoryJournal(directory, before.components, before.products)) {
+            journal.recover(null);
+            inventory.setJournal(journal);
+            inventory.setProductQuantity(before.shelf, 0);
+            inventory.addManufactured(before.shelf);
+            journal.snapshot();
+            inventory.addManufactured(before.shelf);
+            inventory.setJournal(null);
+        }
+
+        Catalog after = new Catalog();
+        try (InventoryJournal journal = new InventoryJournal(directory, after.components, after.products)) {
+            journal.recover(null);
+        }
+
+        assertEquals(5.0, after.shelf.getQuantity());
+    }
+
+    @Test
+    void manufacturingCommitsTheJournal() throws IOException {
+        Catalog catalog = new Catalog();
+        Inventory inventory = catalog.inventory();
+        try (InventoryJournal journal = new InventoryJournal(directory, catalog.components, catalog.products)) {
+            journal.recover(null);
+            inventory.setJournal(journal);
+            ManufacturingService service = new ManufacturingService(new RoundRobinScheduler(), Simulation.DEFAULT,
+                    inventory);
+            service.getManager().setJournal(journal);
+            service.manufacture(catalog.products);
+
+            assertTrue(journal.size() > 0);
+            assertEquals(journal.size(), journal.durableSize());
+            inventory.setJournal(null);
+        }
+    }
+
+    // A small catalog, created again to recover into fresh objects.
+    private static final class Catalog {
+        final BasicComponent wood = new BasicComponent(0, "Wood", 10, 2, "Raw Material", 10);
+        final BasicComponent screws = new BasicComponent(1, "Screws", 0.1, 0.01, "Hardware", 5, 3);
+        final Product shelf = new Product("Shelf", new Component[]{wood, screws}, new double[]{1.5, 0.125}, 5);
+        final List<BasicComponent> components = List.of(wood, screws);
+        final List<Product> products = List.of(shelf);
+
+        Inventory inventory() {
+            Inventory inventory = new Inventory();
+            components.forEach(inventory::addComponent);
+            products.forEach(inventory::addComponent);
+            return inventory;
+        }
+    }
+}
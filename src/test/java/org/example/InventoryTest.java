@@ -0,0 +1,208 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link Inventory} reservations and restocks are atomic and lose no stock.
+ */
+class InventoryTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void reservationsDeductEveryRequirementOrNone() {
+        Inventory inventory = new Inventory();
+        BasicComponent wood = component(inventory, 0, "Wood", 3);
+        BasicComponent screws = component(inventory, 1, "Screws", 1);
+        Product shelf = new Product("Shelf", new Component[]{wood, screws}, new double[]{1.5, 0.75}, 1);
+
+        assertEquals(1, inventory.reserveUpTo(shelf, 3));
+        assertEquals(150, wood.getStockUnits());
+        assertEquals(25, screws.getStockUnits());
+        assertEquals(0, inventory.reserveUpTo(shelf, 1));
+        assertEquals(150, wood.getStockUnits());
+        assertEquals(25, screws.getStockUnits());
+    }
+
+    @Test
+    void concurrentReservationsNeverOverdrawOrLoseStock() throws Exception {
+        Inventory inventory = new Inventory();
+        BasicComponent wood = component(inventory, 0, "Wood", 1000);
+        BasicComponent screws = component(inventory, 1, "Screws", 500);
+        Product shelf = new Product("Shelf", new Component[]{wood, screws}, new double[]{1.5, 0.75}, 1);
+        AtomicLong reserved = new AtomicLong();
+
+        runConcurrently(id -> {
+            SplittableRandom random = new SplittableRandom(id);
+            int units;
+            while ((units = inventory.reserveUpTo(shelf, 1 + random.nextInt(4))) > 0) {
+                reserved.addAndGet(units);
+            }
+        });
+
+        assertEquals(666, reserved.get());
+        assertEquals(100_000 - 150 * 666, wood.getStockUnits());
+        assertEquals(50_000 - 75 * 666, screws.getStockUnits());
+    }
+
+    @Test
+    void waitingReservationsAreServedInArrivalOrder() {
+        Inventory inventory = new Inventory();
+        BasicComponent wood = component(inventory, 0, "Wood", 0);
+        Product table = new Product("Table", new Component[]{wood}, new double[]{5}, 1);
+        Product chair = new Product("Chair", new Component[]{wood}, new double[]{1}, 1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        StockWaiter waiter = new StockWaiter() {
+            @Override
+            public void reserved(Product product, int units) {
+                events.add(product.getName() + " x" + units);
+            }
+
+            @Override
+            public void cancelled(Product product, int units) {
+                events.add("cancelled " + product.getName() + " x" + units);
+            }
+        };
+
+        assertEquals(0, inventory.reserveUpTo(table, 1, waiter));
+        assertEquals(0, inventory.reserveUpTo(chair, 2, waiter));
+        inventory.restock("Wood", 3);
+        assertEquals(List.of(), events);
+        inventory.restock("Wood", 3);
+        assertEquals(List.of("Table x1", "Chair x1"), events);
+        assertEquals(0, inventory.reserveUpTo(table, 1, waiter));
+        inventory.restock("Wood", 1);
+        assertEquals(List.of("Table x1", "Chair x1", "Chair x1"), events);
+        inventory.cancelWaiting(waiter);
+        assertEquals(List.of("Table x1", "Chair x1", "Chair x1", "cancelled Table x1"), events);
+        assertEquals(0, wood.getStockUnits());
+    }
+
+    @Test
+    void concurrentReservationsAndRestocksConserveStock() throws Exception {
+        Inventory inventory = new Inventory();
+        BasicComponent[] components = new BasicComponent[6];
+        for (int i = 0; i < components.length; i++) {
+            components[i] = component(inventory, i, "C" + i, 10);
+        }
+        SplittableRandom random = new SplittableRandom(1);
+        Product[] products = new Product[20];
+        for (int p = 0; p < products.length; p++) {
+            int first = random.nextInt(components.length);
+            int second = (first + 1 + random.nextInt(components.length - 1)) % components.length;
+            products[p] = new Product("P" + p, new Component[]{components[first], components[second]},
+                    new double[]{(1 + random.nextInt(300)) / 100.0, (1 + random.nextInt(300)) / 100.0}, 1);
+        }
+        AtomicLongArray granted = new AtomicLongArray(products.length);
+        AtomicLong requested = new AtomicLong();
+        AtomicLong cancelled = new AtomicLong();
+        StockWaiter waiter = new StockWaiter() {
+            @Override
+            public void reserved(Product product, int units) {
+                granted.addAndGet(Integer.parseInt(product.getName().substring(1)), units);
+            }
+
+            @Override
+            public void cancelled(Product product, int units) {
+                cancelled.addAndGet(units);
+            }
+        };
+        AtomicLongArray restocked = new AtomicLongArray(components.length);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread supplier = new Thread(() -> {
+            SplittableRandom supply = new SplittableRandom(7);
+            while (!stop.get()) {
+                int c = supply.nextInt(components.length);
+                int units = supply.nextInt(500);
+                restocked.addAndGet(c, units);
+                inventory.restock("C" + c, units / 100.0);
+            }
+        });
+        supplier.start();
+        try {
+            runConcurrently(id -> {
+                SplittableRandom requests = new SplittableRandom(100 + id);
+                for (int i = 0; i < 10_000; i++) {
+                    int p = requests.nextInt(products.length);
+                    int units = 1 + requests.nextInt(4);
+                    requested.addAndGet(units);
+                    granted.addAndGet(p, inventory.reserveUpTo(products[p], units, waiter));
+                }
+            });
+        } finally {
+            stop.set(true);
+            supplier.join();
+        }
+        inventory.cancelWaiting(waiter);
+
+        long total = 0;
+        for (int p = 0; p < products.length; p++) {
+            total += granted.get(p);
+        }
+        assertEquals(requested.get(), total + cancelled.get());
+        for (int c = 0; c < components.length; c++) {
+            long used = 0;
+            for (int p = 0; p < products.length; p++) {
+                for (int j = 0; j < products[p].getRequirementCount(); j++) {
+                    if (products[p].getRequiredComponent(j) == components[c]) {
+                        used += products[p].getRequiredUnits(j) * granted.get(p);
+                    }
+                }
+            }
+            assertEquals(1000 + restocked.get(c) - used, components[c].getStockUnits(), "stock of C" + c);
+            assertTrue(components[c].getStockUnits() >= 0, "stock of C" + c + " overdrawn");
+        }
+    }
+
+    @Test
+    void restockAddsTheQuantityInExactUnits() {
+        Inventory inventory = new Inventory();
+        BasicComponent paint = component(inventory, 0, "Paint", 0);
+
+        inventory.restock("Paint", 0.125);
+        inventory.restock("Paint", 0.1);
+
+        assertEquals(23, paint.getStockUnits());
+        assertThrows(IllegalArgumentException.class, () -> inventory.restock("Paint", -1));
+        assertThrows(IllegalArgumentException.class, () -> inventory.restock("Glue", 1));
+    }
+
+    private static BasicComponent component(Inventory inventory, int id, String name, double stock) {
+        BasicComponent component = new BasicComponent(id, name, 1, 1, "Raw Material", stock);
+        inventory.addComponent(component);
+        return component;
+    }
+
+    // Runs the task on every thread at once, passing the index of the thread.
+    private static void runConcurrently(IntTask task) throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < THREADS; i++) {
+            int id = i;
+            Thread thread = new Thread(() -> task.run(id));
+            thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), errors);
+    }
+
+    @FunctionalInterface
+    private interface IntTask {
+        void run(int id);
+    }
+}
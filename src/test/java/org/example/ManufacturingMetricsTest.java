@@ -0,0 +1,39 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link ManufacturingMetrics} keeps the counts of terminated threads without keeping their counters.
+ */
+class ManufacturingMetricsTest {
+    private static final int THREADS = 200;
+
+    @Test
+    void countsOfTerminatedThreadsAreRetired() throws InterruptedException {
+        ManufacturingMetrics metrics = ManufacturingMetrics.getInstance();
+        ManufacturingMetrics.Snapshot before = metrics.snapshot();
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread worker = new Thread(() -> {
+                for (int j = 0; j < 10; j++) {
+                    metrics.recordTransition(ProcessStatus.COMPLETED);
+                }
+                metrics.recordFailure(FailureType.SYSTEM_ERROR);
+            });
+            worker.start();
+            worker.join();
+        }
+        ManufacturingMetrics.Snapshot after = metrics.snapshot();
+
+        assertEquals(10L * THREADS, after.getTransitions(ProcessStatus.COMPLETED)
+                - before.getTransitions(ProcessStatus.COMPLETED));
+        assertEquals(THREADS, after.getFailures(FailureType.SYSTEM_ERROR)
+                - before.getFailures(FailureType.SYSTEM_ERROR));
+        assertTrue(metrics.recorderCount() < THREADS, "recorders: " + metrics.recorderCount());
+        assertEquals(after.getTransitions(ProcessStatus.COMPLETED),
+                metrics.snapshot().getTransitions(ProcessStatus.COMPLETED));
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that processes parked for stock are built and logged exactly once when a restock resumes them.
+ */
+class ManufacturingProcessTest {
+    private static final Simulation ALWAYS_COMPLETED = new Simulation(1).withOutcomes(1, 0, 0);
+
+    @Test
+    void parkedProcessBelongsToItsWaitingGroup() {
+        Inventory inventory = new Inventory();
+        BasicComponent wood = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 0);
+        inventory.addComponent(wood);
+        Product chair = new Product("Chair", new Component[]{wood}, new double[]{1}, 0);
+        ManufactureManager manager = new ManufactureManager();
+        WaitingProcesses waiting = new WaitingProcesses(inventory, manager, 1000);
+        ManufacturingProcess proc = new ManufacturingProcess(chair, ALWAYS_COMPLETED, 0, inventory, waiting);
+
+        assertFalse(proc.processManufacturing());
+        assertEquals(0, manager.getLog().size());
+        inventory.restock("Wood", 1);
+        waiting.await();
+
+        assertEquals(1, manager.getLog().size());
+        assertEquals(ProcessStatus.COMPLETED, manager.getLog().getStatus(0));
+        assertEquals(1.0, chair.getQuantity());
+    }
+
+    @Test
+    void unitsResumedByConcurrentRestocksAreBuiltOnce() throws Exception {
+        int units = 2000;
+        for (ManufacturingScheduler scheduler : List.of(new RoundRobinScheduler(1, 5000),
+                new ParallelScheduler(4, false, 1, 5000))) {
+            Inventory inventory = new Inventory();
+            BasicComponent wood = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 0);
+            inventory.addComponent(wood);
+            Product chair = new Product("Chair", new Component[]{wood}, new double[]{1}, units);
+            inventory.addComponent(chair);
+            Thread supplier = new Thread(() -> {
+                for (int i = 0; i < units; i++) {
+                    inventory.restock("Wood", 1);
+                    Thread.yield();
+                }
+            });
+
+            supplier.start();
+            ProcessLog log;
+            try (ManufacturingService service = new ManufacturingService(scheduler, ALWAYS_COMPLETED, inventory)) {
+                log = service.manufacture(List.of(chair));
+            }
+            supplier.join();
+
+            assertEquals(units, log.size(), scheduler.getClass().getSimpleName());
+            for (int i = 0; i < log.size(); i++) {
+                assertEquals(ProcessStatus.COMPLETED, log.getStatus(i));
+            }
+            assertEquals(units, chair.getQuantity(), scheduler.getClass().getSimpleName());
+            assertEquals(0, wood.getStockUnits());
+        }
+    }
+}
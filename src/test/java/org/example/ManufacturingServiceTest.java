@@ -0,0 +1,85 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that seeded manufacturing runs are reproducible with any scheduler and number of threads.
+ */
+class ManufacturingServiceTest {
+    private static final Simulation SEEDED = new Simulation(42).withOutcomes(0.7, 0.2, 0.1);
+
+    @Test
+    void seededRunsRepeat() {
+        assertEquals(run(new RoundRobinScheduler(1), SEEDED), run(new RoundRobinScheduler(1), SEEDED));
+    }
+
+    @Test
+    void seededRunsAreIndependentOfTheThreads() {
+        for (int batchSize : new int[]{1, 4}) {
+            Map<String, Integer> expected = run(new RoundRobinScheduler(batchSize), SEEDED);
+            for (int threads : new int[]{1, 2, 8}) {
+                try (ParallelScheduler scheduler = new ParallelScheduler(threads, false, batchSize)) {
+                    assertEquals(expected, run(scheduler, SEEDED), threads + " threads, batch size " + batchSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    void parallelSchedulerServesRepeatedRuns() {
+        try (ParallelScheduler scheduler = new ParallelScheduler(4, false, 4)) {
+            assertEquals(run(scheduler, SEEDED), run(scheduler, SEEDED));
+        }
+    }
+
+    @Test
+    void otherSeedsGiveOtherOutcomes() {
+        Simulation other = new Simulation(43).withOutcomes(0.7, 0.2, 0.1);
+        assertNotEquals(run(new RoundRobinScheduler(1), SEEDED), run(new RoundRobinScheduler(1), other));
+    }
+
+    // Manufactures a fresh catalog whose stock covers about half of the demand and counts the
+    // outcomes per product, status and failure type.
+    private static Map<String, Integer> run(ManufacturingScheduler scheduler, Simulation simulation) {
+        SplittableRandom random = new SplittableRandom(5);
+        Inventory inventory = new Inventory();
+        List<BasicComponent> components = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            BasicComponent component = new BasicComponent(i, "C" + i, 1 + random.nextInt(20), 1, "Raw Material",
+                    40 + random.nextInt(120));
+            components.add(component);
+            inventory.addComponent(component);
+        }
+        List<Product> products = new ArrayList<>();
+        for (int p = 0; p < 80; p++) {
+            int count = 2 + random.nextInt(4);
+            Component[] required = new Component[count];
+            double[] quantities = new double[count];
+            int first = random.nextInt(components.size());
+            for (int j = 0; j < count; j++) {
+                required[j] = components.get((first + j) % components.size());
+                quantities[j] = (1 + random.nextInt(400)) / 100.0;
+            }
+            Product product = new Product("P" + p, required, quantities, 1 + random.nextInt(20));
+            products.add(product);
+            inventory.addComponent(product);
+        }
+
+        ProcessLog log = new ManufacturingService(scheduler, simulation, inventory).manufacture(products);
+        Map<String, Integer> outcomes = new TreeMap<>();
+        for (int i = 0; i < log.size(); i++) {
+            outcomes.merge(log.getProduct(i).getName() + " " + log.getStatus(i) + " " + log.getFailureType(i),
+                    1, Integer::sum);
+        }
+        return outcomes;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link MappedCSVReader.Row#number(int)} parses numbers like {@link Double#parseDouble(String)}.
+ */
+class MappedCSVReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void numbersMatchParseDouble() throws IOException {
+        List<String> fields = new ArrayList<>(List.of(
+                "0.1", "1.5", "-2.25", "12345", "000000000000000000001.5", "0.000000000000000000000000123",
+                "1.2345678901234567890123", "123456789012345678901234567890", "9007199254740993",
+                "0.30000000000000004", "99999999999999999999.5", "7.000000000000000000000000001"));
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 10_000; i++) {
+            fields.add(new BigDecimal(random.nextDouble() * Math.pow(10, random.nextInt(-8, 12)))
+                    .round(new MathContext(random.nextInt(1, 25))).toPlainString());
+        }
+
+        List<Double> values = readAll(fields);
+        for (int i = 0; i < fields.size(); i++) {
+            assertEquals(Double.parseDouble(fields.get(i)), values.get(i), fields.get(i));
+        }
+    }
+
+    @Test
+    void commaSeparatorsAndUnitSuffixesAreAccepted() throws IOException {
+        assertEquals(List.of(2.5, 0.12345678901234568, 3.0),
+                readAll(List.of(" 2,5 kg", "0,123456789012345678 m", "3 pieces")));
+    }
+
+    // Reads the fields as the single column of a file.
+    private List<Double> readAll(List<String> fields) throws IOException {
+        Path file = Files.write(directory.resolve("numbers.csv"), fields);
+        List<Double> values = new ArrayList<>();
+        MappedCSVReader.read(file, ';', row -> values.add(row.number(0)));
+        return values;
+    }
+}
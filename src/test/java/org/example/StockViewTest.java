@@ -0,0 +1,45 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link StockView} reservations match the {@link Inventory} in exact stock units.
+ */
+class StockViewTest {
+    @Test
+    void reservationsMatchTheInventory() {
+        // 29.999999999 covers two units of 10, although the quotient is within 1e-9 of three
+        BasicComponent resin = new BasicComponent(0, "Resin", 1, 1, "Raw Material", 29.999999999, 9);
+        Product mould = new Product("Mould", new Component[]{resin}, new double[]{10}, 3);
+        StockView view = StockView.of(List.of(mould));
+        Inventory inventory = new Inventory();
+        inventory.addComponent(resin);
+
+        assertEquals(2, view.reserveUpTo(mould, 3));
+        assertEquals(9_999_999_999L, view.getStockUnits(resin));
+        assertEquals(2, inventory.reserveUpTo(mould, 3));
+        assertEquals(resin.getStockUnits(), view.getStockUnits(resin));
+        assertEquals(0, view.reserveUpTo(mould, 1));
+    }
+
+    @Test
+    void forksKeepTheirOwnStock() {
+        BasicComponent wood = new BasicComponent(0, "Wood", 1, 1, "Raw Material", 10);
+        Product shelf = new Product("Shelf", new Component[]{wood}, new double[]{1.25}, 0);
+        StockView baseline = StockView.of(List.of(shelf));
+        StockView fork = baseline.fork();
+
+        assertEquals(8, fork.reserveUpTo(shelf, 10));
+        fork.addManufactured(shelf);
+        fork.setStock(wood, 0.125);
+
+        assertEquals(13, fork.getStockUnits(wood));
+        assertEquals(1.0, fork.getStock(shelf));
+        assertEquals(10.0, baseline.getStock(wood));
+        assertEquals(0.0, baseline.getStock(shelf));
+    }
+}